@@ -0,0 +1,73 @@
+/*
+ * Copyright 2021 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.json5;
+
+import java.util.Arrays;
+
+/**
+ * The standard Base64 alphabet of RFC 4648, shared by the reader and writer to convert binary values a chunk at a
+ * time.
+ */
+final class Base64Codec {
+	private static final char[] ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+	private static final byte[] VALUES = new byte[128];
+
+	static {
+		Arrays.fill(VALUES, (byte) -1);
+		for (int i = 0; i < ALPHABET.length; i++) {
+			VALUES[ALPHABET[i]] = (byte) i;
+		}
+	}
+
+	private Base64Codec() {
+	}
+
+	/**
+	 * Returns the six bits which {@code c} stands for, or -1 if it is not in the alphabet.
+	 */
+	static int value(char c) {
+		return c < 0x80 ? VALUES[c] : -1;
+	}
+
+	/**
+	 * Encodes {@code length} bytes of {@code bytes} from {@code offset} into {@code chars}, padding the last group
+	 * if the length is not a multiple of three.
+	 *
+	 * @param chars receives the encoded text, and must have room for four chars per started group of three bytes.
+	 * @return the number of chars written.
+	 */
+	static int encode(byte[] bytes, int offset, int length, char[] chars) {
+		int n = 0;
+		int i = offset;
+		for (int end = offset + length - 2; i < end; i += 3) {
+			int bits = (bytes[i] & 0xff) << 16 | (bytes[i + 1] & 0xff) << 8 | bytes[i + 2] & 0xff;
+			chars[n++] = ALPHABET[bits >>> 18];
+			chars[n++] = ALPHABET[bits >>> 12 & 0x3f];
+			chars[n++] = ALPHABET[bits >>> 6 & 0x3f];
+			chars[n++] = ALPHABET[bits & 0x3f];
+		}
+		int left = offset + length - i;
+		if (left > 0) {
+			int bits = (bytes[i] & 0xff) << 16 | (left == 2 ? (bytes[i + 1] & 0xff) << 8 : 0);
+			chars[n++] = ALPHABET[bits >>> 18];
+			chars[n++] = ALPHABET[bits >>> 12 & 0x3f];
+			chars[n++] = left == 2 ? ALPHABET[bits >>> 6 & 0x3f] : '=';
+			chars[n++] = '=';
+		}
+		return n;
+	}
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2021 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.json5;
+
+/**
+ * Searches char arrays four characters at a time, by packing them into a long and comparing every 16-bit lane at
+ * once with a few arithmetic operations. This lets the reader jump over the bulk of long strings, comments and
+ * indentation instead of branching on each character.
+ */
+final class CharScanner {
+	private static final long LANE_ONES = 0x0001000100010001L;
+	private static final long LANE_HIGHS = 0x8000800080008000L;
+	private static final long SPACES = LANE_ONES * ' ';
+
+	private CharScanner() {
+	}
+
+	/**
+	 * Returns the index of the first of {@code a}, {@code b} or {@code c} in {@code chars} between {@code from} and
+	 * {@code to}, or {@code to} if there is none.
+	 */
+	static int indexOf(char[] chars, int from, int to, char a, char b, char c) {
+		long laneA = LANE_ONES * a;
+		long laneB = LANE_ONES * b;
+		long laneC = LANE_ONES * c;
+		int i = from;
+		for (int end = to - 3; i < end; i += 4) {
+			long word = pack(chars, i);
+			long found = zeroLanes(word ^ laneA) | zeroLanes(word ^ laneB) | zeroLanes(word ^ laneC);
+			if (found != 0) {
+				return i + (Long.numberOfTrailingZeros(found) >>> 4);
+			}
+		}
+		for (; i < to; i++) {
+			char ch = chars[i];
+			if (ch == a || ch == b || ch == c) {
+				return i;
+			}
+		}
+		return to;
+	}
+
+	/**
+	 * Like {@link #indexOf(char[], int, int, char, char, char)}, but for one of two characters.
+	 */
+	static int indexOf(char[] chars, int from, int to, char a, char b) {
+		long laneA = LANE_ONES * a;
+		long laneB = LANE_ONES * b;
+		int i = from;
+		for (int end = to - 3; i < end; i += 4) {
+			long word = pack(chars, i);
+			long found = zeroLanes(word ^ laneA) | zeroLanes(word ^ laneB);
+			if (found != 0) {
+				return i + (Long.numberOfTrailingZeros(found) >>> 4);
+			}
+		}
+		for (; i < to; i++) {
+			char ch = chars[i];
+			if (ch == a || ch == b) {
+				return i;
+			}
+		}
+		return to;
+	}
+
+	/**
+	 * Returns the index of the first character other than a space in {@code chars} between {@code from} and
+	 * {@code to}, or {@code to} if there is none.
+	 */
+	static int skipSpaces(char[] chars, int from, int to) {
+		int i = from;
+		for (int end = to - 3; i < end; i += 4) {
+			long found = pack(chars, i) ^ SPACES;
+			if (found != 0) {
+				return i + (Long.numberOfTrailingZeros(found) >>> 4);
+			}
+		}
+		while (i < to && chars[i] == ' ') {
+			i++;
+		}
+		return i;
+	}
+
+	private static long pack(char[] chars, int i) {
+		return chars[i] | (long) chars[i + 1] << 16 | (long) chars[i + 2] << 32 | (long) chars[i + 3] << 48;
+	}
+
+	/**
+	 * Sets the high bit of each 16-bit lane of {@code word} which is zero. Lanes above a zero one may be flagged too,
+	 * so only the lowest flag is exact.
+	 */
+	private static long zeroLanes(long word) {
+		return (word - LANE_ONES) & ~word & LANE_HIGHS;
+	}
+}
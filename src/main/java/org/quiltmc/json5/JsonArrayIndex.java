@@ -0,0 +1,189 @@
+/*
+ * Copyright 2021 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.json5;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * A sparse index of the elements of a file holding one large top-level array, for reading element {@code n} without
+ * reading every element before it.
+ *
+ * <p>The index keeps the byte offset of every {@link #getInterval() interval}th element, so opening an element seeks
+ * to the nearest one at or before it and skips the rest. It is built in one pass over the file, and can be saved
+ * next to it and loaded again, as long as the file is not changed in the meantime:
+ *
+ * <pre>   {@code
+ *   JsonArrayIndex index = JsonArrayIndex.build(path, 1024);
+ *   index.write(indexPath);
+ *   ...
+ *   JsonArrayIndex index = JsonArrayIndex.read(indexPath);
+ *   try (FileChannel channel = FileChannel.open(path)) {
+ *     JsonReader reader = index.open(channel, 5_000_000);
+ *     reader.beginObject(); // element 5,000,000
+ *   }
+ * }</pre>
+ */
+@Deprecated
+public final class JsonArrayIndex {
+	private static final int MAGIC = 0x514A4149; // "QJAI"
+	private static final int VERSION = 1;
+
+	private final long fileSize;
+	private final long lastModified;
+	private final int interval;
+	private final long size;
+	private final long[] offsets;
+
+	private JsonArrayIndex(long fileSize, long lastModified, int interval, long size, long[] offsets) {
+		this.fileSize = fileSize;
+		this.lastModified = lastModified;
+		this.interval = interval;
+		this.size = size;
+		this.offsets = offsets;
+	}
+
+	/**
+	 * Reads the JSON5 array in {@code file} once, keeping the offset of every {@code interval}th element.
+	 *
+	 * @throws IllegalStateException if the file does not hold an array.
+	 */
+	public static JsonArrayIndex build(Path file, int interval) throws IOException {
+		if (interval < 1) {
+			throw new IllegalArgumentException("Interval must be positive, but was " + interval);
+		}
+		long fileSize = Files.size(file);
+		long lastModified = Files.getLastModifiedTime(file).toMillis();
+		long[] offsets = new long[16];
+		int count = 0;
+		long size = 0;
+		try (JsonReader reader = JsonReader.json5(file)) {
+			reader.beginArray();
+			while (reader.hasNext()) {
+				if (size % interval == 0) {
+					if (count == offsets.length) {
+						offsets = Arrays.copyOf(offsets, count * 2);
+					}
+					offsets[count++] = reader.getTokenByteOffset();
+				}
+				reader.skipValue();
+				size++;
+			}
+			reader.endArray();
+		}
+		return new JsonArrayIndex(fileSize, lastModified, interval, size, Arrays.copyOf(offsets, count));
+	}
+
+	/**
+	 * Loads an index saved by {@link #write(Path)}.
+	 */
+	public static JsonArrayIndex read(Path indexFile) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				throw new IOException(indexFile + " is not an array index");
+			}
+			long fileSize = in.readLong();
+			long lastModified = in.readLong();
+			int interval = in.readInt();
+			long size = in.readLong();
+			long[] offsets = new long[in.readInt()];
+			for (int i = 0; i < offsets.length; i++) {
+				offsets[i] = in.readLong();
+			}
+			return new JsonArrayIndex(fileSize, lastModified, interval, size, offsets);
+		}
+	}
+
+	/**
+	 * Saves this index, to be loaded again with {@link #read(Path)}.
+	 */
+	public void write(Path indexFile) throws IOException {
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexFile)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(fileSize);
+			out.writeLong(lastModified);
+			out.writeInt(interval);
+			out.writeLong(size);
+			out.writeInt(offsets.length);
+			for (long offset : offsets) {
+				out.writeLong(offset);
+			}
+		}
+	}
+
+	/**
+	 * Returns true if {@code file} has the same size and modification time as the file this index was built from, so
+	 * that the index can still be used with it.
+	 */
+	public boolean isCurrent(Path file) throws IOException {
+		return Files.size(file) == fileSize && Files.getLastModifiedTime(file).toMillis() == lastModified;
+	}
+
+	/**
+	 * Returns the number of elements in the array.
+	 */
+	public long size() {
+		return size;
+	}
+
+	/**
+	 * Returns how many elements there are between each one whose offset is kept.
+	 */
+	public int getInterval() {
+		return interval;
+	}
+
+	/**
+	 * Returns the byte offset of the element with the given index, if it is one of those kept.
+	 *
+	 * @throws IllegalArgumentException if the offset of the element is not kept.
+	 */
+	public long getOffset(long element) {
+		if (element < 0 || element >= size || element % interval != 0) {
+			throw new IllegalArgumentException("No offset kept for element " + element);
+		}
+		return offsets[(int) (element / interval)];
+	}
+
+	/**
+	 * Returns a reader of the array in {@code channel}, which must be the file this index was built from, positioned
+	 * at the element with the given index. The rest of the array can be read on from there, up to its end, which ends
+	 * the document. Paths count elements from the one opened, as {@code $[0]}. The channel is left open and where it
+	 * was, so it can be used for any number of readers, as with {@link JsonReader#json5(FileChannel, long, JsonToken)}.
+	 *
+	 * @throws IndexOutOfBoundsException if there is no such element.
+	 */
+	public JsonReader open(FileChannel channel, long element) throws IOException {
+		if (element < 0 || element >= size) {
+			throw new IndexOutOfBoundsException("Element " + element + " of an array of " + size);
+		}
+		JsonReader reader = JsonReader.json5(channel, offsets[(int) (element / interval)], JsonToken.BEGIN_ARRAY);
+		for (long i = element % interval; i > 0; i--) {
+			reader.skipValue();
+		}
+		reader.setPathIndex(0);
+		return reader;
+	}
+}
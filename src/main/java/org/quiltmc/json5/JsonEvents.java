@@ -0,0 +1,54 @@
+/*
+ * Copyright 2021 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.json5;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Emits JDK Flight Recorder events for the documents read and written by readers and writers which have been told
+ * where their text comes from or goes to.
+ *
+ * <p>This version does nothing, since Java 8 may not have Flight Recorder. The one for newer JDKs replaces it.
+ */
+final class JsonEvents {
+	private JsonEvents() {
+	}
+
+	/**
+	 * Starts timing a document being read, if its event is enabled.
+	 *
+	 * @return the event, to pass to {@link #end}, or null if it is not enabled.
+	 */
+	static @Nullable Object beginRead() {
+		return null;
+	}
+
+	/**
+	 * Like {@link #beginRead()}, for a document being written.
+	 */
+	static @Nullable Object beginWrite() {
+		return null;
+	}
+
+	/**
+	 * Stops timing an event from {@link #beginRead()} or {@link #beginWrite()}, and commits it.
+	 *
+	 * @param error the message of the error which stopped the document, or null if it was finished.
+	 */
+	static void end(Object event, String source, JsonMetrics metrics, @Nullable String error) {
+	}
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2021 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.json5;
+
+/**
+ * The tables which {@link JsonReader} and {@link NonBlockingJsonReader} classify characters and recognise numbers
+ * with, so that both accept exactly the same documents.
+ */
+final class JsonGrammar {
+	/* States of the number state machine */
+	static final int NUMBER_CHAR_NONE = 0;
+	static final int NUMBER_CHAR_SIGN = 1;
+	static final int NUMBER_CHAR_DIGIT = 2;
+	static final int NUMBER_CHAR_DECIMAL = 3;
+	static final int NUMBER_CHAR_FRACTION_DIGIT = 4;
+	static final int NUMBER_CHAR_EXP_E = 5;
+	static final int NUMBER_CHAR_EXP_SIGN = 6;
+	static final int NUMBER_CHAR_EXP_DIGIT = 7;
+	static final int NUMBER_CHAR_ZERO = 8;
+	static final int NUMBER_CHAR_HEXADECIMAL = 9;
+
+	/* Classes of ASCII characters, as bit flags in CHAR_CLASSES */
+	/** Whitespace in both JSON and JSON5. */
+	static final int CLASS_WHITESPACE = 1;
+	/** Whitespace only in JSON5: the vertical tab and form feed. */
+	static final int CLASS_JSON5_WHITESPACE = 2;
+	/** Characters which end an unquoted name or value. */
+	static final int CLASS_LITERAL_END = 4;
+	/** Characters which are reserved by lenient Gson. */
+	static final int CLASS_LENIENT = 8;
+	static final byte[] CHAR_CLASSES = new byte[128];
+
+	/* Classes of characters in numbers, for NUMBER_CLASSES and NUMBER_TRANSITIONS */
+	static final int NUMBER_CLASS_MINUS = 0;
+	static final int NUMBER_CLASS_PLUS = 1;
+	static final int NUMBER_CLASS_DECIMAL = 2;
+	static final int NUMBER_CLASS_ZERO = 3;
+	static final int NUMBER_CLASS_DIGIT = 4;
+	static final int NUMBER_CLASS_EXPONENT = 5;
+	static final int NUMBER_CLASS_X = 6;
+	static final int NUMBER_CLASS_HEX_LETTER = 7;
+	static final int NUMBER_CLASS_N = 8;
+	static final int NUMBER_CLASS_I = 9;
+	static final int NUMBER_CLASS_OTHER = 10;
+	static final int NUMBER_CLASS_LENIENT = 11;
+	static final int NUMBER_CLASS_END = 12;
+	static final int NUMBER_CLASS_COUNT = 13;
+	private static final byte[] NUMBER_CLASSES = new byte[128];
+
+	/**
+	 * The number state machine: the entry for a NUMBER_CHAR_ state and a NUMBER_CLASS_ is the next state, with
+	 * NUMBER_JSON5 set if the step is only allowed in JSON5, or NUMBER_ERROR.
+	 */
+	private static final int[] NUMBER_TRANSITIONS = new int[(NUMBER_CHAR_HEXADECIMAL + 1) * NUMBER_CLASS_COUNT];
+	static final int NUMBER_JSON5 = 0x10;
+	static final int NUMBER_STATE = 0xf;
+	static final int NUMBER_ERROR = -1;
+
+	static {
+		for (char c : " \t\r\n".toCharArray()) {
+			CHAR_CLASSES[c] |= CLASS_WHITESPACE;
+		}
+		CHAR_CLASSES[0x0b] |= CLASS_JSON5_WHITESPACE;
+		CHAR_CLASSES['\f'] |= CLASS_JSON5_WHITESPACE;
+		for (char c : "{}[]:, \t\f\r\n".toCharArray()) {
+			CHAR_CLASSES[c] |= CLASS_LITERAL_END;
+		}
+		for (char c : "/\\;#=".toCharArray()) {
+			CHAR_CLASSES[c] |= CLASS_LENIENT;
+		}
+
+		for (char c = 0; c < 128; c++) {
+			int numberClass;
+			if (c == '-') {
+				numberClass = NUMBER_CLASS_MINUS;
+			} else if (c == '+') {
+				numberClass = NUMBER_CLASS_PLUS;
+			} else if (c == '.') {
+				numberClass = NUMBER_CLASS_DECIMAL;
+			} else if (c == '0') {
+				numberClass = NUMBER_CLASS_ZERO;
+			} else if (c >= '1' && c <= '9') {
+				numberClass = NUMBER_CLASS_DIGIT;
+			} else if (c == 'e' || c == 'E') {
+				numberClass = NUMBER_CLASS_EXPONENT;
+			} else if (c == 'x' || c == 'X') {
+				numberClass = NUMBER_CLASS_X;
+			} else if (c >= 'a' && c <= 'f' || c >= 'A' && c <= 'F') {
+				numberClass = NUMBER_CLASS_HEX_LETTER;
+			} else if (c == 'N') {
+				numberClass = NUMBER_CLASS_N;
+			} else if (c == 'I') {
+				numberClass = NUMBER_CLASS_I;
+			} else if ((CHAR_CLASSES[c] & CLASS_LENIENT) != 0) {
+				numberClass = NUMBER_CLASS_LENIENT;
+			} else if ((CHAR_CLASSES[c] & CLASS_LITERAL_END) != 0) {
+				numberClass = NUMBER_CLASS_END;
+			} else {
+				numberClass = NUMBER_CLASS_OTHER;
+			}
+			NUMBER_CLASSES[c] = (byte) numberClass;
+		}
+
+		for (int last = 0; last <= NUMBER_CHAR_HEXADECIMAL; last++) {
+			for (int numberClass = 0; numberClass < NUMBER_CLASS_COUNT; numberClass++) {
+				NUMBER_TRANSITIONS[last * NUMBER_CLASS_COUNT + numberClass] = transition(last, numberClass);
+			}
+		}
+	}
+
+	private JsonGrammar() {
+	}
+
+	/**
+	 * Returns true for the characters which end an unquoted name or value.
+	 */
+	static boolean isLiteralEnd(char c) {
+		return c < 0x80 && (CHAR_CLASSES[c] & CLASS_LITERAL_END) != 0;
+	}
+
+	/**
+	 * Returns true for the characters which are reserved by lenient Gson, and so can't start an unquoted name or value.
+	 */
+	static boolean isLenient(char c) {
+		return c < 0x80 && (CHAR_CLASSES[c] & CLASS_LENIENT) != 0;
+	}
+
+	/**
+	 * Returns the NUMBER_CLASS_ of a character.
+	 */
+	static int numberClass(char c) {
+		return c < 0x80 ? NUMBER_CLASSES[c] : NUMBER_CLASS_OTHER;
+	}
+
+	/**
+	 * Returns the NUMBER_CHAR_ state after a character of class {@code numberClass} in a number in state
+	 * {@code last}, with NUMBER_JSON5 set if the step is only allowed in JSON5, or NUMBER_ERROR.
+	 */
+	static int nextNumberState(int last, int numberClass) {
+		return NUMBER_TRANSITIONS[last * NUMBER_CLASS_COUNT + numberClass];
+	}
+
+	/**
+	 * Returns the state after a character of class {@code numberClass} in a number in state {@code last}. This is
+	 * only used to fill {@link #NUMBER_TRANSITIONS}.
+	 */
+	private static int transition(int last, int numberClass) {
+		switch (numberClass) {
+			case NUMBER_CLASS_MINUS:
+				if (last == NUMBER_CHAR_NONE) {
+					return NUMBER_CHAR_SIGN;
+				} else if (last == NUMBER_CHAR_EXP_E) {
+					return NUMBER_CHAR_EXP_SIGN;
+				}
+				return NUMBER_ERROR;
+			case NUMBER_CLASS_PLUS:
+				if (last == NUMBER_CHAR_EXP_E) {
+					return NUMBER_CHAR_EXP_SIGN;
+				} else if (last == NUMBER_CHAR_NONE) {
+					return NUMBER_CHAR_NONE | NUMBER_JSON5;
+				}
+				return NUMBER_ERROR;
+			case NUMBER_CLASS_EXPONENT:
+				if (last == NUMBER_CHAR_HEXADECIMAL) {
+					return last;
+				} else if (last == NUMBER_CHAR_ZERO || last == NUMBER_CHAR_DIGIT
+						|| last == NUMBER_CHAR_FRACTION_DIGIT) {
+					return NUMBER_CHAR_EXP_E;
+				} else if (last == NUMBER_CHAR_DECIMAL) {
+					return NUMBER_CHAR_EXP_E | NUMBER_JSON5;
+				}
+				return NUMBER_ERROR;
+			case NUMBER_CLASS_DECIMAL:
+				if (last == NUMBER_CHAR_DIGIT || last == NUMBER_CHAR_ZERO) {
+					return NUMBER_CHAR_DECIMAL;
+				} else if (last == NUMBER_CHAR_NONE || last == NUMBER_CHAR_SIGN) {
+					return NUMBER_CHAR_DECIMAL | NUMBER_JSON5;
+				}
+				return NUMBER_ERROR;
+			case NUMBER_CLASS_ZERO:
+				if (last == NUMBER_CHAR_NONE || last == NUMBER_CHAR_SIGN) {
+					return NUMBER_CHAR_ZERO;
+				} else if (last == NUMBER_CHAR_HEXADECIMAL || last == NUMBER_CHAR_FRACTION_DIGIT
+						|| last == NUMBER_CHAR_EXP_DIGIT) {
+					return last;
+				} else if (last == NUMBER_CHAR_EXP_E || last == NUMBER_CHAR_EXP_SIGN) {
+					return NUMBER_CHAR_EXP_DIGIT;
+				} else if (last == NUMBER_CHAR_ZERO) {
+					return NUMBER_ERROR;
+				}
+				return NUMBER_CHAR_DIGIT;
+			case NUMBER_CLASS_X:
+				return last == NUMBER_CHAR_ZERO ? NUMBER_CHAR_HEXADECIMAL | NUMBER_JSON5 : NUMBER_ERROR;
+			case NUMBER_CLASS_DIGIT:
+				if (last == NUMBER_CHAR_SIGN || last == NUMBER_CHAR_NONE) {
+					return NUMBER_CHAR_DIGIT;
+				} else if (last == NUMBER_CHAR_DECIMAL) {
+					return NUMBER_CHAR_FRACTION_DIGIT;
+				} else if (last == NUMBER_CHAR_EXP_E || last == NUMBER_CHAR_EXP_SIGN) {
+					return NUMBER_CHAR_EXP_DIGIT;
+				}
+				return last;
+			case NUMBER_CLASS_HEX_LETTER:
+				return last == NUMBER_CHAR_HEXADECIMAL ? last : NUMBER_ERROR;
+			default:
+				return NUMBER_ERROR;
+		}
+	}
+}
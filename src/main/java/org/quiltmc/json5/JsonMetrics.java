@@ -0,0 +1,122 @@
+/*
+ * Copyright 2021 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.json5;
+
+/**
+ * What a {@link JsonReader} or {@link JsonWriter} did while reading or writing one document, as passed to a
+ * {@link JsonMetricsListener}. Counting only happens once a listener is set, so readers and writers without one pay
+ * nothing for it.
+ */
+@Deprecated
+public final class JsonMetrics {
+	private static final JsonToken[] TOKENS = JsonToken.values();
+
+	long chars;
+	final long[] tokens = new long[TOKENS.length];
+	int bufferFills;
+	int builderFallbacks;
+	int escapes;
+	int maxDepth;
+	long startNanos;
+	long nanos;
+
+	JsonMetrics() {
+	}
+
+	/**
+	 * Returns the number of characters read from the input or written to the output.
+	 */
+	public long getCharCount() {
+		return chars;
+	}
+
+	/**
+	 * Returns the number of tokens of the given kind which were read or written. A token which was looked ahead at
+	 * and replayed is counted each time.
+	 */
+	public long getTokenCount(JsonToken token) {
+		return tokens[token.ordinal()];
+	}
+
+	/**
+	 * Returns the number of times a reader refilled its buffer from the input. Always 0 for writers.
+	 */
+	public int getBufferFills() {
+		return bufferFills;
+	}
+
+	/**
+	 * Returns the number of strings a reader could not take straight out of its buffer, because they had escapes or
+	 * ran past its end, and built up in a {@link StringBuilder} instead. Always 0 for writers.
+	 */
+	public int getStringBuilderFallbacks() {
+		return builderFallbacks;
+	}
+
+	/**
+	 * Returns the number of escape sequences decoded by a reader, or written by a writer.
+	 */
+	public int getEscapeCount() {
+		return escapes;
+	}
+
+	/**
+	 * Returns the deepest nesting of objects and arrays reached, where a top-level object or array has depth 1.
+	 */
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+
+	/**
+	 * Returns the time, in nanoseconds, from the first token of the document to its end.
+	 */
+	public long getNanos() {
+		return nanos;
+	}
+
+	void count(JsonToken token, int depth) {
+		tokens[token.ordinal()]++;
+		if (depth > maxDepth) {
+			maxDepth = depth;
+		}
+		if (startNanos == 0) {
+			startNanos = System.nanoTime();
+		}
+	}
+
+	void finish() {
+		if (startNanos != 0) {
+			nanos = System.nanoTime() - startNanos;
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder("JsonMetrics[chars=").append(chars);
+		for (JsonToken token : TOKENS) {
+			if (tokens[token.ordinal()] != 0) {
+				result.append(", ").append(token).append('=').append(tokens[token.ordinal()]);
+			}
+		}
+		return result.append(", bufferFills=").append(bufferFills)
+				.append(", stringBuilderFallbacks=").append(builderFallbacks)
+				.append(", escapes=").append(escapes)
+				.append(", maxDepth=").append(maxDepth)
+				.append(", nanos=").append(nanos)
+				.append(']').toString();
+	}
+}
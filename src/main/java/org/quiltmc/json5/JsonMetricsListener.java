@@ -0,0 +1,39 @@
+/*
+ * Copyright 2021 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.json5;
+
+/**
+ * Receives the {@link JsonMetrics} of each document read or written, for example to feed them to a metrics registry.
+ * Every method does nothing by default.
+ *
+ * @see JsonReader#setMetricsListener(JsonMetricsListener)
+ * @see JsonWriter#setMetricsListener(JsonMetricsListener)
+ */
+@Deprecated
+public interface JsonMetricsListener {
+	/**
+	 * Called when a reader reaches the end of the document, or is closed before it does.
+	 */
+	default void onRead(JsonMetrics metrics) {
+	}
+
+	/**
+	 * Called when a writer is closed.
+	 */
+	default void onWritten(JsonMetrics metrics) {
+	}
+}
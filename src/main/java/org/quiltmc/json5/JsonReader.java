@@ -16,18 +16,63 @@
 
 package org.quiltmc.json5;
 
+import static org.quiltmc.json5.JsonGrammar.CHAR_CLASSES;
+import static org.quiltmc.json5.JsonGrammar.CLASS_JSON5_WHITESPACE;
+import static org.quiltmc.json5.JsonGrammar.CLASS_LENIENT;
+import static org.quiltmc.json5.JsonGrammar.CLASS_LITERAL_END;
+import static org.quiltmc.json5.JsonGrammar.CLASS_WHITESPACE;
+import static org.quiltmc.json5.JsonGrammar.NUMBER_CHAR_DECIMAL;
+import static org.quiltmc.json5.JsonGrammar.NUMBER_CHAR_DIGIT;
+import static org.quiltmc.json5.JsonGrammar.NUMBER_CHAR_EXP_DIGIT;
+import static org.quiltmc.json5.JsonGrammar.NUMBER_CHAR_FRACTION_DIGIT;
+import static org.quiltmc.json5.JsonGrammar.NUMBER_CHAR_HEXADECIMAL;
+import static org.quiltmc.json5.JsonGrammar.NUMBER_CHAR_NONE;
+import static org.quiltmc.json5.JsonGrammar.NUMBER_CHAR_SIGN;
+import static org.quiltmc.json5.JsonGrammar.NUMBER_CHAR_ZERO;
+import static org.quiltmc.json5.JsonGrammar.NUMBER_CLASS_DECIMAL;
+import static org.quiltmc.json5.JsonGrammar.NUMBER_CLASS_END;
+import static org.quiltmc.json5.JsonGrammar.NUMBER_CLASS_EXPONENT;
+import static org.quiltmc.json5.JsonGrammar.NUMBER_CLASS_I;
+import static org.quiltmc.json5.JsonGrammar.NUMBER_CLASS_LENIENT;
+import static org.quiltmc.json5.JsonGrammar.NUMBER_CLASS_MINUS;
+import static org.quiltmc.json5.JsonGrammar.NUMBER_CLASS_N;
+import static org.quiltmc.json5.JsonGrammar.NUMBER_CLASS_PLUS;
+import static org.quiltmc.json5.JsonGrammar.NUMBER_CLASS_X;
+import static org.quiltmc.json5.JsonGrammar.NUMBER_CLASS_ZERO;
+import static org.quiltmc.json5.JsonGrammar.NUMBER_ERROR;
+import static org.quiltmc.json5.JsonGrammar.NUMBER_JSON5;
+import static org.quiltmc.json5.JsonGrammar.NUMBER_STATE;
+import static org.quiltmc.json5.JsonGrammar.isLiteralEnd;
+import static org.quiltmc.json5.JsonGrammar.nextNumberState;
+import static org.quiltmc.json5.JsonGrammar.numberClass;
+
+import org.jetbrains.annotations.Nullable;
+import org.quiltmc.json5.exception.ErrorCode;
+import org.quiltmc.json5.exception.LimitExceededException;
 import org.quiltmc.json5.exception.MalformedSyntaxException;
 
+import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
 import java.io.EOFException;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Reader;
 import java.io.StringReader;
+import java.io.StringWriter;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
 
 /*
@@ -72,23 +117,34 @@ public final class JsonReader implements Closeable {
 	private static final int PEEKED_INF = 18;
 	private static final int PEEKED_NEGATIVE_INF = 19;
 	private static final int PEEKED_EOF = 20;
+	/** A name replayed from a {@link TokenBuffer}, stored in peekedString. */
+	private static final int PEEKED_BUFFERED_NAME = 21;
+
+	/** The powers of ten which a double holds exactly. */
+	private static final double[] POWERS_OF_TEN = {
+			1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+			1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
 
-	/* State machine when parsing numbers */
-	private static final int NUMBER_CHAR_NONE = 0;
-	private static final int NUMBER_CHAR_SIGN = 1;
-	private static final int NUMBER_CHAR_DIGIT = 2;
-	private static final int NUMBER_CHAR_DECIMAL = 3;
-	private static final int NUMBER_CHAR_FRACTION_DIGIT = 4;
-	private static final int NUMBER_CHAR_EXP_E = 5;
-	private static final int NUMBER_CHAR_EXP_SIGN = 6;
-	private static final int NUMBER_CHAR_EXP_DIGIT = 7;
-	private static final int NUMBER_CHAR_ZERO = 8;
-	private static final int NUMBER_CHAR_HEXADECIMAL = 9;
 	/** The input JSON. */
 	private final Reader in;
 
 	private boolean allowNonExecutePrefix = false;
 	private boolean strict = false;
+	private boolean stackTraces = true;
+	/** The malformed input read past so far, or null unless the reader is recovering. */
+	private @Nullable List<MalformedSyntaxException> diagnostics;
+	/** The token to return after the null which stands in for a broken value, if finding it ended the object. */
+	private int deferred = PEEKED_NONE;
+
+	/** Limits on the input, for documents which can't be trusted. See the setters. */
+	private int maxDepth = Integer.MAX_VALUE;
+	private int maxStringLength = Integer.MAX_VALUE;
+	private int maxNumberLength = Integer.MAX_VALUE;
+	private long maxDocumentLength = Long.MAX_VALUE;
+	private int maxNamesPerObject = Integer.MAX_VALUE;
+	/** The number of characters read from the input so far. */
+	private long documentLength;
 	/**
 	 * Use a manual buffer to easily read and unread upcoming characters, and
 	 * also so we can create strings without an intermediate StringBuilder.
@@ -99,9 +155,19 @@ public final class JsonReader implements Closeable {
 	private int pos = 0;
 	private int limit = 0;
 
-	private int lineNumber = 0;
+	private long lineNumber = 0;
 	private int lineStart = 0;
 
+	/** The offset in chars of the last token peeked from the input, as opposed to replayed. */
+	private long tokenStart;
+	/**
+	 * A known pair of offsets into the input, in chars and in UTF-8 bytes, for telling the byte offset of a token.
+	 * They are moved up to the start of the buffer each time it is refilled. The char offset is -1 if the input isn't
+	 * known to be UTF-8.
+	 */
+	private long countedChars = -1;
+	private long countedBytes;
+
 	int peeked = PEEKED_NONE;
 
 	/**
@@ -110,12 +176,49 @@ public final class JsonReader implements Closeable {
 	 */
 	private int peekedNumberLength;
 
+	/** The value of the peeked number, when {@link #peekSmallInteger} or {@link #peekSmallDouble} could parse it. */
+	private long peekedLong;
+	private double peekedDouble;
+
 	/**
 	 * A peeked string that should be parsed on the next double, long or string.
 	 * This is populated before a numeric value is parsed and used if that parsing
 	 * fails.
 	 */
 	private String peekedString;
+	/** The reader returned by {@link #nextStringReader()}, until it reaches the end of its string. */
+	private @Nullable QuotedStringReader stringReader;
+
+	/**
+	 * Collects the text of the value being skipped by {@link #nextRawValue()}, which starts at {@link #captureStart}
+	 * in the buffer, or in this builder if the buffer has moved on since.
+	 */
+	private @Nullable StringBuilder capture;
+	private int captureStart;
+
+	/**
+	 * The tokens to read before going on with the input, if this reader replays a {@link TokenBuffer} or has looked
+	 * ahead with {@link #peekField}.
+	 */
+	private @Nullable TokenBuffer replay;
+	private int replayIndex;
+	/**
+	 * The unread input which was in the buffer when {@link #peekField} started replaying, or null if this reader only
+	 * replays a {@link TokenBuffer}.
+	 */
+	private @Nullable char[] replayedInput;
+
+	/** What this reader has done so far, if it has a listener or event to report it to. */
+	private @Nullable JsonMetrics metrics;
+	private @Nullable JsonMetricsListener metricsListener;
+	/** The Flight Recorder event for the document, if this reader has a source and the event is enabled. */
+	private @Nullable Object event;
+	private @Nullable String source;
+	/** The message of the error which stopped the document, if there is an event to report it to. */
+	private @Nullable String failure;
+
+	/** Holds strings decoded for a {@link JsonVisitor} when they can't be passed straight out of the buffer. */
+	private char[] visitBuffer = new char[0];
 	/*
 	 * The nesting stack. Using a manual array rather than an ArrayList saves 20%.
 	 */
@@ -136,6 +239,12 @@ public final class JsonReader implements Closeable {
 	private String[] pathNames = new String[32];
 	private int[] pathIndices = new int[32];
 
+	/**
+	 * The text of the comments skipped since the last call to {@link #takeComment()}, or null if comments are not
+	 * being retained.
+	 */
+	private StringBuilder comments = null;
+
 	// API methods
 	/**
 	 * Creates a new instance that reads a JSON5-encoded stream from the provided path.
@@ -144,7 +253,47 @@ public final class JsonReader implements Closeable {
 	 * @throws IOException if an I/O error occurs trying to open the file at the path.
 	 */
 	public static JsonReader json5(Path in) throws IOException {
-		return json5(Files.newBufferedReader(Objects.requireNonNull(in, "Path cannot be null")));
+		JsonReader reader = json5(Files.newBufferedReader(Objects.requireNonNull(in, "Path cannot be null")));
+		reader.countedChars = 0;
+		return reader.setSource(in.toString());
+	}
+
+	/**
+	 * Creates a new instance that reads a JSON5-encoded stream from the provided channel, starting {@code offset}
+	 * bytes in, such as at an offset from {@link #getTokenByteOffset()}. The input must be UTF-8.
+	 *
+	 * <p>The channel is read at positions of the reader's own, so its position is left as it is and several readers
+	 * can read it at once. Closing the reader does not close the channel.
+	 *
+	 * <p>The reader starts out inside an array or object when reading from the middle of one, so that the rest of it
+	 * can be read as usual, and its end ends the document. Lines, columns and paths count from the offset, while
+	 * byte offsets count from the start of the channel.
+	 *
+	 * @param enclosing {@link JsonToken#BEGIN_ARRAY} if the offset is of an element of an array,
+	 * {@link JsonToken#BEGIN_OBJECT} if it is of the name of a member of an object, or
+	 * {@link JsonToken#END_DOCUMENT} if it is of a value outside of either.
+	 */
+	public static JsonReader json5(FileChannel in, long offset, JsonToken enclosing) throws IOException {
+		Objects.requireNonNull(in, "Channel cannot be null");
+		JsonReader reader = json5(Channels.newReader(new ChannelRegion(in, offset), StandardCharsets.UTF_8.newDecoder(),
+				-1));
+		reader.countedChars = 0;
+		reader.countedBytes = offset;
+		switch (enclosing) {
+			case BEGIN_ARRAY:
+				reader.stack[0] = JsonScope.NONEMPTY_DOCUMENT;
+				reader.push(JsonScope.EMPTY_ARRAY);
+				break;
+			case BEGIN_OBJECT:
+				reader.stack[0] = JsonScope.NONEMPTY_DOCUMENT;
+				reader.push(JsonScope.EMPTY_OBJECT);
+				break;
+			case END_DOCUMENT:
+				break;
+			default:
+				throw new IllegalArgumentException("Cannot start reading inside " + enclosing);
+		}
+		return reader;
 	}
 
 	/**
@@ -168,6 +317,14 @@ public final class JsonReader implements Closeable {
 		return json5(in).setStrictJson();
 	}
 
+	/**
+	 * Creates a new instance that reads a strictly JSON-encoded stream from the provided channel, starting
+	 * {@code offset} bytes in. See {@link #json5(FileChannel, long, JsonToken)}.
+	 */
+	public static JsonReader json(FileChannel in, long offset, JsonToken enclosing) throws IOException {
+		return json5(in, offset, enclosing).setStrictJson();
+	}
+
 	/**
 	 * Creates a new instance that reads a strictly JSON-encoded stream from the provided string.
 	 */
@@ -188,6 +345,12 @@ public final class JsonReader implements Closeable {
 		}
 
 		this.in = in;
+		this.replay = null;
+	}
+
+	JsonReader(TokenBuffer replay) {
+		this.in = new StringReader("");
+		this.replay = replay;
 	}
 
 	/**
@@ -206,6 +369,265 @@ public final class JsonReader implements Closeable {
 		return strict;
 	}
 
+	/**
+	 * Makes this reader keep the text of the comments it skips over so that it can be retrieved with
+	 * {@link #takeComment()}. By default comments are discarded.
+	 */
+	public JsonReader setRetainComments() {
+		if (this.comments == null) {
+			this.comments = new StringBuilder();
+		}
+		return this;
+	}
+
+	/**
+	 * Makes this reader count what it does, and pass the counts to {@code listener} at the end of the document. By
+	 * default nothing is counted.
+	 *
+	 * @param listener the listener, or null to stop counting.
+	 */
+	public JsonReader setMetricsListener(@Nullable JsonMetricsListener listener) {
+		this.metricsListener = listener;
+		if (listener != null && metrics == null) {
+			this.metrics = new JsonMetrics();
+		} else if (listener == null && event == null) {
+			this.metrics = null;
+		}
+		return this;
+	}
+
+	/**
+	 * Describes where the input comes from, such as the name of a file. If the JDK Flight Recorder event
+	 * {@code org.quiltmc.json5.DocumentRead} is enabled, this makes the reader emit one at the end of the document,
+	 * recording the description, the size of the document, the number of tokens, the time taken and the error which
+	 * stopped it, if any: malformed syntax, an exceeded limit, the input ending early or failing to be read. Readers
+	 * created from a {@link Path} describe themselves by the path.
+	 */
+	public JsonReader setSource(String description) {
+		this.source = Objects.requireNonNull(description, "description == null");
+		if (event == null) {
+			this.event = JsonEvents.beginRead();
+			if (event != null && metrics == null) {
+				this.metrics = new JsonMetrics();
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Returns true if this reader keeps the comments it skips over. Defaults to false.
+	 */
+	public boolean retainsComments() {
+		return comments != null;
+	}
+
+	/**
+	 * Makes the {@link org.quiltmc.json5.exception.ParseException}s thrown for malformed or oversized input skip
+	 * capturing a stack trace, which is most of the cost of throwing them. This suits code which expects a lot of bad
+	 * input and only reports the messages, such as a validator. By default stack traces are captured.
+	 */
+	public JsonReader setStacklessExceptions() {
+		this.stackTraces = false;
+		return this;
+	}
+
+	/**
+	 * Returns true if the exceptions thrown for malformed input have no stack trace. Defaults to false.
+	 */
+	public boolean hasStacklessExceptions() {
+		return !stackTraces;
+	}
+
+	/**
+	 * Makes this reader carry on past malformed input rather than throwing, recording each problem for
+	 * {@link #getDiagnostics()}, so that one pass over a document finds all of them. Problems within a value which
+	 * don't hide its end, such as an invalid escape sequence, are read past in place. Otherwise the reader skips ahead
+	 * to the next comma or closing bracket of the enclosing object or array, and goes on from there. A member whose
+	 * value is skipped gets a null in its place, so every name is followed by a value. A missing comma is assumed to
+	 * be there, and objects and arrays still open at the end of the input are ended.
+	 *
+	 * <p>The tokens this reader returns may not match what a caller expects where the input is broken, so this suits
+	 * code which walks whatever is there, such as a validator, best. Limits on the input are still enforced by
+	 * throwing.
+	 */
+	public JsonReader setRecovering() {
+		if (diagnostics == null) {
+			diagnostics = new ArrayList<>();
+		}
+		return this;
+	}
+
+	/**
+	 * Returns true if this reader carries on past malformed input. Defaults to false.
+	 */
+	public boolean isRecovering() {
+		return diagnostics != null;
+	}
+
+	/**
+	 * Returns the problems read past so far by a {@linkplain #setRecovering() recovering} reader, in the order they
+	 * were found. Each has the line, column, offset and path of the problem, but no stack trace.
+	 */
+	public List<MalformedSyntaxException> getDiagnostics() {
+		return diagnostics == null ? Collections.emptyList() : Collections.unmodifiableList(diagnostics);
+	}
+
+	/**
+	 * Returns the offset in chars from the start of the input of the next token, peeking it if needed. For
+	 * {@link JsonToken#END_DOCUMENT} this is the length of the input. Returns -1 for tokens read ahead by
+	 * {@link #peekField(String)}, whose place in the input is not kept.
+	 */
+	public long getTokenOffset() throws IOException {
+		peek();
+		return replay != null ? -1 : tokenStart;
+	}
+
+	/**
+	 * Returns the offset in bytes from the start of the input of the next token, peeking it if needed, or -1 where
+	 * {@link #getTokenOffset()} is. This is only known for readers of a file, which is read as UTF-8.
+	 *
+	 * @throws IllegalStateException if this reader was not created from a {@link Path} or {@link FileChannel}.
+	 */
+	public long getTokenByteOffset() throws IOException {
+		if (countedChars < 0) {
+			throw new IllegalStateException("The byte offsets of this input are not known");
+		}
+		long offset = getTokenOffset();
+		if (offset < 0) {
+			return -1;
+		}
+		long bufferStart = documentLength - limit;
+		int from = (int) (countedChars - bufferStart);
+		long bytes = countedBytes + utf8Length(buffer, from, (int) (offset - bufferStart));
+		if (offset > countedChars) {
+			// Count on from this token next time rather than from the start of the buffer
+			countedChars = offset;
+			countedBytes = bytes;
+		}
+		return bytes;
+	}
+
+	/**
+	 * Returns the line of the next token, counting from 1, peeking it if needed, or -1 where
+	 * {@link #getTokenOffset()} is.
+	 */
+	public long getTokenLine() throws IOException {
+		peek();
+		return replay != null ? -1 : lineNumber + 1;
+	}
+
+	/**
+	 * Returns the column of the next token, counting from 1, peeking it if needed, or -1 where
+	 * {@link #getTokenOffset()} is.
+	 */
+	public long getTokenColumn() throws IOException {
+		peek();
+		return replay != null ? -1 : tokenStart - (documentLength - limit + lineStart) + 1;
+	}
+
+	/**
+	 * Sets how deeply objects and arrays may be nested, where a top-level object or array has depth 1. Going deeper
+	 * throws a {@link LimitExceededException}. There is no limit by default.
+	 */
+	public JsonReader setMaxDepth(int maxDepth) {
+		this.maxDepth = maxDepth;
+		return this;
+	}
+
+	/**
+	 * Returns how deeply objects and arrays may be nested.
+	 */
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+
+	/**
+	 * Sets the length of the longest name or string this reader will decode. Reading a longer one throws a
+	 * {@link LimitExceededException} once that many characters have been collected. The text returned by
+	 * {@link #nextRawValue()} and the Base64 strings decoded by {@link #nextBinary()} are held to it too. Strings which
+	 * are skipped, or read through {@link #nextStringReader()} or {@link #nextBinary(OutputStream)}, are not held in
+	 * memory and may be longer. There is no limit by default.
+	 */
+	public JsonReader setMaxStringLength(int maxStringLength) {
+		this.maxStringLength = maxStringLength;
+		return this;
+	}
+
+	/**
+	 * Returns the length of the longest name or string this reader will decode.
+	 */
+	public int getMaxStringLength() {
+		return maxStringLength;
+	}
+
+	/**
+	 * Sets the length of the longest number this reader will accept, counting its sign, digits, decimal point and
+	 * exponent. Longer numbers throw a {@link LimitExceededException} as soon as they are peeked, before any
+	 * {@link BigInteger} or {@link BigDecimal} is built for them. Numbers can never be longer than 1024 characters,
+	 * which is the default.
+	 */
+	public JsonReader setMaxNumberLength(int maxNumberLength) {
+		this.maxNumberLength = maxNumberLength;
+		return this;
+	}
+
+	/**
+	 * Returns the length of the longest number this reader will accept.
+	 */
+	public int getMaxNumberLength() {
+		return Math.min(maxNumberLength, buffer.length);
+	}
+
+	/**
+	 * Sets how many characters this reader will read from its input. Reading more throws a
+	 * {@link LimitExceededException}. There is no limit by default.
+	 */
+	public JsonReader setMaxDocumentLength(long maxDocumentLength) {
+		this.maxDocumentLength = maxDocumentLength;
+		return this;
+	}
+
+	/**
+	 * Returns how many characters this reader will read from its input.
+	 */
+	public long getMaxDocumentLength() {
+		return maxDocumentLength;
+	}
+
+	/**
+	 * Sets how many members an object may have. Peeking the name of one more throws a
+	 * {@link LimitExceededException}. There is no limit by default.
+	 */
+	public JsonReader setMaxNamesPerObject(int maxNamesPerObject) {
+		this.maxNamesPerObject = maxNamesPerObject;
+		return this;
+	}
+
+	/**
+	 * Returns how many members an object may have.
+	 */
+	public int getMaxNamesPerObject() {
+		return maxNamesPerObject;
+	}
+
+	/**
+	 * Returns the comments skipped since the last call to this method, one line per line of comment text, and
+	 * forgets them. Comment markers and the leading space of each line are stripped.
+	 *
+	 * <p>Comments are skipped while peeking, so after {@link #peek()} this also includes the comments that
+	 * precede the peeked token.
+	 *
+	 * @return the comment text, or null if no comments were skipped or comments are not being retained.
+	 */
+	public @Nullable String takeComment() {
+		if (comments == null || comments.length() == 0) {
+			return null;
+		}
+		String result = comments.toString();
+		comments.setLength(0);
+		return result;
+	}
+
 	/**
 	 * Web servers that serve private data using JSON may be vulnerable to <a
 	 * href="http://en.wikipedia.org/wiki/JSON#Cross-site_request_forgery">Cross-site
@@ -246,6 +668,10 @@ public final class JsonReader implements Closeable {
 			p = doPeek();
 		}
 
+		return token(p);
+	}
+
+	private static JsonToken token(int p) {
 		switch (p) {
 		case PEEKED_BEGIN_OBJECT:
 			return JsonToken.BEGIN_OBJECT;
@@ -258,6 +684,7 @@ public final class JsonReader implements Closeable {
 		case PEEKED_SINGLE_QUOTED_NAME:
 		case PEEKED_DOUBLE_QUOTED_NAME:
 		case PEEKED_UNQUOTED_NAME:
+		case PEEKED_BUFFERED_NAME:
 			return JsonToken.NAME;
 		case PEEKED_TRUE:
 		case PEEKED_FALSE:
@@ -301,6 +728,9 @@ public final class JsonReader implements Closeable {
 			result = nextQuotedValue('\'');
 		} else if (p == PEEKED_DOUBLE_QUOTED_NAME) {
 			result = nextQuotedValue('"');
+		} else if (p == PEEKED_BUFFERED_NAME) {
+			result = peekedString;
+			peekedString = null;
 		} else {
 			throw new IllegalStateException("Expected a name but was " + peek() + locationString());
 		}
@@ -415,6 +845,104 @@ public final class JsonReader implements Closeable {
 		return result;
 	}
 
+	/**
+	 * Returns a {@link Reader} over the {@link JsonToken#STRING string} value
+	 * of the next token, which unescapes the string as it goes rather than
+	 * holding all of it in memory. This is meant for very long strings, such as
+	 * encoded images.
+	 *
+	 * <p>The returned reader reads straight from this one. Calling any other
+	 * method of this reader before the returned one reaches the end of the
+	 * string skips the rest of it, and so does closing the returned reader.
+	 *
+	 * @throws IllegalStateException if the next token is not a string or if
+	 *     this reader is closed.
+	 */
+	public Reader nextStringReader() throws IOException {
+		int p = peeked;
+		if (p == PEEKED_NONE) {
+			p = doPeek();
+		}
+		if (p != PEEKED_SINGLE_QUOTED && p != PEEKED_DOUBLE_QUOTED) {
+			// Anything else is short enough to hold in memory
+			return new StringReader(nextString());
+		}
+		peeked = PEEKED_NONE;
+		return stringReader = new QuotedStringReader(p == PEEKED_SINGLE_QUOTED ? '\'' : '"');
+	}
+
+	/**
+	 * Decodes the {@link JsonToken#STRING string} value of the next token as
+	 * standard Base64, with or without padding, and writes the bytes to
+	 * {@code out}. The string is decoded a chunk at a time, so it never has to
+	 * be held in memory as a whole.
+	 *
+	 * @throws IllegalStateException if the next token is not a string or if
+	 *     this reader is closed.
+	 * @throws IllegalArgumentException if the string is not valid Base64.
+	 */
+	public void nextBinary(OutputStream out) throws IOException {
+		nextBinary(out, false);
+	}
+
+	private void nextBinary(OutputStream out, boolean limited) throws IOException {
+		char[] chars = new char[4096];
+		byte[] bytes = new byte[3072];
+		int bits = 0;
+		int count = 0;
+		int padding = 0;
+		// The reader may be past the string by the time it is found to be invalid, so errors give the index in it
+		int index = 0;
+		try (Reader in = nextStringReader()) {
+			int length;
+			for (; (length = in.read(chars, 0, chars.length)) != -1; index += length) {
+				if (limited) {
+					checkStringLength(index + length);
+				}
+				int written = 0;
+				for (int i = 0; i < length; i++) {
+					char c = chars[i];
+					int value = Base64Codec.value(c);
+					if (c == '=' && count >= 2 && padding < 4 - count) {
+						padding++;
+						continue;
+					} else if (value < 0 || padding > 0) {
+						throw new IllegalArgumentException("Invalid Base64 character '" + c + "' at index "
+								+ (index + i));
+					}
+					bits = bits << 6 | value;
+					if (++count == 4) {
+						bytes[written++] = (byte) (bits >> 16);
+						bytes[written++] = (byte) (bits >> 8);
+						bytes[written++] = (byte) bits;
+						count = 0;
+					}
+				}
+				out.write(bytes, 0, written);
+			}
+		}
+
+		if (count == 1 || padding > 0 && padding != 4 - count) {
+			throw new IllegalArgumentException("Base64 value of " + index + " characters is truncated");
+		} else if (count == 2) {
+			out.write(bits >> 4);
+		} else if (count == 3) {
+			out.write(bits >> 10);
+			out.write(bits >> 2);
+		}
+	}
+
+	/**
+	 * Decodes the {@link JsonToken#STRING string} value of the next token as
+	 * Base64, as by {@link #nextBinary(OutputStream)}. As the bytes are held
+	 * in memory, the string is subject to {@link #setMaxStringLength(int)}.
+	 */
+	public byte[] nextBinary() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		nextBinary(bytes, true);
+		return bytes.toByteArray();
+	}
+
 	/**
 	 * Returns the {@link JsonToken#BOOLEAN boolean} value of the next token,
 	 * consuming it.
@@ -575,6 +1103,189 @@ public final class JsonReader implements Closeable {
 		}
 	}
 
+	/**
+	 * Consumes the next token, which must be an array of numbers, and returns
+	 * its elements as {@code int}s. Each element is converted as by
+	 * {@link #nextInt()}, but plain integers are parsed straight out of the
+	 * input without allocating.
+	 *
+	 * @throws IllegalStateException if the next token is not an array, or one
+	 *     of its elements is not a literal value.
+	 * @throws NumberFormatException if an element cannot be parsed as a
+	 *     number, or exactly represented as an int.
+	 */
+	public int[] nextIntArray() throws IOException {
+		int[] array = new int[16];
+		int size = 0;
+		beginArray();
+		while (hasNext()) {
+			if (size == array.length) {
+				array = Arrays.copyOf(array, size * 2);
+			}
+			array[size++] = nextIntElement();
+		}
+		endArray();
+		return Arrays.copyOf(array, size);
+	}
+
+	/**
+	 * Like {@link #nextIntArray()}, but stores the elements in {@code array}
+	 * starting at {@code offset}.
+	 *
+	 * @return the number of elements read.
+	 * @throws IllegalStateException if the array in the input has more than
+	 *     {@code length} elements.
+	 */
+	public int nextIntArray(int[] array, int offset, int length) throws IOException {
+		checkRange(array.length, offset, length);
+		int i = offset;
+		int end = offset + length;
+		beginArray();
+		while (hasNext()) {
+			if (i == end) {
+				throw arrayTooLong(length);
+			}
+			array[i++] = nextIntElement();
+		}
+		endArray();
+		return i - offset;
+	}
+
+	/**
+	 * Consumes the next token, which must be an array of numbers, and returns
+	 * its elements as {@code long}s. Each element is converted as by
+	 * {@link #nextLong()}, but plain integers are parsed straight out of the
+	 * input without allocating.
+	 *
+	 * @throws IllegalStateException if the next token is not an array, or one
+	 *     of its elements is not a literal value.
+	 * @throws NumberFormatException if an element cannot be parsed as a
+	 *     number, or exactly represented as a long.
+	 */
+	public long[] nextLongArray() throws IOException {
+		long[] array = new long[16];
+		int size = 0;
+		beginArray();
+		while (hasNext()) {
+			if (size == array.length) {
+				array = Arrays.copyOf(array, size * 2);
+			}
+			array[size++] = nextLongElement();
+		}
+		endArray();
+		return Arrays.copyOf(array, size);
+	}
+
+	/**
+	 * Like {@link #nextLongArray()}, but stores the elements in {@code array}
+	 * starting at {@code offset}.
+	 *
+	 * @return the number of elements read.
+	 * @throws IllegalStateException if the array in the input has more than
+	 *     {@code length} elements.
+	 */
+	public int nextLongArray(long[] array, int offset, int length) throws IOException {
+		checkRange(array.length, offset, length);
+		int i = offset;
+		int end = offset + length;
+		beginArray();
+		while (hasNext()) {
+			if (i == end) {
+				throw arrayTooLong(length);
+			}
+			array[i++] = nextLongElement();
+		}
+		endArray();
+		return i - offset;
+	}
+
+	/**
+	 * Consumes the next token, which must be an array of numbers, and returns
+	 * its elements as {@code double}s. Each element is converted as by
+	 * {@link #nextDouble()}, but numbers of up to 15 significant digits are
+	 * parsed straight out of the input without allocating.
+	 *
+	 * @throws IllegalStateException if the next token is not an array, or one
+	 *     of its elements is not a literal value.
+	 * @throws NumberFormatException if an element cannot be parsed as a
+	 *     number.
+	 */
+	public double[] nextDoubleArray() throws IOException {
+		double[] array = new double[16];
+		int size = 0;
+		beginArray();
+		while (hasNext()) {
+			if (size == array.length) {
+				array = Arrays.copyOf(array, size * 2);
+			}
+			array[size++] = nextDoubleElement();
+		}
+		endArray();
+		return Arrays.copyOf(array, size);
+	}
+
+	/**
+	 * Like {@link #nextDoubleArray()}, but stores the elements in
+	 * {@code array} starting at {@code offset}.
+	 *
+	 * @return the number of elements read.
+	 * @throws IllegalStateException if the array in the input has more than
+	 *     {@code length} elements.
+	 */
+	public int nextDoubleArray(double[] array, int offset, int length) throws IOException {
+		checkRange(array.length, offset, length);
+		int i = offset;
+		int end = offset + length;
+		beginArray();
+		while (hasNext()) {
+			if (i == end) {
+				throw arrayTooLong(length);
+			}
+			array[i++] = nextDoubleElement();
+		}
+		endArray();
+		return i - offset;
+	}
+
+	private int nextIntElement() throws IOException {
+		if (peekSmallInteger(peeked) && (int) peekedLong == peekedLong) {
+			consumePeekedNumber();
+			return (int) peekedLong;
+		}
+		return nextInt();
+	}
+
+	private long nextLongElement() throws IOException {
+		if (peekSmallInteger(peeked)) {
+			consumePeekedNumber();
+			return peekedLong;
+		}
+		return nextLong();
+	}
+
+	private double nextDoubleElement() throws IOException {
+		int p = peeked;
+		if (p == PEEKED_NUMBER && peekSmallDouble()) {
+			consumePeekedNumber();
+			return peekedDouble;
+		} else if (p == PEEKED_HEXADECIMAL && peekSmallInteger(p)) {
+			consumePeekedNumber();
+			return peekedLong;
+		}
+		return nextDouble();
+	}
+
+	private static void checkRange(int arrayLength, int offset, int length) {
+		if (offset < 0 || length < 0 || length > arrayLength - offset) {
+			throw new IndexOutOfBoundsException("Range [" + offset + ", " + offset + " + " + length
+					+ ") out of bounds for length " + arrayLength);
+		}
+	}
+
+	private IllegalStateException arrayTooLong(int length) {
+		return new IllegalStateException("Expected at most " + length + " elements" + locationString());
+	}
+
 	/**
 	 * Consumes the next token from the JSON stream and asserts that it is a
 	 * literal null.
@@ -596,17 +1307,100 @@ public final class JsonReader implements Closeable {
 	}
 
 	/**
-	 * Skips the next value recursively. If it is an object or array, all nested
-	 * elements are skipped. This method is intended for use when the JSON token
+	 * Skips the next value, and returns its source text exactly as it appears
+	 * in the input, including any comments and whitespace inside it. This lets
+	 * values which are rarely needed be kept as text, and only parsed when they
+	 * are used. The text can be written back out with
+	 * {@link JsonWriter#jsonValue(String)}. A reader replaying a
+	 * {@link TokenBuffer} has no source text, and returns the value written
+	 * out compactly instead. The text is subject to
+	 * {@link #setMaxStringLength(int)}.
+	 *
+	 * @throws IllegalStateException if the next token is not a value or if
+	 *     this reader is closed.
+	 */
+	public String nextRawValue() throws IOException {
+		int p = peeked;
+		if (p == PEEKED_NONE) {
+			p = doPeek();
+		}
+		if (replay != null) {
+			return nextReplayedValue(replay, p);
+		}
+		// How much of the value peeking has consumed already
+		int consumed;
+		switch (p) {
+			case PEEKED_BEGIN_OBJECT:
+			case PEEKED_BEGIN_ARRAY:
+			case PEEKED_SINGLE_QUOTED:
+			case PEEKED_DOUBLE_QUOTED:
+				consumed = 1;
+				break;
+			case PEEKED_TRUE:
+			case PEEKED_NULL:
+				consumed = 4;
+				break;
+			case PEEKED_FALSE:
+				consumed = 5;
+				break;
+			case PEEKED_UNQUOTED:
+			case PEEKED_NUMBER:
+			case PEEKED_HEXADECIMAL:
+			case PEEKED_NaN:
+			case PEEKED_INF:
+			case PEEKED_NEGATIVE_INF:
+				consumed = 0;
+				break;
+			case PEEKED_BUFFERED:
+				// The text of a number which could not be converted
+				return nextString();
+			default:
+				throw new IllegalStateException("Expected a value but was " + peek() + locationString());
+		}
+
+		StringBuilder capture = new StringBuilder();
+		this.capture = capture;
+		captureStart = pos - consumed;
+		try {
+			skipValue();
+		} finally {
+			this.capture = null;
+		}
+		checkStringLength(capture.length() + pos - captureStart);
+		return capture.append(buffer, captureStart, pos - captureStart).toString();
+	}
+
+	/**
+	 * Writes out the recorded value again, since its text was not kept.
+	 */
+	private String nextReplayedValue(TokenBuffer replay, int p) throws IOException {
+		if (p == PEEKED_END_OBJECT || p == PEEKED_END_ARRAY || p == PEEKED_BUFFERED_NAME || p == PEEKED_EOF) {
+			throw new IllegalStateException("Expected a value but was " + peek() + locationString());
+		}
+		StringWriter text = new StringWriter();
+		JsonWriter writer = JsonWriter.json5(text);
+		writer.setCompact();
+		replay.writeTo(writer, replayIndex - 1);
+		skipValue();
+		return text.toString();
+	}
+
+	/**
+	 * Skips the next value recursively. If it is an object or array, all nested
+	 * elements are skipped. This method is intended for use when the JSON token
 	 * stream contains unrecognized or unhandled values.
 	 */
 	public void skipValue() throws IOException {
 		int count = 0;
+		boolean name = false;
 		do {
 			int p = peeked;
 			if (p == PEEKED_NONE) {
 				p = doPeek();
 			}
+			// A name on its own is not counted as a member until its value is skipped
+			name = count == 0 && (p == PEEKED_DOUBLE_QUOTED_NAME || p == PEEKED_SINGLE_QUOTED_NAME
+					|| p == PEEKED_UNQUOTED_NAME || p == PEEKED_BUFFERED_NAME);
 
 			if (p == PEEKED_BEGIN_ARRAY) {
 				push(JsonScope.EMPTY_ARRAY);
@@ -632,10 +1426,190 @@ public final class JsonReader implements Closeable {
 			peeked = PEEKED_NONE;
 		} while (count != 0);
 
-		pathIndices[stackSize - 1]++;
+		if (!name) {
+			pathIndices[stackSize - 1]++;
+		}
 		pathNames[stackSize - 1] = "null";
 	}
 
+	/**
+	 * Reads the next value recursively, passing its tokens to {@code visitor}. If the next token is a name, the name
+	 * and the value after it are read.
+	 *
+	 * <p>This is a faster alternative to walking the value with {@link #peek()} and the {@code next} methods: names,
+	 * strings and numbers are handed over as slices of the read buffer whenever they fit in it, so no objects are
+	 * allocated for them. Member names are not kept for {@link #path()}.
+	 *
+	 * @throws IllegalStateException if the next token is the end of an object, array or the document.
+	 */
+	public void accept(JsonVisitor visitor) throws IOException {
+		accept(visitor, false);
+	}
+
+	/**
+	 * @param rawNumbers whether to pass every number to {@link JsonVisitor#onNumber} as it is written.
+	 */
+	void accept(JsonVisitor visitor, boolean rawNumbers) throws IOException {
+		int depth = 0;
+		while (true) {
+			int p = peeked;
+			if (p == PEEKED_NONE) {
+				p = doPeek();
+			}
+			if (comments != null && comments.length() > 0) {
+				visitor.onComment(comments);
+				comments.setLength(0);
+			}
+
+			switch (p) {
+				case PEEKED_BEGIN_OBJECT:
+					push(JsonScope.EMPTY_OBJECT);
+					depth++;
+					visitor.onBeginObject();
+					break;
+				case PEEKED_BEGIN_ARRAY:
+					push(JsonScope.EMPTY_ARRAY);
+					pathIndices[stackSize - 1] = 0;
+					depth++;
+					visitor.onBeginArray();
+					break;
+				case PEEKED_END_OBJECT:
+				case PEEKED_END_ARRAY:
+					if (depth == 0) {
+						throw new IllegalStateException("Expected a value but was " + peek() + locationString());
+					}
+					stackSize--;
+					pathNames[stackSize] = null;
+					pathIndices[stackSize - 1]++;
+					depth--;
+					if (p == PEEKED_END_OBJECT) {
+						visitor.onEndObject();
+					} else {
+						visitor.onEndArray();
+					}
+					break;
+				case PEEKED_DOUBLE_QUOTED_NAME:
+				case PEEKED_SINGLE_QUOTED_NAME:
+					visitQuotedValue(p == PEEKED_SINGLE_QUOTED_NAME ? '\'' : '"', visitor, true);
+					pathNames[stackSize - 1] = null;
+					peeked = PEEKED_NONE;
+					continue; // The value follows
+				case PEEKED_UNQUOTED_NAME:
+					visitUnquotedName(visitor);
+					pathNames[stackSize - 1] = null;
+					peeked = PEEKED_NONE;
+					continue;
+				case PEEKED_BUFFERED_NAME:
+					visitString(peekedString, visitor, true);
+					peekedString = null;
+					pathNames[stackSize - 1] = null;
+					peeked = PEEKED_NONE;
+					continue;
+				case PEEKED_DOUBLE_QUOTED:
+				case PEEKED_SINGLE_QUOTED:
+					visitQuotedValue(p == PEEKED_SINGLE_QUOTED ? '\'' : '"', visitor, false);
+					pathIndices[stackSize - 1]++;
+					break;
+				case PEEKED_UNQUOTED:
+				case PEEKED_BUFFERED:
+					visitString(p == PEEKED_UNQUOTED ? nextUnquotedValue() : peekedString, visitor, false);
+					peekedString = null;
+					pathIndices[stackSize - 1]++;
+					break;
+				case PEEKED_TRUE:
+				case PEEKED_FALSE:
+					visitor.onBoolean(p == PEEKED_TRUE);
+					pathIndices[stackSize - 1]++;
+					break;
+				case PEEKED_NULL:
+					visitor.onNull();
+					pathIndices[stackSize - 1]++;
+					break;
+				case PEEKED_NUMBER:
+				case PEEKED_HEXADECIMAL:
+				case PEEKED_NaN:
+				case PEEKED_INF:
+				case PEEKED_NEGATIVE_INF:
+					if (rawNumbers) {
+						visitor.onNumber(buffer, pos, peekedNumberLength);
+					} else {
+						visitNumber(p, visitor);
+					}
+					pos += peekedNumberLength;
+					pathIndices[stackSize - 1]++;
+					break;
+				case PEEKED_EOF:
+					throw new IllegalStateException("Expected a value but was " + peek() + locationString());
+				default:
+					throw new AssertionError();
+			}
+			peeked = PEEKED_NONE;
+			if (depth == 0) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Looks ahead in the current object for the member called {@code name}, without consuming anything. The members
+	 * before it are recorded on the way, and read back from memory as they are read, so this costs little more than
+	 * reading the object once. This lets an object be handed to a decoder chosen by one of its members, wherever that
+	 * member appears.
+	 *
+	 * <p>Call this at the start of an object, or between its members. Comments before the members read ahead are kept,
+	 * and returned by {@link #takeComment()} as the members are read.
+	 *
+	 * @return the value of the member as {@link #nextString()} would return it if it is a string or number, or
+	 * {@code "true"} or {@code "false"} if it is a boolean. Null if the value is null, an object or an array, or if
+	 * the rest of the object has no such member.
+	 * @throws IllegalStateException if the next token is not a name or the end of an object.
+	 */
+	public @Nullable String peekField(String name) throws IOException {
+		JsonToken token = peek();
+		if (token != JsonToken.NAME && token != JsonToken.END_OBJECT) {
+			throw new IllegalStateException("Expected a name but was " + token + locationString());
+		}
+
+		TokenBuffer lookahead = new TokenBuffer();
+		// The members are counted again as they are replayed
+		int members = pathIndices[stackSize - 1];
+		String result = null;
+		while (true) {
+			if (peek() == JsonToken.END_OBJECT) {
+				// Replaying the end of the object closes it as usual
+				lookahead.add(JsonToken.END_OBJECT);
+				peeked = PEEKED_NONE;
+				break;
+			}
+			int member = lookahead.size();
+			lookahead.append(this);
+			if (lookahead.textEquals(member, name)) {
+				JsonToken value = lookahead.token(member + 1);
+				if (value == JsonToken.STRING || value == JsonToken.NUMBER) {
+					result = lookahead.text(member + 1);
+				} else if (value == JsonToken.BOOLEAN) {
+					result = String.valueOf(lookahead.booleanValue(member + 1));
+				}
+				break;
+			}
+		}
+
+		if (replay != null) {
+			// Still inside tokens read ahead before, which are read after these
+			lookahead.append(replay, replayIndex);
+		} else {
+			countBytes();
+			replayedInput = Arrays.copyOfRange(buffer, pos, limit);
+			lineStart -= pos;
+			pos = 0;
+			limit = 0;
+		}
+		replay = lookahead;
+		replayIndex = 0;
+		pathIndices[stackSize - 1] = members;
+		return result;
+	}
+
 	/**
 	 * @return a <a href="http://goessner.net/articles/JsonPath/">JsonPath</a> to the current location in the input JSON.
 	 */
@@ -670,7 +1644,9 @@ public final class JsonReader implements Closeable {
 	 * Closes this JSON reader and the underlying {@link java.io.Reader}.
 	 */
 	public void close() throws IOException {
+		reportMetrics();
 		peeked = PEEKED_NONE;
+		deferred = PEEKED_NONE;
 		stack[0] = JsonScope.CLOSED;
 		stackSize = 1;
 		in.close();
@@ -685,25 +1661,226 @@ public final class JsonReader implements Closeable {
 	// Everything below here should be package-private or private
 
 	int doPeek() throws IOException {
+		int p = diagnostics == null ? peekToken() : peekRecovering();
+		if (metrics != null) {
+			JsonToken token = token(p);
+			if (token == JsonToken.END_DOCUMENT) {
+				reportMetrics();
+			} else {
+				metrics.count(token, token == JsonToken.BEGIN_OBJECT || token == JsonToken.BEGIN_ARRAY ? stackSize : 0);
+			}
+		}
+		return p;
+	}
+
+	private void reportMetrics() {
+		JsonMetrics metrics = this.metrics;
+		if (metrics == null) {
+			return;
+		}
+		this.metrics = null;
+		metrics.finish();
+		if (metricsListener != null) {
+			metricsListener.onRead(metrics);
+		}
+		if (event != null) {
+			JsonEvents.end(event, Objects.requireNonNull(source), metrics, failure);
+			event = null;
+		}
+	}
+
+	private int peekRecovering() throws IOException {
+		if (deferred != PEEKED_NONE) {
+			int p = deferred;
+			deferred = PEEKED_NONE;
+			return peeked = p;
+		}
+		boolean memberValue = stack[stackSize - 1] == JsonScope.DANGLING_NAME;
+		while (true) {
+			int p;
+			try {
+				return peekToken();
+			} catch (MalformedSyntaxException e) {
+				diagnostics.add(e);
+				p = resynchronize(Objects.requireNonNull(e.getCode()));
+			} catch (EOFException e) {
+				p = endOfInput();
+			}
+			if (memberValue) {
+				// Every name gets a value, so that readers of whole members don't have to expect a name without one
+				deferred = p;
+				return peeked = PEEKED_NULL;
+			} else if (p != PEEKED_NONE) {
+				return peeked = p;
+			}
+		}
+	}
+
+	/**
+	 * Moves past malformed input to a point where reading can go on, after the problem has been recorded.
+	 *
+	 * @return the token to return in place of the broken one, or {@link #PEEKED_NONE} to peek again.
+	 */
+	private int resynchronize(ErrorCode code) throws IOException {
+		int scope = stack[stackSize - 1];
+		if (scope == JsonScope.EMPTY_DOCUMENT || scope == JsonScope.NONEMPTY_DOCUMENT) {
+			if (code == ErrorCode.UNEXPECTED_CLOSING_BRACKET) {
+				// The stray bracket has been read past, so go on after it
+				return PEEKED_NONE;
+			}
+			// There is nothing to find the way back in by outside of an object or array
+			stack[stackSize - 1] = JsonScope.NONEMPTY_DOCUMENT;
+			do {
+				pos = limit;
+			} while (fillBuffer(1));
+			return PEEKED_EOF;
+		}
+
+		boolean array = scope == JsonScope.EMPTY_ARRAY || scope == JsonScope.NONEMPTY_ARRAY;
+		if (code == ErrorCode.UNTERMINATED_ARRAY || code == ErrorCode.UNTERMINATED_OBJECT) {
+			// Something other than a comma or a closing bracket followed an entry
+			char c = buffer[--pos];
+			if (c != ']' && c != '}') {
+				// Most likely a missing comma, so read on as if it were there
+				stack[stackSize - 1] = array ? JsonScope.EMPTY_ARRAY : JsonScope.EMPTY_OBJECT;
+				return PEEKED_NONE;
+			}
+		} else if (code == ErrorCode.UNEXPECTED_COMMA) {
+			// A stray comma, which ends the broken entry
+			pos--;
+		}
+
+		int nested = 0;
+		while (pos < limit || fillBuffer(1)) {
+			char c = buffer[pos++];
+			switch (c) {
+				case '"':
+				case '\'':
+					skipBrokenString(c);
+					break;
+				case '[':
+				case '{':
+					nested++;
+					break;
+				case ']':
+				case '}':
+					if (nested > 0) {
+						nested--;
+						break;
+					}
+					boolean closesArray = c == ']';
+					if (closesArray == array) {
+						pos--;
+						stack[stackSize - 1] = array ? JsonScope.NONEMPTY_ARRAY : JsonScope.NONEMPTY_OBJECT;
+						return PEEKED_NONE;
+					}
+					for (int i = stackSize - 2; i > 0; i--) {
+						int outer = stack[i];
+						if (closesArray == (outer == JsonScope.EMPTY_ARRAY || outer == JsonScope.NONEMPTY_ARRAY)) {
+							// The bracket closes an enclosing object or array, so end this one first
+							pos--;
+							return array ? PEEKED_END_ARRAY : PEEKED_END_OBJECT;
+						}
+					}
+					// A stray bracket, which is skipped
+					break;
+				case ',':
+					if (nested == 0) {
+						pos--;
+						stack[stackSize - 1] = array ? JsonScope.NONEMPTY_ARRAY : JsonScope.NONEMPTY_OBJECT;
+						return PEEKED_NONE;
+					}
+					break;
+				case '\n':
+					lineNumber++;
+					lineStart = pos;
+					break;
+				default:
+					break;
+			}
+		}
+		// Peeking again reaches the end of the input, which ends this object or array
+		stack[stackSize - 1] = array ? JsonScope.NONEMPTY_ARRAY : JsonScope.NONEMPTY_OBJECT;
+		return PEEKED_NONE;
+	}
+
+	/**
+	 * Skips a string while resynchronizing, stopping at the end of the line if it isn't closed there.
+	 */
+	private void skipBrokenString(char quote) throws IOException {
+		while (pos < limit || fillBuffer(1)) {
+			char c = buffer[pos++];
+			if (c == quote) {
+				return;
+			} else if (c == '\\' && (pos < limit || fillBuffer(1))) {
+				if (buffer[pos++] == '\n') {
+					lineNumber++;
+					lineStart = pos;
+				}
+			} else if (c == '\n') {
+				pos--;
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Ends the innermost open object or array when the input runs out while recovering, recording the problem once.
+	 */
+	private int endOfInput() {
+		int size = diagnostics.size();
+		if (size == 0 || !diagnostics.get(size - 1).getReason().equals("Unexpected end of input")) {
+			diagnostics.add(malformed(ErrorCode.UNEXPECTED_END_OF_INPUT, "Unexpected end of input"));
+		}
+		int scope = stack[stackSize - 1];
+		if (scope == JsonScope.EMPTY_ARRAY || scope == JsonScope.NONEMPTY_ARRAY) {
+			stack[stackSize - 1] = JsonScope.NONEMPTY_ARRAY;
+			return PEEKED_END_ARRAY;
+		} else if (scope == JsonScope.EMPTY_DOCUMENT || scope == JsonScope.NONEMPTY_DOCUMENT) {
+			stack[stackSize - 1] = JsonScope.NONEMPTY_DOCUMENT;
+			return PEEKED_EOF;
+		} else {
+			stack[stackSize - 1] = JsonScope.NONEMPTY_OBJECT;
+			return PEEKED_END_OBJECT;
+		}
+	}
+
+	private int peekToken() throws IOException {
+		if (stringReader != null) {
+			stringReader.close();
+		}
+		if (replay != null) {
+			if (replayIndex < replay.size() || replayedInput == null) {
+				return peekReplayed(replay);
+			}
+			// Go on with the input after the tokens read ahead
+			System.arraycopy(replayedInput, 0, buffer, 0, replayedInput.length);
+			pos = 0;
+			limit = replayedInput.length;
+			replay = null;
+			replayedInput = null;
+		}
 		int peekStack = stack[stackSize - 1];
 		if (peekStack == JsonScope.EMPTY_ARRAY) {
 			stack[stackSize - 1] = JsonScope.NONEMPTY_ARRAY;
 		} else if (peekStack == JsonScope.NONEMPTY_ARRAY) {
 			// Look for a comma before the next element.
 			int c = nextNonWhitespace(true);
+			tokenStart = documentLength - limit + pos - 1;
 			switch (c) {
 				case ']':
 					return peeked = PEEKED_END_ARRAY;
 				case ',':
 					break;
 				default:
-					throw syntaxError("Unterminated array");
+					throw syntaxError(ErrorCode.UNTERMINATED_ARRAY, "Unterminated array");
 			}
 		} else if (peekStack == JsonScope.EMPTY_OBJECT || peekStack == JsonScope.NONEMPTY_OBJECT) {
 			stack[stackSize - 1] = JsonScope.DANGLING_NAME;
 			// Look for a comma before the next element.
 			if (peekStack == JsonScope.NONEMPTY_OBJECT) {
 				int c = nextNonWhitespace(true);
+				tokenStart = documentLength - limit + pos - 1;
 				switch (c) {
 					case '}':
 						return peeked = PEEKED_END_OBJECT;
@@ -712,16 +1889,17 @@ public final class JsonReader implements Closeable {
 					case ',':
 						break;
 					default:
-						throw syntaxError("Unterminated object");
+						throw syntaxError(ErrorCode.UNTERMINATED_OBJECT, "Unterminated object");
 				}
 			}
 			int c = nextNonWhitespace(true);
+			tokenStart = documentLength - limit + pos - 1;
 			switch (c) {
 				case '"':
-					return peeked = PEEKED_DOUBLE_QUOTED_NAME;
+					return peekName(PEEKED_DOUBLE_QUOTED_NAME);
 				case '\'':
 					assertJson5();
-					return peeked = PEEKED_SINGLE_QUOTED_NAME;
+					return peekName(PEEKED_SINGLE_QUOTED_NAME);
 				case '}':
 					if (peekStack == JsonScope.NONEMPTY_OBJECT) {
 						assertJson5();
@@ -731,9 +1909,9 @@ public final class JsonReader implements Closeable {
 					assertJson5(); // Unquoted names are only allowed in JSON5
 					pos--; // Don't consume the first character in an unquoted string.
 					if (isLiteral((char) c)) {
-						return peeked = PEEKED_UNQUOTED_NAME;
+						return peekName(PEEKED_UNQUOTED_NAME);
 					} else {
-						throw syntaxError("Expected name");
+						throw syntaxError(ErrorCode.EXPECTED_NAME, "Expected name");
 					}
 			}
 		} else if (peekStack == JsonScope.DANGLING_NAME) {
@@ -750,7 +1928,7 @@ public final class JsonReader implements Closeable {
 					}
 					break;
 				default:
-					throw syntaxError("Expected ':'");
+					throw syntaxError(ErrorCode.EXPECTED_COLON, "Expected ':'");
 			}
 		} else if (peekStack == JsonScope.EMPTY_DOCUMENT) {
 			if (allowNonExecutePrefix) {
@@ -760,6 +1938,7 @@ public final class JsonReader implements Closeable {
 		} else if (peekStack == JsonScope.NONEMPTY_DOCUMENT) {
 			int c = nextNonWhitespace(false);
 			if (c == -1) {
+				tokenStart = documentLength;
 				return peeked = PEEKED_EOF;
 			} else {
 				checkLenient();
@@ -770,15 +1949,21 @@ public final class JsonReader implements Closeable {
 		}
 
 		int c = nextNonWhitespace(true);
+		tokenStart = documentLength - limit + pos - 1;
 		switch (c) {
 			case ']':
+				if (peekStack == JsonScope.EMPTY_DOCUMENT || peekStack == JsonScope.NONEMPTY_DOCUMENT) {
+					// There is no array to end
+					stack[stackSize - 1] = peekStack;
+					throw syntaxError(ErrorCode.UNEXPECTED_CLOSING_BRACKET, "Unexpected ']'");
+				}
 				// if we're at the end of an array but we peeked a comma before, then allow only on json5
 				if (peekStack != JsonScope.EMPTY_ARRAY) {
 					assertJson5();
 				}
 				return peeked = PEEKED_END_ARRAY;
 			case ',':
-				throw syntaxError("Unexpected value");
+				throw syntaxError(ErrorCode.UNEXPECTED_COMMA, "Unexpected value");
 			case '\'':
 				assertJson5();
 				return peeked = PEEKED_SINGLE_QUOTED;
@@ -799,17 +1984,87 @@ public final class JsonReader implements Closeable {
 
 		result = peekNumber();
 		if (result != PEEKED_NONE) {
+			if (peekedNumberLength > maxNumberLength) {
+				throw limitExceeded(ErrorCode.NUMBER_LENGTH_LIMIT, "Number longer than " + maxNumberLength);
+			}
 			return result;
 		}
 
 		if (!isLiteral(buffer[pos])) {
-			throw syntaxError("Expected value");
+			throw syntaxError(ErrorCode.EXPECTED_VALUE, "Expected value");
 		}
 
 		checkLenient();
 		return peeked = PEEKED_UNQUOTED;
 	}
 
+	/**
+	 * Peeks the next recorded token. Names and strings are handed over as buffered values, and numbers are copied into
+	 * the buffer, so that they are converted just as they were when they were recorded.
+	 */
+	private int peekReplayed(TokenBuffer replay) {
+		if (stack[stackSize - 1] == JsonScope.CLOSED) {
+			throw new IllegalStateException("JsonReader is closed");
+		} else if (replayIndex == replay.size()) {
+			return peeked = PEEKED_EOF;
+		}
+
+		int index = replayIndex++;
+		String comment = replay.comment(index);
+		if (comment != null && comments != null) {
+			if (comments.length() > 0) {
+				comments.append('\n');
+			}
+			comments.append(comment);
+		}
+		switch (replay.token(index)) {
+			case BEGIN_OBJECT:
+				return peeked = PEEKED_BEGIN_OBJECT;
+			case END_OBJECT:
+				return peeked = PEEKED_END_OBJECT;
+			case BEGIN_ARRAY:
+				return peeked = PEEKED_BEGIN_ARRAY;
+			case END_ARRAY:
+				return peeked = PEEKED_END_ARRAY;
+			case NAME:
+				peekedString = replay.text(index);
+				return peeked = PEEKED_BUFFERED_NAME;
+			case STRING:
+				peekedString = replay.text(index);
+				return peeked = PEEKED_BUFFERED;
+			case BOOLEAN:
+				return peeked = replay.booleanValue(index) ? PEEKED_TRUE : PEEKED_FALSE;
+			case NULL:
+				return peeked = PEEKED_NULL;
+			case NUMBER:
+				break;
+			default:
+				throw new AssertionError();
+		}
+
+		int length = replay.copyText(index, buffer);
+		pos = 0;
+		limit = length;
+		peekedNumberLength = length;
+		int first = buffer[0] == '-' || buffer[0] == '+' ? 1 : 0;
+		if (buffer[first] == 'N') {
+			return peeked = PEEKED_NaN;
+		} else if (buffer[first] == 'I') {
+			return peeked = first == 1 && buffer[0] == '-' ? PEEKED_NEGATIVE_INF : PEEKED_INF;
+		} else if (length > first + 1 && (buffer[first + 1] == 'x' || buffer[first + 1] == 'X')) {
+			return peeked = PEEKED_HEXADECIMAL;
+		}
+		return peeked = PEEKED_NUMBER;
+	}
+
+	private int peekName(int p) {
+		if (pathIndices[stackSize - 1] >= maxNamesPerObject) {
+			throw limitExceeded(ErrorCode.NAMES_PER_OBJECT_LIMIT,
+					"Object with more than " + maxNamesPerObject + " names");
+		}
+		return peeked = p;
+	}
+
 	private int peekKeyword() throws IOException {
 		// Figure out which keyword we're matching against by its first character.
 		char c = buffer[pos];
@@ -860,12 +2115,9 @@ public final class JsonReader implements Closeable {
 		int p = pos;
 		int l = limit;
 
-		boolean hexadecimal = false;
 		int last = NUMBER_CHAR_NONE;
 
 		int i = 0;
-
-		charactersOfNumber:
 		for (; true; i++) {
 			if (p + i == l) {
 				if (i == buffer.length) {
@@ -881,109 +2133,35 @@ public final class JsonReader implements Closeable {
 			}
 
 			char c = buffer[p + i];
-			switch (c) {
-				case '-':
-					if (last == NUMBER_CHAR_NONE) {
-						last = NUMBER_CHAR_SIGN;
-						continue;
-					} else if (last == NUMBER_CHAR_EXP_E) {
-						last = NUMBER_CHAR_EXP_SIGN;
-						continue;
-					}
-					throw syntaxError("unexpected negative sign");
-				case 'N':
-					assertJson5();
-					if ((last == NUMBER_CHAR_NONE) && literal(buffer, p + i, "NaN", true)) {
-						peekedNumberLength = i + 3;
-						return peeked = PEEKED_NaN;
-					}
-					throw syntaxError("unexpected char N");
-				case 'I':
-					assertJson5();
-					if ((last == NUMBER_CHAR_NONE || last == NUMBER_CHAR_SIGN) && literal(buffer, p + i, "Infinity", true)) {
-						peekedNumberLength = i + 8;
-						return peeked = last == NUMBER_CHAR_NONE ? PEEKED_INF : PEEKED_NEGATIVE_INF;
-					}
-				case '+':
-					if (last == NUMBER_CHAR_EXP_E) {
-						last = NUMBER_CHAR_EXP_SIGN;
-						continue;
-					}
-					if (isJson5(last == NUMBER_CHAR_NONE)) {
-						continue;
-					}
-					throw syntaxError("unexpected positive sign");
-
-				case 'e':
-				case 'E':
-					if (last == NUMBER_CHAR_HEXADECIMAL) {
-						continue;
-					}
-					if (last == NUMBER_CHAR_ZERO || last == NUMBER_CHAR_DIGIT || last == NUMBER_CHAR_FRACTION_DIGIT || isJson5(last == NUMBER_CHAR_DECIMAL)) {
-						last = NUMBER_CHAR_EXP_E;
-						continue;
-					}
-					throw syntaxError("unexpected exponent " + c);
-
-				case '.':
-					if (last == NUMBER_CHAR_DIGIT || last == NUMBER_CHAR_ZERO || isJson5(last == NUMBER_CHAR_NONE) || isJson5(last == NUMBER_CHAR_SIGN)) {
-						last = NUMBER_CHAR_DECIMAL;
-						continue;
-					}
-					throw syntaxError("unexpected decimal marker");
-
-				case '0':
-					if (last == NUMBER_CHAR_NONE || last == NUMBER_CHAR_SIGN) {
-						last = NUMBER_CHAR_ZERO;
-						continue;
-					}
-					if (last == NUMBER_CHAR_HEXADECIMAL || last == NUMBER_CHAR_FRACTION_DIGIT || last == NUMBER_CHAR_EXP_DIGIT) {
-						continue;
-					}
-					if (last == NUMBER_CHAR_EXP_E || last == NUMBER_CHAR_EXP_SIGN) {
-						last = NUMBER_CHAR_EXP_DIGIT;
-						continue;
-					}
-
-					if (last == NUMBER_CHAR_ZERO) {
-						throw syntaxError("unexpected leading zero");
-					}
-					last = NUMBER_CHAR_DIGIT;
-					continue;
-				case 'X':
-				case 'x':
-					if (last == NUMBER_CHAR_ZERO) {
-						assertJson5();
-						last = NUMBER_CHAR_HEXADECIMAL;
-						hexadecimal = true;
-						continue;
-					}
-					throw syntaxError("unexpected character x");
-				default:
-					if (hexadecimal) {
-						if (!(c >= '0' && c <= '9') && !(c >= 'a' && c <= 'f') && !(c >= 'A' && c <= 'F')) {
-							if (!isLiteral(c)) {
-								break charactersOfNumber;
-							}
+			int numberClass = numberClass(c);
+			if (numberClass == NUMBER_CLASS_END) {
+				break;
+			} else if (numberClass == NUMBER_CLASS_N) {
+				assertJson5();
+				if ((last == NUMBER_CHAR_NONE) && literal(i, "NaN")) {
+					peekedNumberLength = i + 3;
+					return peeked = PEEKED_NaN;
+				}
+				throw syntaxError(ErrorCode.INVALID_LITERAL, "unexpected char N");
+			} else if (numberClass == NUMBER_CLASS_I) {
+				assertJson5();
+				if ((last == NUMBER_CHAR_NONE || last == NUMBER_CHAR_SIGN) && literal(i, "Infinity")) {
+					peekedNumberLength = i + 8;
+					return peeked = last == NUMBER_CHAR_NONE ? PEEKED_INF : PEEKED_NEGATIVE_INF;
+				}
+				// literal() may have moved the buffer
+				p = pos;
+				l = limit;
+				numberClass = NUMBER_CLASS_PLUS;
+			}
 
-							throw syntaxError("unexpected character " + c);
-						}
-					} else {
-						if (c < '0' || c > '9') {
-							if (!isLiteral(c)) {
-								break charactersOfNumber;
-							}
-							throw syntaxError("unexpected character " + c);
-						}
-						if (last == NUMBER_CHAR_SIGN || last == NUMBER_CHAR_NONE) {
-							last = NUMBER_CHAR_DIGIT;
-						} else if (last == NUMBER_CHAR_DECIMAL) {
-							last = NUMBER_CHAR_FRACTION_DIGIT;
-						} else if (last == NUMBER_CHAR_EXP_E || last == NUMBER_CHAR_EXP_SIGN) {
-							last = NUMBER_CHAR_EXP_DIGIT;
-						}
-					}
+			int transition = nextNumberState(last, numberClass);
+			if (transition == NUMBER_ERROR) {
+				throw numberError(numberClass, c);
+			} else if ((transition & NUMBER_JSON5) != 0) {
+				assertJson5();
 			}
+			last = transition & NUMBER_STATE;
 		}
 
 		if (last == NUMBER_CHAR_HEXADECIMAL) {
@@ -996,45 +2174,62 @@ public final class JsonReader implements Closeable {
 			peekedNumberLength = i;
 			return peeked = PEEKED_NUMBER;
 		} else {
-			throw syntaxError("unable to parse number");
+			throw syntaxError(ErrorCode.INVALID_LITERAL, "unable to parse number");
 		}
 	}
 
-	private boolean literal(char[] chars, int idx, String text, boolean thenEnd) throws IOException {
-		char[] expected = text.toCharArray();
-		int end = text.length();
-		for (int i = 0; i < end; i++) {
-			if (expected[i] != chars[i + idx]) {
+	private MalformedSyntaxException numberError(int numberClass, char c) throws IOException {
+		switch (numberClass) {
+			case NUMBER_CLASS_MINUS:
+				throw syntaxError(ErrorCode.INVALID_LITERAL, "unexpected negative sign");
+			case NUMBER_CLASS_PLUS:
+				throw syntaxError(ErrorCode.INVALID_LITERAL, "unexpected positive sign");
+			case NUMBER_CLASS_EXPONENT:
+				throw syntaxError(ErrorCode.INVALID_LITERAL, "unexpected exponent " + c);
+			case NUMBER_CLASS_DECIMAL:
+				throw syntaxError(ErrorCode.INVALID_LITERAL, "unexpected decimal marker");
+			case NUMBER_CLASS_ZERO:
+				throw syntaxError(ErrorCode.INVALID_LITERAL, "unexpected leading zero");
+			case NUMBER_CLASS_X:
+				throw syntaxError(ErrorCode.INVALID_LITERAL, "unexpected character x");
+			case NUMBER_CLASS_LENIENT:
+				checkLenient(); // fall-through
+			default:
+				throw syntaxError(ErrorCode.INVALID_LITERAL, "unexpected character " + c);
+		}
+	}
+
+	/**
+	 * Returns true if {@code text} is found {@code offset} characters after {@code pos}, followed by either the end of
+	 * the input or a non-literal character. This may refill the buffer, moving {@code pos}.
+	 */
+	private boolean literal(int offset, String text) throws IOException {
+		int length = text.length();
+		if (pos + offset + length >= limit) {
+			fillBuffer(offset + length + 1);
+		}
+		int start = pos + offset;
+		if (start + length > limit) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (text.charAt(i) != buffer[start + i]) {
 				return false;
 			}
 		}
 
-		return !thenEnd || !isLiteral(chars[idx + text.length()]);
+		return start + length == limit || !isLiteral(buffer[start + length]);
 	}
 
 	private boolean isLiteral(char c) throws IOException {
-		switch (c) {
-			case '/':
-			case '\\':
-			case ';':
-			case '#':
-			case '=':
-				checkLenient(); // fall-through
-			case '{':
-			case '}':
-			case '[':
-			case ']':
-			case ':':
-			case ',':
-			case ' ':
-			case '\t':
-			case '\f':
-			case '\r':
-			case '\n':
-				return false;
-			default:
-				return true;
+		if (c >= 0x80) {
+			return true;
 		}
+		int charClass = CHAR_CLASSES[c];
+		if ((charClass & CLASS_LENIENT) != 0) {
+			checkLenient();
+		}
+		return (charClass & CLASS_LITERAL_END) == 0;
 	}
 
 	/**
@@ -1056,16 +2251,18 @@ public final class JsonReader implements Closeable {
 			int l = limit;
 			/* the index of the first character not yet appended to the builder. */
 			int start = p;
-			while (p < l) {
+			while ((p = CharScanner.indexOf(buffer, p, l, quote, '\\', '\n')) < l) {
 				int c = buffer[p++];
 
 				if (c == quote) {
 					pos = p;
 					int len = p - start - 1;
 					if (builder == null) {
+						checkStringLength(len);
 						return new String(buffer, start, len);
 					} else {
 						builder.append(buffer, start, len);
+						checkStringLength(builder.length());
 						return builder.toString();
 					}
 				} else if (c == '\\') {
@@ -1074,6 +2271,9 @@ public final class JsonReader implements Closeable {
 					if (builder == null) {
 						int estimatedLength = (len + 1) * 2;
 						builder = new StringBuilder(Math.max(estimatedLength, 16));
+						if (metrics != null) {
+							metrics.builderFallbacks++;
+						}
 					}
 					builder.append(buffer, start, len);
 					builder.append(readEscapeCharacter());
@@ -1089,11 +2289,16 @@ public final class JsonReader implements Closeable {
 			if (builder == null) {
 				int estimatedLength = (p - start) * 2;
 				builder = new StringBuilder(Math.max(estimatedLength, 16));
+				if (metrics != null) {
+					metrics.builderFallbacks++;
+				}
 			}
 			builder.append(buffer, start, p - start);
+			checkStringLength(builder.length());
 			pos = p;
 			if (!fillBuffer(1)) {
-				throw syntaxError("Unterminated string");
+				recoverable(ErrorCode.UNTERMINATED_STRING, "Unterminated string");
+				return builder.toString();
 			}
 		}
 	}
@@ -1109,25 +2314,8 @@ public final class JsonReader implements Closeable {
 		findNonLiteralCharacter:
 		while (true) {
 			for (; pos + i < limit; i++) {
-				switch (buffer[pos + i]) {
-//					case '/':
-//					case '\\':
-//					case ';':
-//					case '#':
-//					case '=':
-//						checkNotStrict(); // fall-through
-					case '{':
-					case '}':
-					case '[':
-					case ']':
-					case ':':
-					case ',':
-					case ' ':
-					case '\t':
-					case '\f':
-					case '\r':
-					case '\n':
-						break findNonLiteralCharacter;
+				if (isLiteralEnd(buffer[pos + i])) {
+					break findNonLiteralCharacter;
 				}
 			}
 
@@ -1145,6 +2333,7 @@ public final class JsonReader implements Closeable {
 				builder = new StringBuilder(Math.max(i,16));
 			}
 			builder.append(buffer, pos, i);
+			checkStringLength(builder.length());
 			pos += i;
 			i = 0;
 			if (!fillBuffer(1)) {
@@ -1152,19 +2341,25 @@ public final class JsonReader implements Closeable {
 			}
 		}
 
+		checkStringLength(builder == null ? i : builder.length() + i);
 		String result = (null == builder) ? new String(buffer, pos, i) : builder.append(buffer, pos, i).toString();
 		pos += i;
 		return result;
 	}
 
+	private void checkStringLength(int length) {
+		if (length > maxStringLength) {
+			throw limitExceeded(ErrorCode.STRING_LENGTH_LIMIT, "String longer than " + maxStringLength);
+		}
+	}
+
 	private void skipQuotedValue(char quote) throws IOException {
 		// Like nextNonWhitespace, this uses locals 'p' and 'l' to save inner-loop field access.
 		char[] buffer = this.buffer;
 		do {
 			int p = pos;
 			int l = limit;
-			/* the index of the first character not yet appended to the builder. */
-			while (p < l) {
+			while ((p = CharScanner.indexOf(buffer, p, l, quote, '\\', '\n')) < l) {
 				int c = buffer[p++];
 				if (c == quote) {
 					pos = p;
@@ -1181,33 +2376,217 @@ public final class JsonReader implements Closeable {
 			}
 			pos = p;
 		} while (fillBuffer(1));
-		throw syntaxError("Unterminated string");
+		recoverable(ErrorCode.UNTERMINATED_STRING, "Unterminated string");
+	}
+
+	/**
+	 * Passes a quoted string to the visitor straight out of the buffer if it is all there with no escapes or line
+	 * breaks, and otherwise decodes it as usual.
+	 */
+	private void visitQuotedValue(char quote, JsonVisitor visitor, boolean name) throws IOException {
+		char[] buffer = this.buffer;
+		int l = limit;
+		int p = CharScanner.indexOf(buffer, pos, l, quote, '\\', '\n');
+		if (p < l && buffer[p] == quote) {
+			int start = pos;
+			checkStringLength(p - start);
+			pos = p + 1;
+			if (name) {
+				visitor.onName(buffer, start, p - start);
+			} else {
+				visitor.onString(buffer, start, p - start);
+			}
+			return;
+		}
+		visitString(nextQuotedValue(quote), visitor, name);
+	}
+
+	private void visitUnquotedName(JsonVisitor visitor) throws IOException {
+		char[] buffer = this.buffer;
+		for (int p = pos, l = limit; p < l; p++) {
+			if (isLiteralEnd(buffer[p])) {
+				int start = pos;
+				checkStringLength(p - start);
+				pos = p;
+				visitor.onName(buffer, start, p - start);
+				return;
+			}
+		}
+		visitString(nextUnquotedValue(), visitor, true);
+	}
+
+	private void visitString(String value, JsonVisitor visitor, boolean name) {
+		int length = value.length();
+		if (visitBuffer.length < length) {
+			visitBuffer = new char[Math.max(length, visitBuffer.length * 2)];
+		}
+		value.getChars(0, length, visitBuffer, 0);
+		if (name) {
+			visitor.onName(visitBuffer, 0, length);
+		} else {
+			visitor.onString(visitBuffer, 0, length);
+		}
+	}
+
+	/**
+	 * Passes the peeked number to the visitor as a long if it is an integer that fits, and otherwise as a double or
+	 * as text.
+	 */
+	private void visitNumber(int p, JsonVisitor visitor) {
+		if (p == PEEKED_NUMBER) {
+			// Negative zero is passed on as text, so that it can become a double
+			if (peekSmallInteger(p) && (peekedLong != 0 || buffer[pos] != '-')) {
+				visitor.onLong(peekedLong);
+			} else {
+				visitor.onNumber(buffer, pos, peekedNumberLength);
+			}
+		} else if (p == PEEKED_HEXADECIMAL) {
+			if (peekSmallInteger(p)) {
+				visitor.onLong(peekedLong);
+			} else {
+				visitHexadecimal(pos, peekedNumberLength, visitor);
+			}
+		} else {
+			visitor.onDouble(p == PEEKED_NaN ? Double.NaN
+					: p == PEEKED_INF ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY);
+		}
+	}
+
+	private void visitHexadecimal(int start, int length, JsonVisitor visitor) {
+		char[] buffer = this.buffer;
+		boolean negative = buffer[start] == '-';
+		int digits = negative || buffer[start] == '+' ? start + 3 : start + 2;
+		int end = start + length;
+		BigInteger value = new BigInteger(new String(buffer, digits, end - digits), 16);
+		if (negative) {
+			value = value.negate();
+		}
+		if (value.bitLength() < 64) {
+			visitor.onLong(value.longValue());
+		} else {
+			visitor.onDouble(value.doubleValue());
+		}
+	}
+
+	/**
+	 * Parses the peeked number straight out of the buffer into {@link #peekedLong}, if it is an integer of at most
+	 * 18 decimal or 15 hexadecimal digits.
+	 *
+	 * @param p the peeked kind of value.
+	 * @return false if the value is anything else, and must be converted the slow way.
+	 */
+	private boolean peekSmallInteger(int p) {
+		char[] buffer = this.buffer;
+		int i = pos;
+		int end = i + peekedNumberLength;
+		boolean negative = buffer[i] == '-';
+		if (negative || buffer[i] == '+') {
+			i++;
+		}
+		long value = 0;
+		if (p == PEEKED_HEXADECIMAL) {
+			i += 2;
+			if (end - i > 15) {
+				return false;
+			}
+			for (; i < end; i++) {
+				value = value << 4 | Character.digit(buffer[i], 16);
+			}
+		} else if (p == PEEKED_NUMBER && end - i <= 18) {
+			for (; i < end; i++) {
+				char c = buffer[i];
+				if (c < '0' || c > '9') {
+					return false;
+				}
+				value = value * 10 + (c - '0');
+			}
+		} else {
+			return false;
+		}
+		peekedLong = negative ? -value : value;
+		return true;
+	}
+
+	/**
+	 * Parses the peeked decimal number straight out of the buffer into {@link #peekedDouble}, if it has at most 15
+	 * significant digits and a small enough exponent that a single multiplication or division by an exact power of
+	 * ten gives the correctly rounded result.
+	 *
+	 * @return false if the number must be converted the slow way.
+	 */
+	private boolean peekSmallDouble() {
+		char[] buffer = this.buffer;
+		int i = pos;
+		int end = i + peekedNumberLength;
+		boolean negative = buffer[i] == '-';
+		if (negative || buffer[i] == '+') {
+			i++;
+		}
+		long significand = 0;
+		int digits = 0;
+		int scale = 0;
+		boolean fraction = false;
+		for (; i < end; i++) {
+			char c = buffer[i];
+			if (c >= '0' && c <= '9') {
+				if ((significand != 0 || c != '0') && ++digits > 15) {
+					return false;
+				}
+				significand = significand * 10 + (c - '0');
+				if (fraction) {
+					scale--;
+				}
+			} else if (c == '.') {
+				fraction = true;
+			} else {
+				break; // The exponent
+			}
+		}
+		if (i < end) {
+			i++;
+			boolean negativeExponent = buffer[i] == '-';
+			if (negativeExponent || buffer[i] == '+') {
+				i++;
+			}
+			if (end - i > 3) {
+				return false;
+			}
+			int exponent = 0;
+			for (; i < end; i++) {
+				exponent = exponent * 10 + (buffer[i] - '0');
+			}
+			scale += negativeExponent ? -exponent : exponent;
+		}
+
+		double value;
+		if (significand == 0) {
+			// Like nextDouble(), which goes through BigDecimal, this never gives negative zero
+			peekedDouble = 0;
+			return true;
+		} else if (scale >= 0 && scale < POWERS_OF_TEN.length) {
+			value = significand * POWERS_OF_TEN[scale];
+		} else if (scale < 0 && -scale < POWERS_OF_TEN.length) {
+			value = significand / POWERS_OF_TEN[-scale];
+		} else {
+			return false;
+		}
+		peekedDouble = negative ? -value : value;
+		return true;
+	}
+
+	private void consumePeekedNumber() {
+		pos += peekedNumberLength;
+		peeked = PEEKED_NONE;
+		pathIndices[stackSize - 1]++;
 	}
 
 	private void skipUnquotedValue() throws IOException {
 		do {
 			int i = 0;
 			for (; pos + i < limit; i++) {
-				switch (buffer[pos + i]) {
-					case '/':
-					case '\\':
-					case ';':
-					case '#':
-					case '=':
-						checkLenient(); // fall-through
-					case '{':
-					case '}':
-					case '[':
-					case ']':
-					case ':':
-					case ',':
-					case ' ':
-					case '\t':
-					case '\f':
-					case '\r':
-					case '\n':
-						pos += i;
-						return;
+				if (!isLiteral(buffer[pos + i])) {
+					pos += i;
+					return;
 				}
 			}
 			pos += i;
@@ -1215,15 +2594,31 @@ public final class JsonReader implements Closeable {
 	}
 
 	private void push(int newTop) {
+		if (stackSize > maxDepth) {
+			throw limitExceeded(ErrorCode.DEPTH_LIMIT, "Nesting deeper than " + maxDepth);
+		}
 		if (stackSize == stack.length) {
 			int newLength = stackSize * 2;
 			stack = Arrays.copyOf(stack, newLength);
 			pathIndices = Arrays.copyOf(pathIndices, newLength);
 			pathNames = Arrays.copyOf(pathNames, newLength);
 		}
+		// Objects count their members here, for maxNamesPerObject
+		pathIndices[stackSize] = 0;
 		stack[stackSize++] = newTop;
 	}
 
+	private int read(char[] buffer, int offset, int length) throws IOException {
+		try {
+			return in.read(buffer, offset, length);
+		} catch (IOException e) {
+			if (event != null && failure == null) {
+				failure = String.valueOf(e);
+			}
+			throw e;
+		}
+	}
+
 	/**
 	 * Returns true once {@code limit - pos >= minimum}. If the data is
 	 * exhausted before that many characters are available, this returns
@@ -1231,6 +2626,12 @@ public final class JsonReader implements Closeable {
 	 */
 	private boolean fillBuffer(int minimum) throws IOException {
 		char[] buffer = this.buffer;
+		if (capture != null) {
+			capture.append(buffer, captureStart, pos - captureStart);
+			captureStart = 0;
+			checkStringLength(capture.length());
+		}
+		countBytes();
 		lineStart -= pos;
 		if (limit != pos) {
 			limit -= pos;
@@ -1241,8 +2642,16 @@ public final class JsonReader implements Closeable {
 
 		pos = 0;
 		int total;
-		while ((total = in.read(buffer, limit, buffer.length - limit)) != -1) {
+		while ((total = read(buffer, limit, buffer.length - limit)) != -1) {
 			limit += total;
+			documentLength += total;
+			if (documentLength > maxDocumentLength) {
+				throw limitExceeded(ErrorCode.DOCUMENT_LENGTH_LIMIT, "Document longer than " + maxDocumentLength);
+			}
+			if (metrics != null) {
+				metrics.chars += total;
+				metrics.bufferFills++;
+			}
 
 			// if this is the first read, consume an optional byte order mark (BOM) if it exists
 			if (lineNumber == 0 && lineStart == 0 && limit > 0 && buffer[0] == '\ufeff') {
@@ -1287,13 +2696,22 @@ public final class JsonReader implements Closeable {
 			}
 
 			int c = buffer[p++];
-			if (c == '\n') {
-				lineNumber++;
-				lineStart = p;
-				continue;
-			} else if (c == ' ' || c == '\r' || c == '\t') {
-				continue;
-			} else if (c == 0x000b || c == 0x000C || c == 0x2028 || c == 0x2029 || c == 0xFEFF || Character.getType(c) == Character.SPACE_SEPARATOR) {
+			if (c < 0x80) {
+				int charClass = CHAR_CLASSES[c];
+				if ((charClass & CLASS_WHITESPACE) != 0) {
+					if (c == '\n') {
+						lineNumber++;
+						lineStart = p;
+					} else if (c == ' ') {
+						// Jump over the rest of the indentation in bulk
+						p = CharScanner.skipSpaces(buffer, p, l);
+					}
+					continue;
+				} else if ((charClass & CLASS_JSON5_WHITESPACE) != 0) {
+					assertJson5();
+					continue;
+				}
+			} else if (c == 0x2028 || c == 0x2029 || c == 0xFEFF || Character.getType(c) == Character.SPACE_SEPARATOR) {
 				assertJson5();
 				continue;
 			}
@@ -1316,8 +2734,8 @@ public final class JsonReader implements Closeable {
 					case '*':
 						// skip a /* c-style comment */
 						pos++;
-						if (!skipTo("*/")) {
-							throw syntaxError("Unterminated comment");
+						if (comments != null ? !retainBlockComment() : !skipTo("*/")) {
+							throw syntaxError(ErrorCode.UNTERMINATED_COMMENT, "Unterminated comment");
 						}
 						p = pos + 2;
 						l = limit;
@@ -1326,7 +2744,11 @@ public final class JsonReader implements Closeable {
 					case '/':
 						// skip a // end-of-line comment
 						pos++;
-						skipToEndOfLine();
+						if (comments != null) {
+							retainLineComment();
+						} else {
+							skipToEndOfLine();
+						}
 						p = pos;
 						l = limit;
 						continue;
@@ -1339,6 +2761,7 @@ public final class JsonReader implements Closeable {
 			}
 		}
 		if (throwOnEof) {
+			recordFailure("End of input");
 			throw new EOFException("End of input" + locationString());
 		} else {
 			return -1;
@@ -1347,20 +2770,20 @@ public final class JsonReader implements Closeable {
 
 	private void assertJson5() throws IOException {
 		if (strict) {
-			throw syntaxError("Found potentially valid JSON5, but invalid JSON while in strict mode");
+			recoverable(ErrorCode.JSON5_ONLY, "Found potentially valid JSON5, but invalid JSON while in strict mode");
 		}
 	}
 
 	private boolean isJson5(boolean bool) throws IOException {
 		if (bool && strict) {
-			throw syntaxError("Found potentially valid JSON5, but invalid JSON while in strict mode");
+			recoverable(ErrorCode.JSON5_ONLY, "Found potentially valid JSON5, but invalid JSON while in strict mode");
 		}
 
 		return bool;
 	}
 
 	private void checkLenient() throws IOException {
-		throw syntaxError("This file may be valid in lenient GSON, but it is not valid JSON5");
+		throw syntaxError(ErrorCode.LENIENT_ONLY, "This file may be valid in lenient GSON, but it is not valid JSON5");
 	}
 
 	/**
@@ -1370,6 +2793,10 @@ public final class JsonReader implements Closeable {
 	 */
 	private void skipToEndOfLine() throws IOException {
 		while (pos < limit || fillBuffer(1)) {
+			pos = CharScanner.indexOf(buffer, pos, limit, '\n', '\r');
+			if (pos == limit) {
+				continue;
+			}
 			char c = buffer[pos++];
 			if (c == '\n') {
 				lineNumber++;
@@ -1381,30 +2808,133 @@ public final class JsonReader implements Closeable {
 		}
 	}
 
+	/**
+	 * Like {@link #skipToEndOfLine()}, but appends the skipped text to the retained comments.
+	 */
+	private void retainLineComment() throws IOException {
+		StringBuilder comment = new StringBuilder();
+		while (pos < limit || fillBuffer(1)) {
+			char c = buffer[pos++];
+			if (c == '\n') {
+				lineNumber++;
+				lineStart = pos;
+				break;
+			} else if (c == '\r') {
+				break;
+			}
+			comment.append(c);
+		}
+		appendComment(comment, 0, comment.length());
+	}
+
+	/**
+	 * Like {@link #skipTo(String)} for the end of a block comment, but appends the skipped text to the retained
+	 * comments.
+	 */
+	private boolean retainBlockComment() throws IOException {
+		StringBuilder comment = new StringBuilder();
+		for (; pos + 2 <= limit || fillBuffer(2); pos++) {
+			char c = buffer[pos];
+			if (c == '*' && buffer[pos + 1] == '/') {
+				// Drop the blank first and last lines, and the decorative asterisks, of multi-line comments
+				String[] lines = comment.toString().split("\n", -1);
+				int from = 0;
+				int to = lines.length;
+				for (int i = 0; i < to; i++) {
+					String line = lines[i].trim();
+					lines[i] = line.startsWith("*") ? line.substring(1) : line;
+				}
+				while (from < to && lines[from].isEmpty()) {
+					from++;
+				}
+				while (to > from && lines[to - 1].isEmpty()) {
+					to--;
+				}
+				for (int i = from; i < to; i++) {
+					appendComment(lines[i], 0, lines[i].length());
+				}
+				return true;
+			}
+			if (c == '\n') {
+				lineNumber++;
+				lineStart = pos + 1;
+			}
+			comment.append(c);
+		}
+		return false;
+	}
+
+	private void appendComment(CharSequence text, int start, int end) {
+		if (start < end && text.charAt(start) == ' ') {
+			start++;
+		}
+		if (comments.length() > 0) {
+			comments.append('\n');
+		}
+		comments.append(text, start, end);
+	}
+
 	/**
 	 * @param toFind a string to search for. Must not contain a newline.
 	 */
 	private boolean skipTo(String toFind) throws IOException {
 		int length = toFind.length();
+		char first = toFind.charAt(0);
 		outer:
-		for (; pos + length <= limit || fillBuffer(length); pos++) {
-			if (buffer[pos] == '\n') {
+		while (pos + length <= limit || fillBuffer(length)) {
+			// Jump to the next line break or first character of a match, if either is in the buffer
+			pos = CharScanner.indexOf(buffer, pos, limit - length + 1, '\n', first);
+			if (pos + length > limit) {
+				continue;
+			}
+			if (buffer[pos++] == '\n') {
 				lineNumber++;
-				lineStart = pos + 1;
+				lineStart = pos;
 				continue;
 			}
-			for (int c = 0; c < length; c++) {
-				if (buffer[pos + c] != toFind.charAt(c)) {
+			for (int c = 1; c < length; c++) {
+				if (buffer[pos + c - 1] != toFind.charAt(c)) {
 					continue outer;
 				}
 			}
+			pos--;
 			return true;
 		}
 		return false;
 	}
 
+	/**
+	 * Sets the index of the next element of the current array, as it appears in paths.
+	 */
+	void setPathIndex(int index) {
+		pathIndices[stackSize - 1] = index;
+	}
+
+	/**
+	 * Moves the pair of offsets for telling byte offsets up to {@code pos}, before the buffer is moved.
+	 */
+	private void countBytes() {
+		if (countedChars >= 0) {
+			long bufferStart = documentLength - limit;
+			countedBytes += utf8Length(buffer, (int) (countedChars - bufferStart), pos);
+			countedChars = bufferStart + pos;
+		}
+	}
+
+	private static long utf8Length(char[] chars, int start, int end) {
+		long length = end - start;
+		for (int i = start; i < end; i++) {
+			char c = chars[i];
+			if (c >= 0x80) {
+				// Two bytes up to U+07FF, three beyond, and four for a surrogate pair
+				length += c < 0x800 || Character.isSurrogate(c) ? 1 : 2;
+			}
+		}
+		return length;
+	}
+
 	public String locationString() {
-		int line = lineNumber + 1;
+		long line = lineNumber + 1;
 		int column = pos - lineStart + 1;
 		return " at line " + line + " column " + column + " path " + path();
 	}
@@ -1420,14 +2950,19 @@ public final class JsonReader implements Closeable {
 	 */
 	private char readEscapeCharacter() throws IOException {
 		if (pos == limit && !fillBuffer(1)) {
-			throw syntaxError("Unterminated escape sequence");
+			recoverable(ErrorCode.UNTERMINATED_ESCAPE, "Unterminated escape sequence");
+			return '\\';
+		}
+		if (metrics != null) {
+			metrics.escapes++;
 		}
 
 		char escaped = buffer[pos++];
 		switch (escaped) {
 			case 'u':
 				if (pos + 4 > limit && !fillBuffer(4)) {
-					throw syntaxError("Unterminated escape sequence");
+					recoverable(ErrorCode.UNTERMINATED_ESCAPE, "Unterminated escape sequence");
+					return escaped;
 				}
 				// Equivalent to Integer.parseInt(stringPool.get(buffer, pos, 4), 16);
 				char result = 0;
@@ -1440,6 +2975,11 @@ public final class JsonReader implements Closeable {
 						result += (c - 'a' + 10);
 					} else if (c >= 'A' && c <= 'F') {
 						result += (c - 'A' + 10);
+					} else if (diagnostics != null) {
+						// Read the rest of the escape sequence as it is
+						recoverable(ErrorCode.INVALID_ESCAPE,
+								"Invalid escape sequence \\u" + new String(buffer, pos, 4));
+						return escaped;
 					} else {
 						throw new NumberFormatException("\\u" + new String(buffer, pos, 4));
 					}
@@ -1474,7 +3014,8 @@ public final class JsonReader implements Closeable {
 				return escaped;
 			default:
 				// throw error when none of the above cases are matched
-				throw syntaxError("Invalid escape sequence " + (int) escaped);
+				recoverable(ErrorCode.INVALID_ESCAPE, "Invalid escape sequence " + (int) escaped);
+				return escaped;
 		}
 	}
 
@@ -1482,8 +3023,57 @@ public final class JsonReader implements Closeable {
 	 * Throws a new IO exception with the given message and a context snippet
 	 * with this reader's content.
 	 */
-	private IOException syntaxError(String message) throws IOException {
-		throw new MalformedSyntaxException(this, message);
+	private IOException syntaxError(ErrorCode code, String message) throws IOException {
+		throw malformed(code, message);
+	}
+
+	/**
+	 * Throws like {@link #syntaxError}, unless this reader is recovering and can read on past the problem, in which
+	 * case it is only recorded.
+	 */
+	private void recoverable(ErrorCode code, String message) throws IOException {
+		if (diagnostics == null) {
+			throw syntaxError(code, message);
+		}
+		diagnostics.add(malformed(code, message));
+	}
+
+	private MalformedSyntaxException malformed(ErrorCode code, String message) {
+		recordFailure(message);
+		// Recorded problems have no use for a stack trace
+		return new MalformedSyntaxException(code, message, lineNumber + 1, pos - lineStart + 1,
+				documentLength - limit + pos, pathSegments(), stackTraces && diagnostics == null);
+	}
+
+	private LimitExceededException limitExceeded(ErrorCode code, String message) {
+		recordFailure(message);
+		return new LimitExceededException(code, message, lineNumber + 1, pos - lineStart + 1,
+				documentLength - limit + pos, pathSegments(), stackTraces);
+	}
+
+	/**
+	 * Keeps the first error which stops the document for its Flight Recorder event.
+	 */
+	private void recordFailure(String message) {
+		if (event != null && failure == null) {
+			failure = message + locationString();
+		}
+	}
+
+	/**
+	 * Returns the parts of {@link #path()} for an exception, which builds the path from them if it is asked for.
+	 */
+	private Object[] pathSegments() {
+		Object[] segments = new Object[stackSize - 1];
+		for (int i = 1; i < stackSize; i++) {
+			int scope = stack[i];
+			if (scope == JsonScope.EMPTY_ARRAY || scope == JsonScope.NONEMPTY_ARRAY) {
+				segments[i - 1] = pathIndices[i];
+			} else {
+				segments[i - 1] = pathNames[i] != null ? pathNames[i] : "";
+			}
+		}
+		return segments;
 	}
 
 	/**
@@ -1507,4 +3097,108 @@ public final class JsonReader implements Closeable {
 		// we consumed a security token!
 		pos += 5;
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Reads a file channel from an offset on without moving its position, and leaves it open when closed.
+	 */
+	private static final class ChannelRegion implements ReadableByteChannel {
+		private final FileChannel channel;
+		private long position;
+		private boolean open = true;
+
+		ChannelRegion(FileChannel channel, long position) {
+			this.channel = channel;
+			this.position = position;
+		}
+
+		@Override
+		public int read(ByteBuffer dst) throws IOException {
+			if (!open) {
+				throw new ClosedChannelException();
+			}
+			int read = channel.read(dst, position);
+			if (read > 0) {
+				position += read;
+			}
+			return read;
+		}
+
+		@Override
+		public boolean isOpen() {
+			return open && channel.isOpen();
+		}
+
+		@Override
+		public void close() {
+			open = false;
+		}
+	}
+
+	/**
+	 * Reads a quoted string straight out of the buffer, a chunk at a time.
+	 */
+	private final class QuotedStringReader extends Reader {
+		private final char quote;
+		private boolean done = false;
+
+		QuotedStringReader(char quote) {
+			this.quote = quote;
+		}
+
+		@Override
+		public int read(char[] chars, int offset, int length) throws IOException {
+			if (offset < 0 || length < 0 || length > chars.length - offset) {
+				throw new IndexOutOfBoundsException();
+			}
+			if (done) {
+				return -1;
+			}
+			int n = 0;
+			while (n < length) {
+				if (pos == limit && !fillBuffer(1)) {
+					recoverable(ErrorCode.UNTERMINATED_STRING, "Unterminated string");
+					finish();
+					break;
+				}
+				// Copy everything up to the next quote, escape or line break in one go
+				int end = CharScanner.indexOf(buffer, pos, Math.min(limit, pos + length - n), quote, '\\', '\n');
+				System.arraycopy(buffer, pos, chars, offset + n, end - pos);
+				n += end - pos;
+				pos = end;
+				if (n == length || pos == limit) {
+					continue;
+				}
+
+				char c = buffer[pos++];
+				if (c == quote) {
+					finish();
+					break;
+				} else if (c == '\\') {
+					chars[offset + n++] = readEscapeCharacter();
+				} else {
+					lineNumber++;
+					lineStart = pos;
+					chars[offset + n++] = c;
+				}
+			}
+			return n == 0 && done ? -1 : n;
+		}
+
+		/**
+		 * Skips the rest of the string, leaving the enclosing reader ready for the next token.
+		 */
+		@Override
+		public void close() throws IOException {
+			if (!done) {
+				skipQuotedValue(quote);
+				finish();
+			}
+		}
+
+		private void finish() {
+			done = true;
+			stringReader = null;
+			pathIndices[stackSize - 1]++;
+		}
+	}
+}
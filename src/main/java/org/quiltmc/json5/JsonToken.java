@@ -88,5 +88,12 @@ public enum JsonToken {
 	 * JsonReader#peek()} to signal that the JSON-encoded value has no more
 	 * tokens.
 	 */
-	END_DOCUMENT
+	END_DOCUMENT,
+
+	/**
+	 * The input fed so far ends before the next token does. This is only
+	 * returned by {@link NonBlockingJsonReader#nextToken()}; feed it more input
+	 * and ask again.
+	 */
+	NEED_MORE_INPUT
 }
\ No newline at end of file
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2021 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.json5;
+
+/**
+ * Receives the tokens of a JSON value as {@link JsonReader#accept(JsonVisitor)} reads them, without the reader
+ * allocating a {@link String} or boxed number for each one. Every method does nothing by default.
+ *
+ * <p>Names and strings are passed as a slice of a char array, which is usually the reader's own buffer. It is only
+ * valid until the method returns; copy it out to keep it.
+ */
+@Deprecated
+public interface JsonVisitor {
+	default void onBeginObject() {
+	}
+
+	default void onEndObject() {
+	}
+
+	default void onBeginArray() {
+	}
+
+	default void onEndArray() {
+	}
+
+	/**
+	 * Receives the decoded name of an object member.
+	 */
+	default void onName(char[] chars, int offset, int length) {
+	}
+
+	/**
+	 * Receives the decoded value of a string.
+	 */
+	default void onString(char[] chars, int offset, int length) {
+	}
+
+	/**
+	 * Receives a number which is an integer that fits in a {@code long}, including hexadecimal numbers.
+	 */
+	default void onLong(long value) {
+	}
+
+	/**
+	 * Receives {@code NaN} and the infinities, and hexadecimal numbers too large for a {@code long}.
+	 */
+	default void onDouble(double value) {
+	}
+
+	/**
+	 * Receives the text of a number with a fraction or exponent, or of an integer too large for a {@code long}, as it
+	 * is written. By default this parses it and passes it to {@link #onDouble(double)}; override it to keep numbers
+	 * exact.
+	 */
+	default void onNumber(char[] chars, int offset, int length) {
+		onDouble(Double.parseDouble(new String(chars, offset, length)));
+	}
+
+	default void onBoolean(boolean value) {
+	}
+
+	default void onNull() {
+	}
+
+	/**
+	 * Receives the comments before the next token, as {@link JsonReader#takeComment()} would return them. Only called
+	 * if the reader {@link JsonReader#retainsComments() retains comments}.
+	 */
+	default void onComment(CharSequence comment) {
+	}
+}
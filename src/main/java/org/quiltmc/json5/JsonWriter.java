@@ -85,8 +85,11 @@ public final class JsonWriter implements Closeable, Flushable {
 		HTML_SAFE_REPLACEMENT_CHARS['\''] = "\\u0027";
 	}
 
+	/** How much of a primitive array is collected before writing it out. */
+	private static final int ARRAY_TEXT_CHUNK = 8192;
+
 	/** The output data, containing at most one top-level array or object. */
-	private final Writer out;
+	private Writer out;
 
 	private int[] stack = new int[32];
 	private int stackSize = 0;
@@ -117,13 +120,27 @@ public final class JsonWriter implements Closeable, Flushable {
 
 	private boolean serializeNulls = true;
 
+	private int maxInlineArrayLength = 0;
+
+	/** Collects the text of primitive arrays, so that it reaches {@link #out} in large pieces. */
+	private final StringBuilder arrayText = new StringBuilder();
+
+	/** What this writer has done so far, if it has a listener or event to report it to. */
+	private @Nullable JsonMetrics metrics;
+	private @Nullable JsonMetricsListener metricsListener;
+	/** The Flight Recorder event for the document, if this writer has a source and the event is enabled. */
+	private @Nullable Object event;
+	private @Nullable String source;
+
 	// API methods
 
 	/**
 	 * Creates a new instance that writes a JSON5-encoded stream.
 	 */
 	public static JsonWriter json5(Path out) throws IOException {
-		return json5(Files.newBufferedWriter(Objects.requireNonNull(out, "Path cannot be null")));
+		JsonWriter writer = json5(Files.newBufferedWriter(Objects.requireNonNull(out, "Path cannot be null")));
+		writer.setSource(out.toString());
+		return writer;
 	}
 
 	/**
@@ -245,6 +262,55 @@ public final class JsonWriter implements Closeable, Flushable {
 		return serializeNulls;
 	}
 
+	/**
+	 * Sets the longest array written by one of the {@code value} methods for
+	 * primitive arrays which is kept on a single line, such as {@code [1, 2, 3]}.
+	 * Longer arrays are written with an element per line, like any other array.
+	 * This has no effect on compact output. The default is 0.
+	 */
+	public void setMaxInlineArrayLength(int maxInlineArrayLength) {
+		this.maxInlineArrayLength = maxInlineArrayLength;
+	}
+
+	/**
+	 * Returns the longest primitive array which is kept on a single line.
+	 * The default is 0.
+	 */
+	public int getMaxInlineArrayLength() {
+		return maxInlineArrayLength;
+	}
+
+	/**
+	 * Makes this writer count what it does, and pass the counts to {@code listener} when it is closed. By default
+	 * nothing is counted.
+	 *
+	 * @param listener the listener, or null to stop counting.
+	 */
+	public void setMetricsListener(@Nullable JsonMetricsListener listener) {
+		this.metricsListener = listener;
+		if (listener != null) {
+			startCounting();
+		} else if (event == null) {
+			this.metrics = null;
+		}
+	}
+
+	/**
+	 * Describes where the output goes, such as the name of a file. If the JDK Flight Recorder event
+	 * {@code org.quiltmc.json5.DocumentWritten} is enabled, this makes the writer emit one when it is closed, recording
+	 * the description, the size of the document, the number of tokens and the time taken. Writers created from a
+	 * {@link Path} describe themselves by the path.
+	 */
+	public void setSource(String description) {
+		this.source = Objects.requireNonNull(description, "description == null");
+		if (event == null) {
+			this.event = JsonEvents.beginWrite();
+			if (event != null) {
+				startCounting();
+			}
+		}
+	}
+
 	/**
 	 * Encodes the property name.
 	 *
@@ -317,10 +383,91 @@ public final class JsonWriter implements Closeable, Flushable {
 		}
 		writeDeferredName();
 		beforeValue();
+		count(JsonToken.STRING);
 		string(value, true, true);
 		return this;
 	}
 
+	/**
+	 * Encodes the text read from {@code value} as a string, escaping it a
+	 * chunk at a time rather than holding all of it in memory. This is meant
+	 * for very long strings, such as encoded images. The reader is read to its
+	 * end, but not closed.
+	 *
+	 * @param value the text of the string, or null to encode a null literal.
+	 * @return this writer.
+	 */
+	public JsonWriter value(Reader value) throws IOException {
+		if (value == null) {
+			return nullValue();
+		}
+		writeDeferredName();
+		beforeValue();
+		count(JsonToken.STRING);
+		out.write('\"');
+		char[] chunk = new char[4096];
+		int length;
+		while ((length = value.read(chunk, 0, chunk.length)) != -1) {
+			string(chunk, length);
+		}
+		out.write('\"');
+		return this;
+	}
+
+	/**
+	 * Encodes {@code value} as a string in standard Base64.
+	 *
+	 * @param value the bytes to encode, or null to encode a null literal.
+	 * @return this writer.
+	 */
+	public JsonWriter value(byte[] value) throws IOException {
+		if (value == null) {
+			return nullValue();
+		}
+		writeDeferredName();
+		beforeValue();
+		count(JsonToken.STRING);
+		out.write('\"');
+		char[] chunk = new char[4096];
+		for (int offset = 0; offset < value.length; offset += 3072) {
+			int length = Base64Codec.encode(value, offset, Math.min(3072, value.length - offset), chunk);
+			string(chunk, length);
+		}
+		out.write('\"');
+		return this;
+	}
+
+	/**
+	 * Encodes the bytes read from {@code value} as a string in standard
+	 * Base64, a chunk at a time. The stream is read to its end, but not closed.
+	 *
+	 * @param value the bytes to encode, or null to encode a null literal.
+	 * @return this writer.
+	 */
+	public JsonWriter value(InputStream value) throws IOException {
+		if (value == null) {
+			return nullValue();
+		}
+		writeDeferredName();
+		beforeValue();
+		count(JsonToken.STRING);
+		out.write('\"');
+		byte[] bytes = new byte[3072];
+		char[] chunk = new char[4096];
+		int length;
+		do {
+			// Fill the whole chunk, so that only the last one can need padding
+			length = 0;
+			int read;
+			while (length < bytes.length && (read = value.read(bytes, length, bytes.length - length)) != -1) {
+				length += read;
+			}
+			string(chunk, Base64Codec.encode(bytes, 0, length, chunk));
+		} while (length == bytes.length);
+		out.write('\"');
+		return this;
+	}
+
 	/**
 	 * Encodes {@code value}.
 	 *
@@ -329,6 +476,7 @@ public final class JsonWriter implements Closeable, Flushable {
 	public JsonWriter value(boolean value) throws IOException {
 		writeDeferredName();
 		beforeValue();
+		count(JsonToken.BOOLEAN);
 		out.write(value ? "true" : "false");
 		return this;
 	}
@@ -344,6 +492,7 @@ public final class JsonWriter implements Closeable, Flushable {
 		}
 		writeDeferredName();
 		beforeValue();
+		count(JsonToken.BOOLEAN);
 		out.write(value ? "true" : "false");
 		return this;
 	}
@@ -366,6 +515,7 @@ public final class JsonWriter implements Closeable, Flushable {
 			throw new IllegalArgumentException("Numeric values must be finite, but was " + value);
 		}
 		beforeValue();
+		count(JsonToken.NUMBER);
 		out.append(string);
 		return this;
 	}
@@ -383,6 +533,7 @@ public final class JsonWriter implements Closeable, Flushable {
 			throw new IllegalArgumentException("Numeric values must be finite, but was " + value);
 		}
 		beforeValue();
+		count(JsonToken.NUMBER);
 		out.append(Double.toString(value));
 		return this;
 	}
@@ -395,10 +546,161 @@ public final class JsonWriter implements Closeable, Flushable {
 	public JsonWriter value(long value) throws IOException {
 		writeDeferredName();
 		beforeValue();
+		count(JsonToken.NUMBER);
 		out.write(Long.toString(value));
 		return this;
 	}
 
+	/**
+	 * Encodes {@code values} as an array of numbers.
+	 *
+	 * @param values the array to encode, or null to encode a null literal.
+	 * @return this writer.
+	 */
+	public JsonWriter value(int[] values) throws IOException {
+		return values == null ? nullValue() : value(values, 0, values.length);
+	}
+
+	/**
+	 * Encodes {@code length} elements of {@code values} from {@code offset}
+	 * as an array of numbers.
+	 *
+	 * @return this writer.
+	 */
+	public JsonWriter value(int[] values, int offset, int length) throws IOException {
+		checkRange(values.length, offset, length);
+		String separator = beginNumberArray(length);
+		StringBuilder text = arrayText;
+		for (int i = offset, end = offset + length; i < end; i++) {
+			if (i > offset) {
+				text.append(separator);
+			}
+			text.append(values[i]);
+			if (text.length() >= ARRAY_TEXT_CHUNK) {
+				flushArrayText();
+			}
+		}
+		return endNumberArray(length);
+	}
+
+	/**
+	 * Encodes {@code values} as an array of numbers.
+	 *
+	 * @param values the array to encode, or null to encode a null literal.
+	 * @return this writer.
+	 */
+	public JsonWriter value(long[] values) throws IOException {
+		return values == null ? nullValue() : value(values, 0, values.length);
+	}
+
+	/**
+	 * Encodes {@code length} elements of {@code values} from {@code offset}
+	 * as an array of numbers.
+	 *
+	 * @return this writer.
+	 */
+	public JsonWriter value(long[] values, int offset, int length) throws IOException {
+		checkRange(values.length, offset, length);
+		String separator = beginNumberArray(length);
+		StringBuilder text = arrayText;
+		for (int i = offset, end = offset + length; i < end; i++) {
+			if (i > offset) {
+				text.append(separator);
+			}
+			text.append(values[i]);
+			if (text.length() >= ARRAY_TEXT_CHUNK) {
+				flushArrayText();
+			}
+		}
+		return endNumberArray(length);
+	}
+
+	/**
+	 * Encodes {@code values} as an array of numbers.
+	 *
+	 * @param values the array to encode, or null to encode a null literal.
+	 * @return this writer.
+	 */
+	public JsonWriter value(float[] values) throws IOException {
+		return values == null ? nullValue() : value(values, 0, values.length);
+	}
+
+	/**
+	 * Encodes {@code length} elements of {@code values} from {@code offset}
+	 * as an array of numbers, as by {@link Float#toString(float)}.
+	 *
+	 * @throws IllegalArgumentException if strict JSON is being written, and
+	 *     any of them are {@link Float#isNaN() NaNs} or
+	 *     {@link Float#isInfinite() infinities}.
+	 *
+	 * @return this writer.
+	 */
+	public JsonWriter value(float[] values, int offset, int length) throws IOException {
+		checkRange(values.length, offset, length);
+		if (strict) {
+			for (int i = offset, end = offset + length; i < end; i++) {
+				if (Float.isNaN(values[i]) || Float.isInfinite(values[i])) {
+					throw new IllegalArgumentException("Numeric values must be finite, but was " + values[i]);
+				}
+			}
+		}
+		String separator = beginNumberArray(length);
+		StringBuilder text = arrayText;
+		for (int i = offset, end = offset + length; i < end; i++) {
+			if (i > offset) {
+				text.append(separator);
+			}
+			text.append(values[i]);
+			if (text.length() >= ARRAY_TEXT_CHUNK) {
+				flushArrayText();
+			}
+		}
+		return endNumberArray(length);
+	}
+
+	/**
+	 * Encodes {@code values} as an array of numbers.
+	 *
+	 * @param values the array to encode, or null to encode a null literal.
+	 * @return this writer.
+	 */
+	public JsonWriter value(double[] values) throws IOException {
+		return values == null ? nullValue() : value(values, 0, values.length);
+	}
+
+	/**
+	 * Encodes {@code length} elements of {@code values} from {@code offset}
+	 * as an array of numbers.
+	 *
+	 * @throws IllegalArgumentException if strict JSON is being written, and
+	 *     any of them are {@link Double#isNaN() NaNs} or
+	 *     {@link Double#isInfinite() infinities}.
+	 *
+	 * @return this writer.
+	 */
+	public JsonWriter value(double[] values, int offset, int length) throws IOException {
+		checkRange(values.length, offset, length);
+		if (strict) {
+			for (int i = offset, end = offset + length; i < end; i++) {
+				if (Double.isNaN(values[i]) || Double.isInfinite(values[i])) {
+					throw new IllegalArgumentException("Numeric values must be finite, but was " + values[i]);
+				}
+			}
+		}
+		String separator = beginNumberArray(length);
+		StringBuilder text = arrayText;
+		for (int i = offset, end = offset + length; i < end; i++) {
+			if (i > offset) {
+				text.append(separator);
+			}
+			text.append(values[i]);
+			if (text.length() >= ARRAY_TEXT_CHUNK) {
+				flushArrayText();
+			}
+		}
+		return endNumberArray(length);
+	}
+
 	/**
 	 * Encodes {@code null}.
 	 *
@@ -414,6 +716,7 @@ public final class JsonWriter implements Closeable, Flushable {
 			}
 		}
 		beforeValue();
+		count(JsonToken.NULL);
 		out.write("null");
 		return this;
 	}
@@ -485,15 +788,40 @@ public final class JsonWriter implements Closeable, Flushable {
 	 * @throws IOException if the JSON document is incomplete.
 	 */
 	public void close() throws IOException {
-		out.close();
-
 		int size = stackSize;
-		if (size > 1 || size == 1 && stack[size - 1] != NONEMPTY_DOCUMENT) {
+		boolean incomplete = size > 1 || size == 1 && stack[size - 1] != NONEMPTY_DOCUMENT;
+		String error = incomplete ? "Incomplete document" : null;
+		try {
+			out.close();
+		} catch (IOException e) {
+			// Failing to flush the output is worth recording above all
+			error = String.valueOf(e);
+			throw e;
+		} finally {
+			reportMetrics(error);
+		}
+		if (incomplete) {
 			throw new IOException("Incomplete document");
 		}
 		stackSize = 0;
 	}
 
+	private void reportMetrics(@Nullable String error) {
+		JsonMetrics metrics = this.metrics;
+		if (metrics == null) {
+			return;
+		}
+		this.metrics = null;
+		metrics.finish();
+		if (metricsListener != null) {
+			metricsListener.onWritten(metrics);
+		}
+		if (event != null) {
+			JsonEvents.end(event, Objects.requireNonNull(source), metrics, error);
+			event = null;
+		}
+	}
+
 	// Implementation methods
 	// Everything below here should be package-private or private
 
@@ -504,6 +832,7 @@ public final class JsonWriter implements Closeable, Flushable {
 	private JsonWriter open(int empty, char openBracket) throws IOException {
 		beforeValue();
 		push(empty);
+		count(openBracket == '{' ? JsonToken.BEGIN_OBJECT : JsonToken.BEGIN_ARRAY);
 		out.write(openBracket);
 		return this;
 	}
@@ -522,6 +851,7 @@ public final class JsonWriter implements Closeable, Flushable {
 			throw new IllegalStateException("Dangling name: " + deferredName);
 		}
 
+		count(closeBracket == '}' ? JsonToken.END_OBJECT : JsonToken.END_ARRAY);
 		stackSize--;
 		if (context == nonempty) {
 			commentAndNewline();
@@ -530,6 +860,77 @@ public final class JsonWriter implements Closeable, Flushable {
 		return this;
 	}
 
+	/**
+	 * Starts an array written in one go, the same way {@link #beginArray} and
+	 * the first {@code value} call in it would.
+	 *
+	 * @return the text to put between elements.
+	 */
+	private String beginNumberArray(int length) throws IOException {
+		writeDeferredName();
+		beforeValue();
+		if (metrics != null) {
+			metrics.count(JsonToken.BEGIN_ARRAY, stackSize);
+			metrics.tokens[JsonToken.NUMBER.ordinal()] += length;
+		}
+		StringBuilder text = arrayText;
+		text.append('[');
+		if (indent == null || length == 0) {
+			return ",";
+		} else if (length <= maxInlineArrayLength) {
+			return ", ";
+		}
+		int start = text.length();
+		text.append('\n');
+		for (int i = 0; i < stackSize; i++) {
+			text.append(indent);
+		}
+		return "," + text.substring(start);
+	}
+
+	private JsonWriter endNumberArray(int length) throws IOException {
+		StringBuilder text = arrayText;
+		if (indent != null && length > 0 && length > maxInlineArrayLength) {
+			text.append('\n');
+			for (int i = 1; i < stackSize; i++) {
+				text.append(indent);
+			}
+		}
+		text.append(']');
+		flushArrayText();
+		if (metrics != null) {
+			metrics.count(JsonToken.END_ARRAY, stackSize);
+		}
+		return this;
+	}
+
+	private void flushArrayText() throws IOException {
+		out.append(arrayText);
+		arrayText.setLength(0);
+	}
+
+	private static void checkRange(int arrayLength, int offset, int length) {
+		if (offset < 0 || length < 0 || length > arrayLength - offset) {
+			throw new IndexOutOfBoundsException("Range [" + offset + ", " + offset + " + " + length
+					+ ") out of bounds for length " + arrayLength);
+		}
+	}
+
+	private void startCounting() {
+		if (metrics == null) {
+			metrics = new JsonMetrics();
+		}
+		if (!(out instanceof CountingWriter)) {
+			out = new CountingWriter(out);
+		}
+	}
+
+	private void count(JsonToken token) {
+		if (metrics != null) {
+			metrics.count(token, stackSize - 1);
+		}
+	}
+
 	private void push(int newTop) {
 		if (stackSize == stack.length) {
 			stack = Arrays.copyOf(stack, stackSize * 2);
@@ -575,6 +976,7 @@ public final class JsonWriter implements Closeable, Flushable {
 				}
 			}
 
+			count(JsonToken.NAME);
 			string(deferredName, quotes, true);
 			deferredName = null;
 		}
@@ -629,6 +1031,9 @@ public final class JsonWriter implements Closeable, Flushable {
 				out.write(value, last, i - last);
 			}
 			out.write(replacement);
+			if (metrics != null) {
+				metrics.escapes++;
+			}
 			last = i + 1;
 		}
 		if (last < length) {
@@ -640,6 +1045,41 @@ public final class JsonWriter implements Closeable, Flushable {
 		}
 	}
 
+	/**
+	 * Like {@link #string(String, boolean, boolean)}, for part of a string held in a char array, without quotes.
+	 */
+	private void string(char[] chars, int length) throws IOException {
+		String[] replacements = htmlSafe ? HTML_SAFE_REPLACEMENT_CHARS : REPLACEMENT_CHARS;
+		int last = 0;
+		for (int i = 0; i < length; i++) {
+			char c = chars[i];
+			String replacement;
+			if (c < 128) {
+				replacement = replacements[c];
+				if (replacement == null) {
+					continue;
+				}
+			} else if (c == '\u2028') {
+				replacement = "\\u2028";
+			} else if (c == '\u2029') {
+				replacement = "\\u2029";
+			} else {
+				continue;
+			}
+			if (last < i) {
+				out.write(chars, last, i - last);
+			}
+			out.write(replacement);
+			if (metrics != null) {
+				metrics.escapes++;
+			}
+			last = i + 1;
+		}
+		if (last < length) {
+			out.write(chars, last, length - last);
+		}
+	}
+
 	private void commentAndNewline() throws IOException {
 		if (indent == null) {
 			return;
@@ -705,4 +1145,37 @@ public final class JsonWriter implements Closeable, Flushable {
 				throw new IllegalStateException("Nesting problem.");
 		}
 	}
+
+	/**
+	 * Counts the characters written through it into {@link #metrics}.
+	 */
+	private final class CountingWriter extends FilterWriter {
+		CountingWriter(Writer out) {
+			super(out);
+		}
+
+		@Override
+		public void write(int c) throws IOException {
+			out.write(c);
+			if (metrics != null) {
+				metrics.chars++;
+			}
+		}
+
+		@Override
+		public void write(char[] chars, int offset, int length) throws IOException {
+			out.write(chars, offset, length);
+			if (metrics != null) {
+				metrics.chars += length;
+			}
+		}
+
+		@Override
+		public void write(String str, int offset, int length) throws IOException {
+			out.write(str, offset, length);
+			if (metrics != null) {
+				metrics.chars += length;
+			}
+		}
+	}
 }
\ No newline at end of file
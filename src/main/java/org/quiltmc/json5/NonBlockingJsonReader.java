@@ -0,0 +1,1093 @@
+/*
+ * Copyright 2021 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.json5;
+
+import static org.quiltmc.json5.JsonGrammar.NUMBER_CHAR_DECIMAL;
+import static org.quiltmc.json5.JsonGrammar.NUMBER_CHAR_DIGIT;
+import static org.quiltmc.json5.JsonGrammar.NUMBER_CHAR_EXP_DIGIT;
+import static org.quiltmc.json5.JsonGrammar.NUMBER_CHAR_FRACTION_DIGIT;
+import static org.quiltmc.json5.JsonGrammar.NUMBER_CHAR_HEXADECIMAL;
+import static org.quiltmc.json5.JsonGrammar.NUMBER_CHAR_NONE;
+import static org.quiltmc.json5.JsonGrammar.NUMBER_CHAR_SIGN;
+import static org.quiltmc.json5.JsonGrammar.NUMBER_CHAR_ZERO;
+import static org.quiltmc.json5.JsonGrammar.NUMBER_CLASS_DECIMAL;
+import static org.quiltmc.json5.JsonGrammar.NUMBER_CLASS_EXPONENT;
+import static org.quiltmc.json5.JsonGrammar.NUMBER_CLASS_I;
+import static org.quiltmc.json5.JsonGrammar.NUMBER_CLASS_LENIENT;
+import static org.quiltmc.json5.JsonGrammar.NUMBER_CLASS_MINUS;
+import static org.quiltmc.json5.JsonGrammar.NUMBER_CLASS_N;
+import static org.quiltmc.json5.JsonGrammar.NUMBER_CLASS_PLUS;
+import static org.quiltmc.json5.JsonGrammar.NUMBER_CLASS_X;
+import static org.quiltmc.json5.JsonGrammar.NUMBER_CLASS_ZERO;
+import static org.quiltmc.json5.JsonGrammar.NUMBER_ERROR;
+import static org.quiltmc.json5.JsonGrammar.NUMBER_JSON5;
+import static org.quiltmc.json5.JsonGrammar.NUMBER_STATE;
+import static org.quiltmc.json5.JsonGrammar.isLenient;
+import static org.quiltmc.json5.JsonGrammar.isLiteralEnd;
+import static org.quiltmc.json5.JsonGrammar.nextNumberState;
+import static org.quiltmc.json5.JsonGrammar.numberClass;
+
+import org.quiltmc.json5.exception.LimitExceededException;
+import org.quiltmc.json5.exception.MalformedSyntaxException;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads a JSON or JSON5 document which is pushed to it in chunks, as it arrives, rather than pulled from a blocking
+ * {@link java.io.Reader}. This accepts exactly the same documents as {@link JsonReader}.
+ *
+ * <p>Input is handed over with {@link #feed(ByteBuffer)} or {@link #feed(char[], int, int)}, and
+ * {@link #endOfInput()} once there is no more. {@link #nextToken()} never waits: when the input fed so far ends in
+ * the middle of a token, it returns {@link JsonToken#NEED_MORE_INPUT} and picks up where it left off after the next
+ * chunk. A chunk may end anywhere, including inside a string, escape sequence, comment, number or multi-byte
+ * character.
+ *
+ * <pre>{@code
+ * NonBlockingJsonReader reader = NonBlockingJsonReader.json5();
+ * reader.feed(bytes);
+ * JsonToken token;
+ * while ((token = reader.nextToken()) != JsonToken.NEED_MORE_INPUT) {
+ *   handle(token, reader);
+ * }
+ * }</pre>
+ *
+ * <p>Partial tokens are copied out of the fed chunks, so callers may reuse their buffers as soon as
+ * {@code feed} returns. Input from an untrusted source should be read with limits, the same ones as
+ * {@link JsonReader}'s, so that it can't make the reader hold an unbounded amount of it.
+ */
+@Deprecated
+public final class NonBlockingJsonReader {
+	/* Lexer states, saved between calls when a chunk ends mid-token */
+	private static final int LEX_NONE = 0;
+	private static final int LEX_SLASH = 1;
+	private static final int LEX_LINE_COMMENT = 2;
+	private static final int LEX_BLOCK_COMMENT = 3;
+	private static final int LEX_BLOCK_COMMENT_STAR = 4;
+	private static final int LEX_STRING = 5;
+	private static final int LEX_ESCAPE = 6;
+	private static final int LEX_UNICODE_ESCAPE = 7;
+	private static final int LEX_LITERAL = 8;
+
+	/* Lexemes other than punctuation, which is returned as the character itself */
+	private static final int LEXEME_END = -1;
+	private static final int LEXEME_NEED_MORE_INPUT = -2;
+	private static final int LEXEME_STRING = -3;
+	private static final int LEXEME_LITERAL = -4;
+
+	private static final int NUMBER_DECIMAL = 0;
+	private static final int NUMBER_HEXADECIMAL = 1;
+	private static final int NUMBER_NaN = 2;
+	private static final int NUMBER_INF = 3;
+	private static final int NUMBER_NEGATIVE_INF = 4;
+
+	private final boolean strict;
+
+	private int maxDepth = Integer.MAX_VALUE;
+	private int maxStringLength = Integer.MAX_VALUE;
+	private int maxNumberLength = 1024;
+	private long maxDocumentLength = Long.MAX_VALUE;
+	private int maxNamesPerObject = Integer.MAX_VALUE;
+
+	/** Fed characters which have not been lexed yet, from {@code pos} to {@code limit}. */
+	private char[] buffer = new char[1024];
+	private int pos = 0;
+	private int limit = 0;
+	/** The number of characters dropped from the front of the buffer, to turn positions into offsets. */
+	private long consumed = 0;
+	private boolean ended = false;
+
+	private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+			.onMalformedInput(CodingErrorAction.REPORT)
+			.onUnmappableCharacter(CodingErrorAction.REPORT);
+	/** The start of a multi-byte character cut off at the end of the last chunk. */
+	private final ByteBuffer pendingBytes = ByteBuffer.allocate(4);
+
+	private int lineNumber = 0;
+	private long lineStart = 0;
+
+	private int lexState = LEX_NONE;
+	private char quote;
+	/** The decoded text of the string or the raw text of the literal being lexed. */
+	private final StringBuilder text = new StringBuilder();
+	private final char[] unicodeEscape = new char[4];
+	private int unicodeEscapeLength;
+	/** Set between a comma or colon and the name or value after it. */
+	private boolean afterSeparator = false;
+
+	private JsonToken token = null;
+	private String value;
+	private int numberKind;
+	private boolean booleanValue;
+
+	private int[] stack = new int[32];
+	private int stackSize = 0;
+	{
+		stack[stackSize++] = JsonScope.EMPTY_DOCUMENT;
+	}
+	private String[] pathNames = new String[32];
+	private int[] pathIndices = new int[32];
+
+	private NonBlockingJsonReader(boolean strict) {
+		this.strict = strict;
+	}
+
+	/**
+	 * Creates a reader which accepts JSON5.
+	 */
+	public static NonBlockingJsonReader json5() {
+		return new NonBlockingJsonReader(false);
+	}
+
+	/**
+	 * Creates a reader which only accepts strict JSON.
+	 */
+	public static NonBlockingJsonReader json() {
+		return new NonBlockingJsonReader(true);
+	}
+
+	/**
+	 * Sets how deeply objects and arrays may be nested, where a top-level object or array has depth 1. Going deeper
+	 * throws a {@link LimitExceededException}. There is no limit by default.
+	 */
+	public NonBlockingJsonReader setMaxDepth(int maxDepth) {
+		this.maxDepth = maxDepth;
+		return this;
+	}
+
+	/**
+	 * Returns how deeply objects and arrays may be nested.
+	 */
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+
+	/**
+	 * Sets the length of the longest name or string this reader will decode. Lexing a longer one throws a
+	 * {@link LimitExceededException} once that many characters have been collected, even if the rest of it has not
+	 * been fed yet. There is no limit by default.
+	 */
+	public NonBlockingJsonReader setMaxStringLength(int maxStringLength) {
+		this.maxStringLength = maxStringLength;
+		return this;
+	}
+
+	/**
+	 * Returns the length of the longest name or string this reader will decode.
+	 */
+	public int getMaxStringLength() {
+		return maxStringLength;
+	}
+
+	/**
+	 * Sets the length of the longest number this reader will accept, counting its sign, digits, decimal point and
+	 * exponent. Longer numbers throw a {@link LimitExceededException}. As in {@link JsonReader}, numbers can never be
+	 * longer than 1024 characters, which is the default.
+	 */
+	public NonBlockingJsonReader setMaxNumberLength(int maxNumberLength) {
+		this.maxNumberLength = maxNumberLength;
+		return this;
+	}
+
+	/**
+	 * Returns the length of the longest number this reader will accept.
+	 */
+	public int getMaxNumberLength() {
+		return Math.min(maxNumberLength, 1024);
+	}
+
+	/**
+	 * Sets how many characters may be fed to this reader. Feeding more throws a {@link LimitExceededException}. There
+	 * is no limit by default.
+	 */
+	public NonBlockingJsonReader setMaxDocumentLength(long maxDocumentLength) {
+		this.maxDocumentLength = maxDocumentLength;
+		return this;
+	}
+
+	/**
+	 * Returns how many characters may be fed to this reader.
+	 */
+	public long getMaxDocumentLength() {
+		return maxDocumentLength;
+	}
+
+	/**
+	 * Sets how many members an object may have. Reaching the name of one more throws a
+	 * {@link LimitExceededException}. There is no limit by default.
+	 */
+	public NonBlockingJsonReader setMaxNamesPerObject(int maxNamesPerObject) {
+		this.maxNamesPerObject = maxNamesPerObject;
+		return this;
+	}
+
+	/**
+	 * Returns how many members an object may have.
+	 */
+	public int getMaxNamesPerObject() {
+		return maxNamesPerObject;
+	}
+
+	/**
+	 * Appends UTF-8 encoded bytes to the input, consuming all of {@code bytes}. A multi-byte character may be split
+	 * between chunks.
+	 *
+	 * @throws MalformedSyntaxException if the bytes are not valid UTF-8.
+	 * @throws LimitExceededException if the input is longer than {@link #getMaxDocumentLength()}.
+	 * @throws IllegalStateException if {@link #endOfInput()} has been called.
+	 */
+	public void feed(ByteBuffer bytes) {
+		checkNotEnded();
+		// UTF-8 never decodes to more chars than it has bytes
+		reserve(pendingBytes.position() + bytes.remaining());
+		CharBuffer out = CharBuffer.wrap(buffer, limit, buffer.length - limit);
+		// Finish a character cut off by the last chunk before decoding the rest in place
+		while (pendingBytes.position() > 0 && bytes.hasRemaining()) {
+			pendingBytes.put(bytes.get());
+			pendingBytes.flip();
+			decode(pendingBytes, out);
+			pendingBytes.compact();
+		}
+		if (pendingBytes.position() == 0) {
+			decode(bytes, out);
+			pendingBytes.put(bytes);
+		}
+		limit = out.position();
+		checkDocumentLength(0);
+	}
+
+	/**
+	 * Appends {@code length} characters of {@code chars}, starting at {@code offset}, to the input.
+	 *
+	 * @throws LimitExceededException if the input is longer than {@link #getMaxDocumentLength()}.
+	 * @throws IllegalStateException if {@link #endOfInput()} has been called.
+	 */
+	public void feed(char[] chars, int offset, int length) {
+		checkNotEnded();
+		checkDocumentLength(length);
+		reserve(length);
+		System.arraycopy(chars, offset, buffer, limit, length);
+		limit += length;
+	}
+
+	/**
+	 * Appends {@code chars} to the input.
+	 *
+	 * @throws LimitExceededException if the input is longer than {@link #getMaxDocumentLength()}.
+	 * @throws IllegalStateException if {@link #endOfInput()} has been called.
+	 */
+	public void feed(CharSequence chars) {
+		checkNotEnded();
+		int length = chars.length();
+		checkDocumentLength(length);
+		reserve(length);
+		for (int i = 0; i < length; i++) {
+			buffer[limit++] = chars.charAt(i);
+		}
+	}
+
+	/**
+	 * Signals that all of the input has been fed. After this, {@link #nextToken()} no longer returns
+	 * {@link JsonToken#NEED_MORE_INPUT}.
+	 *
+	 * @throws MalformedSyntaxException if the input ends in the middle of a UTF-8 character.
+	 */
+	public void endOfInput() {
+		ended = true;
+		if (pendingBytes.position() > 0) {
+			throw syntaxError("Malformed UTF-8 input");
+		}
+	}
+
+	/**
+	 * Returns the next token in the input, or {@link JsonToken#NEED_MORE_INPUT} if it has not been fed in full yet.
+	 * After the whole document has been read, this returns {@link JsonToken#END_DOCUMENT}.
+	 *
+	 * <p>The value of a {@link JsonToken#NAME NAME}, {@link JsonToken#STRING STRING},
+	 * {@link JsonToken#NUMBER NUMBER} or {@link JsonToken#BOOLEAN BOOLEAN} token is available from the accessors
+	 * until the next call.
+	 *
+	 * @throws MalformedSyntaxException if the input is not valid JSON5, or not valid JSON for a strict reader.
+	 * @throws LimitExceededException if the input goes past one of the limits set on this reader.
+	 * @throws EOFException if the input ends before the document does.
+	 * @throws NumberFormatException if a unicode escape sequence is malformed.
+	 */
+	public JsonToken nextToken() throws IOException {
+		while (true) {
+			int lexeme = lex();
+			if (lexeme == LEXEME_NEED_MORE_INPUT) {
+				return token = JsonToken.NEED_MORE_INPUT;
+			}
+			JsonToken result = parse(lexeme);
+			if (result != null) {
+				return token = result;
+			}
+		}
+	}
+
+	/**
+	 * Returns the name of the current {@link JsonToken#NAME NAME}, the decoded value of the current
+	 * {@link JsonToken#STRING STRING} or the text of the current {@link JsonToken#NUMBER NUMBER}.
+	 *
+	 * @throws IllegalStateException if the current token is none of these.
+	 */
+	public String stringValue() {
+		if (token != JsonToken.NAME && token != JsonToken.STRING && token != JsonToken.NUMBER) {
+			throw new IllegalStateException("Expected a string but was " + token + locationString());
+		}
+		return value;
+	}
+
+	/**
+	 * @throws IllegalStateException if the current token is not a boolean.
+	 */
+	public boolean booleanValue() {
+		if (token != JsonToken.BOOLEAN) {
+			throw new IllegalStateException("Expected a boolean but was " + token + locationString());
+		}
+		return booleanValue;
+	}
+
+	/**
+	 * Returns the value of the current {@link JsonToken#NUMBER NUMBER}, as {@link JsonReader#nextNumber()} would: a
+	 * {@link BigInteger} for hexadecimal numbers, a {@link Double} for {@code NaN} and infinities, and a
+	 * {@link BigDecimal} otherwise.
+	 *
+	 * @throws IllegalStateException if the current token is not a number.
+	 */
+	public Number numberValue() {
+		if (token != JsonToken.NUMBER) {
+			throw new IllegalStateException("Expected a number but was " + token + locationString());
+		}
+		switch (numberKind) {
+			case NUMBER_HEXADECIMAL:
+				char sign = value.charAt(0);
+				BigInteger result = new BigInteger(value.substring(sign == '+' || sign == '-' ? 3 : 2), 16);
+				return sign == '-' ? result.negate() : result;
+			case NUMBER_NaN:
+				return Double.NaN;
+			case NUMBER_INF:
+				return Double.POSITIVE_INFINITY;
+			case NUMBER_NEGATIVE_INF:
+				return Double.NEGATIVE_INFINITY;
+			default:
+				return new BigDecimal(value.charAt(0) == '+' ? value.substring(1) : value);
+		}
+	}
+
+	/**
+	 * @throws IllegalStateException if the current token is not a number.
+	 */
+	public double doubleValue() {
+		return numberValue().doubleValue();
+	}
+
+	/**
+	 * @throws IllegalStateException if the current token is not a number.
+	 * @throws ArithmeticException if the number cannot be exactly represented as a long.
+	 */
+	public long longValue() {
+		Number number = numberValue();
+		if (number instanceof BigInteger) {
+			return ((BigInteger) number).longValueExact();
+		} else if (number instanceof BigDecimal) {
+			return ((BigDecimal) number).longValueExact();
+		}
+		throw new ArithmeticException("Expected a long but was " + value + locationString());
+	}
+
+	/**
+	 * @throws IllegalStateException if the current token is not a number.
+	 * @throws ArithmeticException if the number cannot be exactly represented as an int.
+	 */
+	public int intValue() {
+		Number number = numberValue();
+		if (number instanceof BigInteger) {
+			return ((BigInteger) number).intValueExact();
+		} else if (number instanceof BigDecimal) {
+			return ((BigDecimal) number).intValueExact();
+		}
+		throw new ArithmeticException("Expected an int but was " + value + locationString());
+	}
+
+	/**
+	 * @return a <a href="http://goessner.net/articles/JsonPath/">JsonPath</a> to the current location in the input JSON.
+	 */
+	public String path() {
+		StringBuilder result = new StringBuilder().append('$');
+		for (int i = 0, size = stackSize; i < size; i++) {
+			switch (stack[i]) {
+				case JsonScope.EMPTY_ARRAY:
+				case JsonScope.NONEMPTY_ARRAY:
+					result.append('[').append(pathIndices[i]).append(']');
+					break;
+				case JsonScope.EMPTY_OBJECT:
+				case JsonScope.DANGLING_NAME:
+				case JsonScope.NONEMPTY_OBJECT:
+					result.append('.');
+					if (pathNames[i] != null) {
+						result.append(pathNames[i]);
+					}
+					break;
+				default:
+					break;
+			}
+		}
+		return result.toString();
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + locationString();
+	}
+
+	/**
+	 * Applies a lexeme to the grammar, mirroring {@link JsonReader#doPeek()}.
+	 *
+	 * @return the token it completes, or null for a separator.
+	 */
+	private JsonToken parse(int lexeme) throws IOException {
+		int peekStack = stack[stackSize - 1];
+		if (lexeme == LEXEME_END) {
+			if (peekStack == JsonScope.NONEMPTY_DOCUMENT) {
+				return JsonToken.END_DOCUMENT;
+			}
+			throw new EOFException("End of input" + locationString());
+		}
+
+		switch (peekStack) {
+			case JsonScope.EMPTY_DOCUMENT:
+				stack[stackSize - 1] = JsonScope.NONEMPTY_DOCUMENT;
+				return value(lexeme);
+			case JsonScope.NONEMPTY_DOCUMENT:
+				throw checkLenient();
+			case JsonScope.EMPTY_ARRAY:
+				if (lexeme == ']') {
+					return end();
+				}
+				stack[stackSize - 1] = JsonScope.NONEMPTY_ARRAY;
+				return value(lexeme);
+			case JsonScope.NONEMPTY_ARRAY:
+				if (afterSeparator) {
+					afterSeparator = false;
+					if (lexeme == ']') {
+						// A trailing comma
+						assertJson5();
+						return end();
+					}
+					return value(lexeme);
+				} else if (lexeme == ']') {
+					return end();
+				} else if (lexeme == ',') {
+					afterSeparator = true;
+					return null;
+				}
+				throw syntaxError("Unterminated array");
+			case JsonScope.EMPTY_OBJECT:
+			case JsonScope.NONEMPTY_OBJECT:
+				if (peekStack == JsonScope.NONEMPTY_OBJECT && !afterSeparator) {
+					switch (lexeme) {
+						case '}':
+							return end();
+						case ',':
+							afterSeparator = true;
+							return null;
+						default:
+							throw syntaxError("Unterminated object");
+					}
+				}
+				return name(lexeme);
+			case JsonScope.DANGLING_NAME:
+				if (!afterSeparator) {
+					if (lexeme != ':') {
+						throw syntaxError("Expected ':'");
+					}
+					afterSeparator = true;
+					return null;
+				}
+				afterSeparator = false;
+				stack[stackSize - 1] = JsonScope.NONEMPTY_OBJECT;
+				return value(lexeme);
+			default:
+				throw new AssertionError("Unknown scope " + peekStack);
+		}
+	}
+
+	private JsonToken name(int lexeme) throws IOException {
+		boolean afterComma = afterSeparator;
+		afterSeparator = false;
+		switch (lexeme) {
+			case LEXEME_STRING:
+				break;
+			case LEXEME_LITERAL:
+				// Unquoted names are only allowed in JSON5
+				assertJson5();
+				isLiteral(text.charAt(0));
+				value = text.toString();
+				break;
+			case '}':
+				if (afterComma) {
+					assertJson5();
+				}
+				return end();
+			case '/':
+				assertJson5();
+				throw checkLenient();
+			default:
+				assertJson5();
+				throw syntaxError("Expected name");
+		}
+		// Objects count their members in pathIndices, as values end
+		if (pathIndices[stackSize - 1] >= maxNamesPerObject) {
+			throw limitExceeded("Object with more than " + maxNamesPerObject + " names");
+		}
+		stack[stackSize - 1] = JsonScope.DANGLING_NAME;
+		pathNames[stackSize - 1] = value;
+		return JsonToken.NAME;
+	}
+
+	private JsonToken value(int lexeme) throws IOException {
+		switch (lexeme) {
+			case '{':
+				push(JsonScope.EMPTY_OBJECT);
+				return JsonToken.BEGIN_OBJECT;
+			case '[':
+				push(JsonScope.EMPTY_ARRAY);
+				return JsonToken.BEGIN_ARRAY;
+			case LEXEME_STRING:
+				pathIndices[stackSize - 1]++;
+				return JsonToken.STRING;
+			case LEXEME_LITERAL:
+				JsonToken result = literal();
+				pathIndices[stackSize - 1]++;
+				return result;
+			case ',':
+				throw syntaxError("Unexpected value");
+			case '/':
+				throw checkLenient();
+			default:
+				throw syntaxError("Expected value");
+		}
+	}
+
+	private JsonToken end() {
+		int top = stack[--stackSize];
+		pathNames[stackSize] = null;
+		pathIndices[stackSize - 1]++;
+		boolean array = top == JsonScope.EMPTY_ARRAY || top == JsonScope.NONEMPTY_ARRAY;
+		return array ? JsonToken.END_ARRAY : JsonToken.END_OBJECT;
+	}
+
+	private void push(int newTop) {
+		if (stackSize > maxDepth) {
+			throw limitExceeded("Nesting deeper than " + maxDepth);
+		}
+		if (stackSize == stack.length) {
+			int newLength = stackSize * 2;
+			stack = Arrays.copyOf(stack, newLength);
+			pathIndices = Arrays.copyOf(pathIndices, newLength);
+			pathNames = Arrays.copyOf(pathNames, newLength);
+		}
+		pathIndices[stackSize] = 0;
+		stack[stackSize++] = newTop;
+	}
+
+	/**
+	 * Lexes as far as the next token, or to the end of the input fed so far.
+	 *
+	 * @return the token's first character for punctuation, or one of the {@code LEXEME_} constants.
+	 */
+	private int lex() throws IOException {
+		char[] buffer = this.buffer;
+		while (true) {
+			switch (lexState) {
+				case LEX_NONE:
+					while (pos < limit) {
+						char c = buffer[pos++];
+						if (c == '\n') {
+							newline(pos);
+							continue;
+						} else if (c == ' ' || c == '\r' || c == '\t') {
+							continue;
+						} else if (c == 0x000b || c == 0x000C || c == 0x2028 || c == 0x2029 || c == 0xFEFF
+								|| Character.getType(c) == Character.SPACE_SEPARATOR) {
+							if (c == 0xFEFF && consumed + pos == 1) {
+								// Skip a byte order mark at the start of the input
+								lineStart = 1;
+								continue;
+							}
+							assertJson5();
+							continue;
+						}
+
+						switch (c) {
+							case '{':
+							case '}':
+							case '[':
+							case ']':
+							case ':':
+							case ',':
+								return c;
+							case '/':
+								lexState = LEX_SLASH;
+								break;
+							case '\'':
+								assertJson5(); // fall-through
+							case '"':
+								quote = c;
+								text.setLength(0);
+								lexState = LEX_STRING;
+								break;
+							default:
+								text.setLength(0);
+								text.append(c);
+								lexState = LEX_LITERAL;
+						}
+						break;
+					}
+					if (lexState == LEX_NONE) {
+						return ended ? LEXEME_END : LEXEME_NEED_MORE_INPUT;
+					}
+					break;
+				case LEX_SLASH:
+					if (pos == limit) {
+						if (!ended) {
+							return LEXEME_NEED_MORE_INPUT;
+						}
+						lexState = LEX_NONE;
+						return '/';
+					}
+					// Comments are JSON5 only
+					assertJson5();
+					if (buffer[pos] == '*') {
+						pos++;
+						lexState = LEX_BLOCK_COMMENT;
+					} else if (buffer[pos] == '/') {
+						pos++;
+						lexState = LEX_LINE_COMMENT;
+					} else {
+						lexState = LEX_NONE;
+						return '/';
+					}
+					break;
+				case LEX_LINE_COMMENT:
+					while (pos < limit && lexState == LEX_LINE_COMMENT) {
+						char c = buffer[pos++];
+						if (c == '\n') {
+							newline(pos);
+							lexState = LEX_NONE;
+						} else if (c == '\r') {
+							lexState = LEX_NONE;
+						}
+					}
+					if (lexState == LEX_LINE_COMMENT) {
+						if (!ended) {
+							return LEXEME_NEED_MORE_INPUT;
+						}
+						lexState = LEX_NONE;
+					}
+					break;
+				case LEX_BLOCK_COMMENT:
+				case LEX_BLOCK_COMMENT_STAR:
+					while (pos < limit && lexState != LEX_NONE) {
+						char c = buffer[pos++];
+						if (c == '/' && lexState == LEX_BLOCK_COMMENT_STAR) {
+							lexState = LEX_NONE;
+						} else {
+							if (c == '\n') {
+								newline(pos);
+							}
+							lexState = c == '*' ? LEX_BLOCK_COMMENT_STAR : LEX_BLOCK_COMMENT;
+						}
+					}
+					if (lexState != LEX_NONE) {
+						if (ended) {
+							throw syntaxError("Unterminated comment");
+						}
+						return LEXEME_NEED_MORE_INPUT;
+					}
+					break;
+				case LEX_STRING:
+					if (string()) {
+						lexState = LEX_NONE;
+						return LEXEME_STRING;
+					} else if (lexState == LEX_STRING) {
+						if (ended) {
+							throw syntaxError("Unterminated string");
+						}
+						return LEXEME_NEED_MORE_INPUT;
+					}
+					break;
+				case LEX_ESCAPE:
+					if (pos == limit) {
+						if (ended) {
+							throw syntaxError("Unterminated escape sequence");
+						}
+						return LEXEME_NEED_MORE_INPUT;
+					}
+					escape(buffer[pos++]);
+					break;
+				case LEX_UNICODE_ESCAPE:
+					while (unicodeEscapeLength < 4 && pos < limit) {
+						unicodeEscape[unicodeEscapeLength++] = buffer[pos++];
+					}
+					if (unicodeEscapeLength < 4) {
+						if (ended) {
+							throw syntaxError("Unterminated escape sequence");
+						}
+						return LEXEME_NEED_MORE_INPUT;
+					}
+					text.append(unicodeEscape());
+					lexState = LEX_STRING;
+					break;
+				case LEX_LITERAL:
+					int start = pos;
+					while (pos < limit && !isLiteralEnd(buffer[pos])) {
+						pos++;
+					}
+					text.append(buffer, start, pos - start);
+					checkLiteralLength();
+					if (pos == limit && !ended) {
+						return LEXEME_NEED_MORE_INPUT;
+					}
+					lexState = LEX_NONE;
+					return LEXEME_LITERAL;
+				default:
+					throw new AssertionError("Unknown lexer state " + lexState);
+			}
+		}
+	}
+
+	/**
+	 * Reads string characters up to the closing quote or the next escape sequence.
+	 *
+	 * @return true if the string was closed, leaving its value in {@code value}.
+	 */
+	private boolean string() {
+		// Like JsonReader.nextQuotedValue, this uses locals 'p' and 'l' to save inner-loop field access.
+		char[] buffer = this.buffer;
+		int p = pos;
+		int l = limit;
+		int start = p;
+		while (p < l) {
+			char c = buffer[p++];
+			if (c == quote) {
+				pos = p;
+				int length = p - start - 1;
+				checkStringLength(text.length() + length);
+				if (text.length() == 0) {
+					// The whole string was in this chunk, with no escapes
+					value = new String(buffer, start, length);
+				} else {
+					value = text.append(buffer, start, length).toString();
+				}
+				return true;
+			} else if (c == '\\') {
+				pos = p;
+				text.append(buffer, start, p - start - 1);
+				checkStringLength(text.length());
+				lexState = LEX_ESCAPE;
+				return false;
+			} else if (c == '\n') {
+				newline(p);
+			}
+		}
+		pos = p;
+		text.append(buffer, start, p - start);
+		checkStringLength(text.length());
+		return false;
+	}
+
+	private void checkStringLength(int length) {
+		if (length > maxStringLength) {
+			throw limitExceeded("String longer than " + maxStringLength);
+		}
+	}
+
+	/**
+	 * Checks the unquoted literal lexed so far, which is a name where one is expected and a value anywhere else.
+	 */
+	private void checkLiteralLength() {
+		int scope = stack[stackSize - 1];
+		if (scope == JsonScope.EMPTY_OBJECT || scope == JsonScope.NONEMPTY_OBJECT) {
+			checkStringLength(text.length());
+		} else if (text.length() > getMaxNumberLength()) {
+			throw limitExceeded("Number longer than " + getMaxNumberLength());
+		}
+	}
+
+	/**
+	 * Checks that feeding {@code length} more characters than have been fed keeps to the document length limit.
+	 */
+	private void checkDocumentLength(int length) {
+		if (consumed + limit + length > maxDocumentLength) {
+			throw limitExceeded("Document longer than " + maxDocumentLength);
+		}
+	}
+
+	/**
+	 * Unescapes the character after a backslash, as in {@link JsonReader}.
+	 */
+	private void escape(char escaped) {
+		lexState = LEX_STRING;
+		switch (escaped) {
+			case 'u':
+				unicodeEscapeLength = 0;
+				lexState = LEX_UNICODE_ESCAPE;
+				return;
+			case 't':
+				text.append('\t');
+				return;
+			case 'b':
+				text.append('\b');
+				return;
+			case 'n':
+				text.append('\n');
+				return;
+			case 'r':
+				text.append('\r');
+				return;
+			case 'f':
+				text.append('\f');
+				return;
+			case '\r':
+			case '\n':
+				newline(pos);
+				// fall-through
+			case '\'':
+			case '"':
+			case '\\':
+			case '/':
+				text.append(escaped);
+				return;
+			default:
+				// throw error when none of the above cases are matched
+				throw syntaxError("Invalid escape sequence " + (int) escaped);
+		}
+	}
+
+	private char unicodeEscape() {
+		char result = 0;
+		for (char c : unicodeEscape) {
+			result <<= 4;
+			if (c >= '0' && c <= '9') {
+				result += (c - '0');
+			} else if (c >= 'a' && c <= 'f') {
+				result += (c - 'a' + 10);
+			} else if (c >= 'A' && c <= 'F') {
+				result += (c - 'A' + 10);
+			} else {
+				throw new NumberFormatException("\\u" + new String(unicodeEscape));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Decodes the unquoted literal in {@code text} as a keyword or number, with the same rules and errors as
+	 * {@link JsonReader}'s {@code peekKeyword} and {@code peekNumber}.
+	 */
+	private JsonToken literal() {
+		String literal = text.toString();
+		if (keyword(literal, "true")) {
+			booleanValue = true;
+			return JsonToken.BOOLEAN;
+		} else if (keyword(literal, "false")) {
+			booleanValue = false;
+			return JsonToken.BOOLEAN;
+		} else if (keyword(literal, "null")) {
+			return JsonToken.NULL;
+		}
+		numberKind = number(literal);
+		value = literal;
+		return JsonToken.NUMBER;
+	}
+
+	/**
+	 * Returns true if {@code literal} is {@code keyword} in any case. Like JsonReader, this won't match trues, falsey
+	 * or nullsoft.
+	 */
+	private boolean keyword(String literal, String keyword) {
+		int length = keyword.length();
+		if (!literal.regionMatches(true, 0, keyword, 0, length)) {
+			return false;
+		}
+		return literal.length() == length || !isLiteral(literal.charAt(length));
+	}
+
+	private int number(String literal) {
+		int last = NUMBER_CHAR_NONE;
+
+		for (int i = 0, length = literal.length(); i < length; i++) {
+			char c = literal.charAt(i);
+			int numberClass = numberClass(c);
+			if (numberClass == NUMBER_CLASS_N) {
+				assertJson5();
+				if ((last == NUMBER_CHAR_NONE) && matches(literal, i, "NaN")) {
+					return NUMBER_NaN;
+				}
+				throw syntaxError("unexpected char N");
+			} else if (numberClass == NUMBER_CLASS_I) {
+				assertJson5();
+				if ((last == NUMBER_CHAR_NONE || last == NUMBER_CHAR_SIGN) && matches(literal, i, "Infinity")) {
+					return last == NUMBER_CHAR_NONE ? NUMBER_INF : NUMBER_NEGATIVE_INF;
+				}
+				numberClass = NUMBER_CLASS_PLUS;
+			}
+
+			int transition = nextNumberState(last, numberClass);
+			if (transition == NUMBER_ERROR) {
+				throw numberError(numberClass, c);
+			} else if ((transition & NUMBER_JSON5) != 0) {
+				assertJson5();
+			}
+			last = transition & NUMBER_STATE;
+		}
+
+		if (last == NUMBER_CHAR_HEXADECIMAL) {
+			return NUMBER_HEXADECIMAL;
+		}
+		if (last == NUMBER_CHAR_ZERO || last == NUMBER_CHAR_DIGIT || last == NUMBER_CHAR_FRACTION_DIGIT
+				// JSON5 allows trailing decimal
+				|| last == NUMBER_CHAR_EXP_DIGIT || isJson5(last == NUMBER_CHAR_DECIMAL)) {
+			return NUMBER_DECIMAL;
+		}
+		throw syntaxError("unable to parse number");
+	}
+
+	private MalformedSyntaxException numberError(int numberClass, char c) {
+		switch (numberClass) {
+			case NUMBER_CLASS_MINUS:
+				throw syntaxError("unexpected negative sign");
+			case NUMBER_CLASS_PLUS:
+				throw syntaxError("unexpected positive sign");
+			case NUMBER_CLASS_EXPONENT:
+				throw syntaxError("unexpected exponent " + c);
+			case NUMBER_CLASS_DECIMAL:
+				throw syntaxError("unexpected decimal marker");
+			case NUMBER_CLASS_ZERO:
+				throw syntaxError("unexpected leading zero");
+			case NUMBER_CLASS_X:
+				throw syntaxError("unexpected character x");
+			case NUMBER_CLASS_LENIENT:
+				throw checkLenient();
+			default:
+				throw syntaxError("unexpected character " + c);
+		}
+	}
+
+	/**
+	 * Returns true if the rest of {@code literal} from {@code offset} is {@code text}.
+	 */
+	private boolean matches(String literal, int offset, String text) {
+		int length = text.length();
+		if (!literal.startsWith(text, offset)) {
+			return false;
+		}
+		return literal.length() == offset + length || !isLiteral(literal.charAt(offset + length));
+	}
+
+	/**
+	 * Returns true for the characters JsonReader treats as part of a literal value. The characters which end an
+	 * unquoted literal never reach this, so only the ones reserved by lenient Gson need checking.
+	 */
+	private boolean isLiteral(char c) {
+		if (isLenient(c)) {
+			throw checkLenient();
+		}
+		return true;
+	}
+
+	private void newline(int position) {
+		lineNumber++;
+		lineStart = consumed + position;
+	}
+
+	private void decode(ByteBuffer bytes, CharBuffer out) {
+		CoderResult result = decoder.decode(bytes, out, false);
+		if (result.isError()) {
+			throw syntaxError("Malformed UTF-8 input");
+		}
+	}
+
+	/**
+	 * Makes room for {@code length} more characters at the end of the buffer, moving the characters which have not
+	 * been lexed yet to the front.
+	 */
+	private void reserve(int length) {
+		if (limit + length <= buffer.length) {
+			return;
+		}
+		int remaining = limit - pos;
+		char[] target = buffer;
+		if (remaining + length > buffer.length) {
+			target = new char[Math.max(buffer.length * 2, remaining + length)];
+		}
+		System.arraycopy(buffer, pos, target, 0, remaining);
+		buffer = target;
+		consumed += pos;
+		pos = 0;
+		limit = remaining;
+	}
+
+	private void checkNotEnded() {
+		if (ended) {
+			throw new IllegalStateException("The end of the input has already been signalled");
+		}
+	}
+
+	private String locationString() {
+		int line = lineNumber + 1;
+		long column = consumed + pos - lineStart + 1;
+		return " at line " + line + " column " + column + " path " + path();
+	}
+
+	private void assertJson5() {
+		if (strict) {
+			throw syntaxError("Found potentially valid JSON5, but invalid JSON while in strict mode");
+		}
+	}
+
+	private boolean isJson5(boolean bool) {
+		if (bool && strict) {
+			throw syntaxError("Found potentially valid JSON5, but invalid JSON while in strict mode");
+		}
+
+		return bool;
+	}
+
+	private MalformedSyntaxException checkLenient() {
+		throw syntaxError("This file may be valid in lenient GSON, but it is not valid JSON5");
+	}
+
+	private MalformedSyntaxException syntaxError(String message) {
+		throw new MalformedSyntaxException(message + locationString());
+	}
+
+	private LimitExceededException limitExceeded(String message) {
+		return new LimitExceededException(message + locationString());
+	}
+}
@@ -0,0 +1,329 @@
+/*
+ * Copyright 2021 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.json5;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * A recording of the tokens of one JSON value, which can be read back any number of times without parsing the text
+ * again. This makes lookahead cheap, such as looking for the member of an object that says how to decode the rest.
+ *
+ * <p>The tokens are kept in an int array, and the text of names, strings and numbers in a single char array, so no
+ * objects are allocated per token. Numbers are kept as they were written, so reading them back gives exactly what
+ * reading the original would. Comments are recorded if the reader retains them, and given back by readers of the
+ * recording which {@link JsonReader#setRetainComments() retain comments} too.
+ */
+@Deprecated
+public final class TokenBuffer {
+	private static final JsonToken[] TOKENS = JsonToken.values();
+
+	/**
+	 * Three ints for each token: the ordinal of its {@link JsonToken}, then the start and end of its text in
+	 * {@link #chars}. Booleans store their value as the start instead.
+	 */
+	private int[] tokens = new int[3 * 16];
+	private int size;
+	private char[] chars = new char[256];
+	private int length;
+	/** The comments before each token, or null until there is one. */
+	private @Nullable String[] comments;
+
+	TokenBuffer() {
+	}
+
+	/**
+	 * Reads the next value from {@code reader} and records its tokens.
+	 *
+	 * @throws IllegalStateException if the next token is not the start of a value.
+	 */
+	public static TokenBuffer record(JsonReader reader) throws IOException {
+		if (reader.peek() == JsonToken.NAME) {
+			throw new IllegalStateException("Expected a value but was NAME" + reader.locationString());
+		}
+		TokenBuffer tokens = new TokenBuffer();
+		tokens.append(reader);
+		return tokens;
+	}
+
+	/**
+	 * Returns the number of tokens recorded, counting each name and the end of each object and array as one.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns a new reader over the recorded value, positioned before its first token. It reads the value as the
+	 * original reader did, except that the line and column in error messages are not available.
+	 */
+	public JsonReader reader() {
+		return new JsonReader(this);
+	}
+
+	/**
+	 * Passes the recorded tokens to {@code visitor}, as {@link JsonReader#accept(JsonVisitor)} would have.
+	 */
+	public void accept(JsonVisitor visitor) {
+		JsonReader reader = reader();
+		try {
+			reader.accept(visitor);
+		} catch (IOException e) {
+			throw new AssertionError(e); // Replaying never touches a stream
+		}
+	}
+
+	/**
+	 * Writes the recorded value to {@code writer}. Numbers are written as they were read, unless the writer is strict
+	 * and the number is JSON5 only: hexadecimal numbers and those with a leading {@code +} or a leading or trailing
+	 * decimal point are then written in decimal, and {@code NaN} and {@code Infinity} are rejected like any other
+	 * non-finite value.
+	 */
+	public void writeTo(JsonWriter writer) throws IOException {
+		writeTo(writer, 0);
+	}
+
+	/**
+	 * Writes the value which starts at token {@code from}.
+	 */
+	void writeTo(JsonWriter writer, int from) throws IOException {
+		int depth = 0;
+		int i = from;
+		do {
+			switch (token(i)) {
+				case BEGIN_OBJECT:
+					writer.beginObject();
+					depth++;
+					break;
+				case END_OBJECT:
+					writer.endObject();
+					depth--;
+					break;
+				case BEGIN_ARRAY:
+					writer.beginArray();
+					depth++;
+					break;
+				case END_ARRAY:
+					writer.endArray();
+					depth--;
+					break;
+				case NAME:
+					writer.name(text(i));
+					break;
+				case STRING:
+					writer.value(text(i));
+					break;
+				case NUMBER:
+					writeNumber(writer, text(i));
+					break;
+				case BOOLEAN:
+					writer.value(booleanValue(i));
+					break;
+				case NULL:
+					writer.nullValue();
+					break;
+				default:
+					throw new AssertionError();
+			}
+			i++;
+		} while (depth != 0);
+	}
+
+	private static void writeNumber(JsonWriter writer, String text) throws IOException {
+		if (!writer.isStrictJson()) {
+			writer.jsonValue(text);
+			return;
+		}
+		boolean negative = text.charAt(0) == '-';
+		int start = negative || text.charAt(0) == '+' ? 1 : 0;
+		char first = text.charAt(start);
+		if (first == 'N' || first == 'I') {
+			writer.value(Double.parseDouble(text)); // throws, as the writer is strict
+		} else if (text.length() > start + 1 && first == '0' && (text.charAt(start + 1) | 0x20) == 'x') {
+			BigInteger value = new BigInteger(text.substring(start + 2), 16);
+			writer.value(negative ? value.negate() : value);
+		} else if (start == 1 && !negative || first == '.' || text.contains(".e") || text.contains(".E")
+				|| text.charAt(text.length() - 1) == '.') {
+			writer.value(new BigDecimal(text));
+		} else {
+			writer.jsonValue(text);
+		}
+	}
+
+	/**
+	 * Reads the next value from {@code reader}, or the next name and its value, and adds its tokens.
+	 */
+	void append(JsonReader reader) throws IOException {
+		reader.accept(new Recorder(), true);
+	}
+
+	/**
+	 * Adds the tokens of {@code other} from {@code from} on.
+	 */
+	void append(TokenBuffer other, int from) {
+		for (int i = from; i < other.size; i++) {
+			JsonToken token = other.token(i);
+			int start = other.tokens[3 * i + 1];
+			int end = other.tokens[3 * i + 2];
+			String comment = other.comment(i);
+			if (comment != null) {
+				setComment(comment);
+			}
+			if (token == JsonToken.NAME || token == JsonToken.STRING || token == JsonToken.NUMBER) {
+				add(token, other.chars, start, end - start);
+			} else {
+				add(token, start, end);
+			}
+		}
+	}
+
+	void add(JsonToken token) {
+		add(token, 0, 0);
+	}
+
+	JsonToken token(int index) {
+		return TOKENS[tokens[3 * index]];
+	}
+
+	String text(int index) {
+		int start = tokens[3 * index + 1];
+		return new String(chars, start, tokens[3 * index + 2] - start);
+	}
+
+	boolean textEquals(int index, String text) {
+		int start = tokens[3 * index + 1];
+		int length = tokens[3 * index + 2] - start;
+		if (length != text.length()) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (chars[start + i] != text.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Copies the text of a token to the start of {@code dest}.
+	 *
+	 * @return the length of the text.
+	 */
+	int copyText(int index, char[] dest) {
+		int start = tokens[3 * index + 1];
+		int length = tokens[3 * index + 2] - start;
+		System.arraycopy(chars, start, dest, 0, length);
+		return length;
+	}
+
+	boolean booleanValue(int index) {
+		return tokens[3 * index + 1] != 0;
+	}
+
+	/**
+	 * Returns the comments before a token, or null if there were none.
+	 */
+	@Nullable String comment(int index) {
+		return comments != null && index < comments.length ? comments[index] : null;
+	}
+
+	/**
+	 * Keeps a comment for the next token added.
+	 */
+	private void setComment(String comment) {
+		if (comments == null || comments.length <= size) {
+			int capacity = Math.max(size + 1, tokens.length / 3);
+			comments = comments != null ? Arrays.copyOf(comments, capacity) : new String[capacity];
+		}
+		comments[size] = comment;
+	}
+
+	private void add(JsonToken token, int start, int end) {
+		if (3 * size == tokens.length) {
+			tokens = Arrays.copyOf(tokens, tokens.length * 2);
+		}
+		int i = 3 * size++;
+		tokens[i] = token.ordinal();
+		tokens[i + 1] = start;
+		tokens[i + 2] = end;
+	}
+
+	private void add(JsonToken token, char[] text, int offset, int count) {
+		if (chars.length - length < count) {
+			chars = Arrays.copyOf(chars, Math.max(length + count, chars.length * 2));
+		}
+		System.arraycopy(text, offset, chars, length, count);
+		add(token, length, length + count);
+		length += count;
+	}
+
+	private final class Recorder implements JsonVisitor {
+		@Override
+		public void onComment(CharSequence comment) {
+			setComment(comment.toString());
+		}
+
+		@Override
+		public void onBeginObject() {
+			add(JsonToken.BEGIN_OBJECT, 0, 0);
+		}
+
+		@Override
+		public void onEndObject() {
+			add(JsonToken.END_OBJECT, 0, 0);
+		}
+
+		@Override
+		public void onBeginArray() {
+			add(JsonToken.BEGIN_ARRAY, 0, 0);
+		}
+
+		@Override
+		public void onEndArray() {
+			add(JsonToken.END_ARRAY, 0, 0);
+		}
+
+		@Override
+		public void onName(char[] chars, int offset, int length) {
+			add(JsonToken.NAME, chars, offset, length);
+		}
+
+		@Override
+		public void onString(char[] chars, int offset, int length) {
+			add(JsonToken.STRING, chars, offset, length);
+		}
+
+		@Override
+		public void onNumber(char[] chars, int offset, int length) {
+			add(JsonToken.NUMBER, chars, offset, length);
+		}
+
+		@Override
+		public void onBoolean(boolean value) {
+			add(JsonToken.BOOLEAN, value ? 1 : 0, 0);
+		}
+
+		@Override
+		public void onNull() {
+			add(JsonToken.NULL, 0, 0);
+		}
+	}
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2021 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.json5.exception;
+
+/**
+ * The kinds of error a {@link org.quiltmc.json5.JsonReader} reports. Unlike the message of an exception, which may
+ * name the character or limit involved, these stay the same between releases, so they can be used to tell errors
+ * apart.
+ */
+@Deprecated
+public enum ErrorCode {
+	/** The input ended inside an object or array, or before the document had a value. */
+	UNEXPECTED_END_OF_INPUT,
+	/** Something other than a comma or {@code ]} followed an element of an array. */
+	UNTERMINATED_ARRAY,
+	/** Something other than a comma or <code>}</code> followed a member of an object. */
+	UNTERMINATED_OBJECT,
+	/** Something other than a name was found where the name of a member was expected. */
+	EXPECTED_NAME,
+	/** The name of a member was not followed by a colon. */
+	EXPECTED_COLON,
+	/** A value was missing where one was expected. */
+	EXPECTED_VALUE,
+	/** A comma was found where a value was expected. */
+	UNEXPECTED_COMMA,
+	/** A {@code ]} was found outside of any array. */
+	UNEXPECTED_CLOSING_BRACKET,
+	/** An unquoted value is neither {@code true}, {@code false}, {@code null} nor a valid number. */
+	INVALID_LITERAL,
+	/** The input ended inside a string. */
+	UNTERMINATED_STRING,
+	/** The input ended inside a block comment. */
+	UNTERMINATED_COMMENT,
+	/** The input ended inside an escape sequence. */
+	UNTERMINATED_ESCAPE,
+	/** A backslash was followed by something other than a known escape sequence. */
+	INVALID_ESCAPE,
+	/** A strict JSON reader found syntax which only JSON5 allows. */
+	JSON5_ONLY,
+	/** The input uses syntax which only lenient Gson accepts. */
+	LENIENT_ONLY,
+	/** Objects and arrays were nested deeper than the reader's maximum depth. */
+	DEPTH_LIMIT,
+	/** A name or string was longer than the reader's maximum string length. */
+	STRING_LENGTH_LIMIT,
+	/** A number was longer than the reader's maximum number length. */
+	NUMBER_LENGTH_LIMIT,
+	/** The input was longer than the reader's maximum document length. */
+	DOCUMENT_LENGTH_LIMIT,
+	/** An object had more members than the reader's maximum. */
+	NAMES_PER_OBJECT_LIMIT
+}
@@ -51,4 +51,9 @@ public class FormatViolationException extends ParseException {
 	public FormatViolationException(JsonReader reader, String message, Throwable cause) {
 		super(reader, message, cause);
 	}
+
+	public FormatViolationException(ErrorCode code, String reason, long line, int column, long offset, Object[] path,
+			boolean writableStackTrace) {
+		super(code, reason, line, column, offset, path, writableStackTrace);
+	}
 }
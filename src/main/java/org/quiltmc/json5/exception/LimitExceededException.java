@@ -0,0 +1,63 @@
+/*
+ * Copyright 2021 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.json5.exception;
+
+import org.quiltmc.json5.JsonReader;
+
+/**
+ * An exception to be thrown by a parser when the input goes past one of the limits set on it, such as the deepest
+ * nesting or the longest string it will accept.
+ */
+@Deprecated
+public class LimitExceededException extends ParseException {
+	public LimitExceededException() {
+		super();
+	}
+
+	public LimitExceededException(String message) {
+		super(message);
+	}
+
+	public LimitExceededException(Throwable cause) {
+		super(cause);
+	}
+
+	public LimitExceededException(String message, Throwable cause) {
+		super(message, cause);
+	}
+
+	public LimitExceededException(JsonReader reader) {
+		super(reader, "Limit exceeded");
+	}
+
+	public LimitExceededException(JsonReader reader, String message) {
+		super(reader, message);
+	}
+
+	public LimitExceededException(JsonReader reader, Throwable cause) {
+		super(reader, "Limit exceeded", cause);
+	}
+
+	public LimitExceededException(JsonReader reader, String message, Throwable cause) {
+		super(reader, message, cause);
+	}
+
+	public LimitExceededException(ErrorCode code, String reason, long line, int column, long offset, Object[] path,
+			boolean writableStackTrace) {
+		super(code, reason, line, column, offset, path, writableStackTrace);
+	}
+}
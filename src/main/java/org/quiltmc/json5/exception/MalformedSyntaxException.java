@@ -54,4 +54,9 @@ public class MalformedSyntaxException extends ParseException {
 	public MalformedSyntaxException(JsonReader reader, String message, Throwable cause) {
 		super(reader, message, cause);
 	}
+
+	public MalformedSyntaxException(ErrorCode code, String reason, long line, int column, long offset, Object[] path,
+			boolean writableStackTrace) {
+		super(code, reason, line, column, offset, path, writableStackTrace);
+	}
 }
@@ -16,6 +16,7 @@
 
 package org.quiltmc.json5.exception;
 
+import org.jetbrains.annotations.Nullable;
 import org.quiltmc.json5.JsonReader;
 
 /**
@@ -23,6 +24,18 @@ import org.quiltmc.json5.JsonReader;
  */
 @Deprecated
 public class ParseException extends RuntimeException {
+	/**
+	 * The error and where it happened, for exceptions thrown by a {@link JsonReader}. The message is only built from
+	 * these once it is asked for.
+	 */
+	private @Nullable ErrorCode code;
+	private @Nullable String reason;
+	private long line = -1;
+	private int column = -1;
+	private long offset = -1;
+	private @Nullable Object[] path;
+	private @Nullable String message;
+
 	public ParseException() {
 		super();
 	}
@@ -54,4 +67,96 @@ public class ParseException extends RuntimeException {
 	public ParseException(JsonReader reader, String message, Throwable cause) {
 		super(String.format("%s %s", message, reader.path()), cause);
 	}
+
+	/**
+	 * Creates an exception for an error at a known location, which formats its message only when it is asked for.
+	 *
+	 * @param reason what went wrong, which the message starts with.
+	 * @param path the enclosing arrays and objects, outermost first: the index of the element for an array, and the
+	 * name of the member for an object, or an empty string if it has not been read.
+	 * @param writableStackTrace whether to capture the stack trace, which is most of the cost of creating an
+	 * exception.
+	 */
+	public ParseException(ErrorCode code, String reason, long line, int column, long offset, Object[] path,
+			boolean writableStackTrace) {
+		super(null, null, true, writableStackTrace);
+		this.code = code;
+		this.reason = reason;
+		this.line = line;
+		this.column = column;
+		this.offset = offset;
+		this.path = path;
+	}
+
+	@Override
+	public String getMessage() {
+		if (reason == null) {
+			return super.getMessage();
+		} else if (message == null) {
+			message = reason + " " + getPath();
+		}
+		return message;
+	}
+
+	/**
+	 * Returns the kind of error, or null if it is not known. Use this rather than the message to tell errors apart.
+	 */
+	public @Nullable ErrorCode getCode() {
+		return code;
+	}
+
+	/**
+	 * Returns what went wrong, without where. This may include the character or limit involved.
+	 */
+	public @Nullable String getReason() {
+		return reason != null ? reason : super.getMessage();
+	}
+
+	/**
+	 * Returns the line of the error, counting from 1, or -1 if it is not known.
+	 */
+	public long getLine() {
+		return line;
+	}
+
+	/**
+	 * Returns the column of the error, counting from 1, or -1 if it is not known.
+	 */
+	public int getColumn() {
+		return column;
+	}
+
+	/**
+	 * Returns the number of characters before the error in the input, or -1 if it is not known.
+	 */
+	public long getOffset() {
+		return offset;
+	}
+
+	/**
+	 * Returns a <a href="http://goessner.net/articles/JsonPath/">JsonPath</a> to the error, or null if it is not
+	 * known.
+	 */
+	public @Nullable String getPath() {
+		if (path == null) {
+			return null;
+		}
+		StringBuilder result = new StringBuilder().append('$');
+		for (Object segment : path) {
+			if (segment instanceof Integer) {
+				result.append('[').append(segment).append(']');
+			} else {
+				result.append('.').append(segment);
+			}
+		}
+		return result.toString();
+	}
+
+	/**
+	 * Returns the enclosing arrays and objects of the error, outermost first, or null if they are not known. Each is
+	 * an {@link Integer} index for an array, or a {@link String} name for an object. The array is a copy.
+	 */
+	public @Nullable Object[] getPathSegments() {
+		return path != null ? path.clone() : null;
+	}
 }
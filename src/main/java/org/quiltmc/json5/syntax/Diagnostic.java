@@ -0,0 +1,56 @@
+/*
+ * Copyright 2021 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.json5.syntax;
+
+/**
+ * A problem found while parsing a {@link JsonSyntaxTree}, such as a missing comma or an unterminated string.
+ */
+@Deprecated
+public final class Diagnostic {
+	private final int offset;
+	private final int length;
+	private final String message;
+
+	Diagnostic(int offset, int length, String message) {
+		this.offset = offset;
+		this.length = length;
+		this.message = message;
+	}
+
+	/**
+	 * Returns the offset of the first character of the problem.
+	 */
+	public int offset() {
+		return offset;
+	}
+
+	/**
+	 * Returns the number of characters affected, which is zero where a token is missing.
+	 */
+	public int length() {
+		return length;
+	}
+
+	public String message() {
+		return message;
+	}
+
+	@Override
+	public String toString() {
+		return message + " at offset " + offset;
+	}
+}
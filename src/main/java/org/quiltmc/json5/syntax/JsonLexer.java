@@ -0,0 +1,245 @@
+/*
+ * Copyright 2021 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.json5.syntax;
+
+import static org.quiltmc.json5.syntax.SyntaxKind.BEGIN_ARRAY;
+import static org.quiltmc.json5.syntax.SyntaxKind.BEGIN_OBJECT;
+import static org.quiltmc.json5.syntax.SyntaxKind.BLOCK_COMMENT;
+import static org.quiltmc.json5.syntax.SyntaxKind.COLON;
+import static org.quiltmc.json5.syntax.SyntaxKind.COMMA;
+import static org.quiltmc.json5.syntax.SyntaxKind.END_ARRAY;
+import static org.quiltmc.json5.syntax.SyntaxKind.END_OBJECT;
+import static org.quiltmc.json5.syntax.SyntaxKind.FALSE;
+import static org.quiltmc.json5.syntax.SyntaxKind.IDENTIFIER;
+import static org.quiltmc.json5.syntax.SyntaxKind.LINE_COMMENT;
+import static org.quiltmc.json5.syntax.SyntaxKind.NEWLINE;
+import static org.quiltmc.json5.syntax.SyntaxKind.NULL;
+import static org.quiltmc.json5.syntax.SyntaxKind.NUMBER;
+import static org.quiltmc.json5.syntax.SyntaxKind.STRING;
+import static org.quiltmc.json5.syntax.SyntaxKind.TRUE;
+import static org.quiltmc.json5.syntax.SyntaxKind.UNKNOWN;
+import static org.quiltmc.json5.syntax.SyntaxKind.WHITESPACE;
+
+/**
+ * Splits text into tokens without decoding them. Every character belongs to exactly one token, so concatenating the
+ * tokens gives back the original text.
+ */
+final class JsonLexer {
+	private final CharSequence text;
+	private int end;
+	private int pos;
+	private int tokenStart;
+	private boolean unterminated;
+
+	JsonLexer(CharSequence text, int start, int end) {
+		this.text = text;
+		this.pos = start;
+		this.end = end;
+	}
+
+	/**
+	 * Advances to the next token.
+	 *
+	 * @return the {@link SyntaxKind} of the token, or -1 at the end of the text.
+	 */
+	int next() {
+		unterminated = false;
+		tokenStart = pos;
+		if (pos >= end) {
+			return -1;
+		}
+
+		char c = text.charAt(pos++);
+		switch (c) {
+			case '\r':
+				if (pos < end && text.charAt(pos) == '\n') {
+					pos++;
+				}
+				return NEWLINE;
+			case '\n':
+			case '\u2028':
+			case '\u2029':
+				return NEWLINE;
+			case '{':
+				return BEGIN_OBJECT;
+			case '}':
+				return END_OBJECT;
+			case '[':
+				return BEGIN_ARRAY;
+			case ']':
+				return END_ARRAY;
+			case ':':
+				return COLON;
+			case ',':
+				return COMMA;
+			case '"':
+			case '\'':
+				return string(c);
+			case '/':
+				if (pos < end && text.charAt(pos) == '/') {
+					while (pos < end && !isNewline(text.charAt(pos))) {
+						pos++;
+					}
+					return LINE_COMMENT;
+				} else if (pos < end && text.charAt(pos) == '*') {
+					pos++;
+					while (pos + 1 < end && (text.charAt(pos) != '*' || text.charAt(pos + 1) != '/')) {
+						pos++;
+					}
+					if (pos + 1 < end) {
+						pos += 2;
+					} else {
+						pos = end;
+						unterminated = true;
+					}
+					return BLOCK_COMMENT;
+				}
+				return UNKNOWN;
+		}
+
+		if (isWhitespace(c)) {
+			while (pos < end && isWhitespace(text.charAt(pos))) {
+				pos++;
+			}
+			return WHITESPACE;
+		}
+
+		while (pos < end && !isDelimiter(text.charAt(pos))) {
+			pos++;
+		}
+		return literal();
+	}
+
+	/**
+	 * Moves to {@code pos}, which must be the start of a token.
+	 */
+	void reset(int pos) {
+		this.pos = pos;
+	}
+
+	/**
+	 * Moves to {@code pos}, which must be the start of a token, and lexes up to {@code end}.
+	 */
+	void reset(int pos, int end) {
+		this.pos = pos;
+		this.end = end;
+	}
+
+	int tokenStart() {
+		return tokenStart;
+	}
+
+	int tokenEnd() {
+		return pos;
+	}
+
+	/**
+	 * Returns true if the current token is a string or block comment which reaches the end of its line or of the
+	 * text without being closed.
+	 */
+	boolean isUnterminated() {
+		return unterminated;
+	}
+
+	private int string(char quote) {
+		while (pos < end) {
+			char c = text.charAt(pos);
+			if (c == quote) {
+				pos++;
+				return STRING;
+			} else if (c == '\\') {
+				pos++;
+				// An escaped line terminator continues the string on the next line
+				if (pos + 1 < end && text.charAt(pos) == '\r' && text.charAt(pos + 1) == '\n') {
+					pos += 2;
+				} else if (pos < end) {
+					pos++;
+				}
+			} else if (c == '\n' || c == '\r') {
+				break;
+			} else {
+				pos++;
+			}
+		}
+		unterminated = true;
+		return STRING;
+	}
+
+	private int literal() {
+		int length = pos - tokenStart;
+		if (matches("true")) {
+			return TRUE;
+		} else if (matches("false")) {
+			return FALSE;
+		} else if (matches("null")) {
+			return NULL;
+		} else if (matches("NaN") || matches("Infinity")) {
+			return NUMBER;
+		}
+
+		char first = text.charAt(tokenStart);
+		if (first >= '0' && first <= '9' || first == '-' || first == '+' || first == '.' && length > 1) {
+			return NUMBER;
+		}
+		return IDENTIFIER;
+	}
+
+	private boolean matches(String keyword) {
+		int length = keyword.length();
+		if (pos - tokenStart != length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (text.charAt(tokenStart + i) != keyword.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	static boolean isNewline(char c) {
+		return c == '\n' || c == '\r' || c == '\u2028' || c == '\u2029';
+	}
+
+	/**
+	 * Returns true for the whitespace allowed between JSON5 tokens, other than line terminators.
+	 */
+	static boolean isWhitespace(char c) {
+		return c == ' ' || c == '\t' || c == '\u000b' || c == '\f' || c == '\u00a0' || c == '\ufeff'
+				|| c > 0x7f && !isNewline(c) && Character.getType(c) == Character.SPACE_SEPARATOR;
+	}
+
+	/**
+	 * Returns true for the characters which end an unquoted name or value.
+	 */
+	static boolean isDelimiter(char c) {
+		switch (c) {
+			case '{':
+			case '}':
+			case '[':
+			case ']':
+			case ':':
+			case ',':
+			case '"':
+			case '\'':
+			case '/':
+				return true;
+			default:
+				return isNewline(c) || isWhitespace(c);
+		}
+	}
+}
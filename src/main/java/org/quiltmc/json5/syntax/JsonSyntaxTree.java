@@ -0,0 +1,765 @@
+/*
+ * Copyright 2021 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.json5.syntax;
+
+import org.jetbrains.annotations.Nullable;
+import org.quiltmc.json5.tree.JsonElement;
+import org.quiltmc.json5.tree.JsonString;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A lossless syntax tree of a JSON5 document, for editing files written by people without disturbing their comments
+ * and formatting.
+ *
+ * <p>Every character of the source is kept in the tree: whitespace, comments, quote styles and the spelling of numbers
+ * all survive, so {@link #text()} returns the original text until the tree is edited. Edits such as
+ * {@link #setValue(String, String...)} and {@link #remove(String...)} only touch the affected span of the document,
+ * and each is recorded as a {@link TextEdit} so that callers can patch the original text rather than rewriting it:
+ *
+ * <pre>   {@code
+ *   JsonSyntaxTree tree = JsonSyntaxTree.parse(path);
+ *   tree.setValue("8080", "server", "port");
+ *   tree.remove("server", "legacy");
+ *   tree.write(writer); // everything but the two edited spans comes out byte for byte
+ * }</pre>
+ *
+ * <p>Parsing never fails. Malformed input produces {@link SyntaxKind#ERROR} nodes, which are reported by
+ * {@link #diagnostics()}. Text typed into the document can be applied with {@link #edit(int, int, String)}, which
+ * only re-parses the entries around the change, so a tree can follow an editor keystroke by keystroke.
+ *
+ * <p>Paths address object members by name and array elements by their index, written in decimal. If an object has
+ * the same name more than once, the last member is used, since that is the one a {@link org.quiltmc.json5.JsonReader}
+ * based loader would see.
+ */
+@Deprecated
+public final class JsonSyntaxTree {
+	private static final SyntaxNode[] NONE = new SyntaxNode[0];
+
+	private SyntaxNode root;
+	private final List<TextEdit> edits = new ArrayList<>();
+
+	private JsonSyntaxTree(SyntaxNode root) {
+		this.root = root;
+	}
+
+	public static JsonSyntaxTree parse(String text) {
+		return new JsonSyntaxTree(SyntaxParser.parse(text));
+	}
+
+	public static JsonSyntaxTree parse(Path path) throws IOException {
+		return parse(new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+	}
+
+	public static JsonSyntaxTree parse(Reader in) throws IOException {
+		StringBuilder builder = new StringBuilder();
+		char[] buffer = new char[8192];
+		for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+			builder.append(buffer, 0, read);
+		}
+		return parse(builder.toString());
+	}
+
+	/**
+	 * Returns the {@link SyntaxKind#DOCUMENT} node at the root of the tree.
+	 */
+	public SyntaxNode root() {
+		return root;
+	}
+
+	/**
+	 * Returns the length of the document.
+	 */
+	public int length() {
+		return root.width();
+	}
+
+	public boolean hasErrors() {
+		return root.hasErrors();
+	}
+
+	/**
+	 * Returns the problems in the document, in order.
+	 */
+	public List<Diagnostic> diagnostics() {
+		List<Diagnostic> diagnostics = new ArrayList<>();
+		collectDiagnostics(root, 0, diagnostics);
+		return diagnostics;
+	}
+
+	/**
+	 * Returns the value at {@code path}, or null if there is no such value. An empty path returns the top-level value.
+	 */
+	public @Nullable SyntaxNode find(String... path) {
+		Cursor cursor = resolve(path);
+		return cursor.resolved == path.length ? cursor.node() : null;
+	}
+
+	/**
+	 * Returns the offset of the value at {@code path}, or -1 if there is no such value.
+	 */
+	public int offsetOf(String... path) {
+		Cursor cursor = resolve(path);
+		return cursor.resolved == path.length ? cursor.offset() : -1;
+	}
+
+	/**
+	 * Sets the value at {@code path}. An existing value is replaced in place, keeping the comments and whitespace
+	 * around it. A missing member is added after the last member of its object, following the layout of its siblings;
+	 * missing objects along the path are created. An array element can be added by using the length of the array as
+	 * the index.
+	 *
+	 * @param json5 the JSON5 text of the new value, written into the document as is.
+	 * @throws IllegalArgumentException if {@code json5} is not a single well-formed value, or if {@code path} leads
+	 * into a value which is not an object or array, or to an index past the end of an array.
+	 */
+	public void setValue(String json5, String... path) {
+		SyntaxNode value = parseValue(json5);
+		Cursor cursor = resolve(path);
+		if (cursor.resolved == path.length) {
+			replaceCurrent(cursor, value);
+			return;
+		}
+
+		SyntaxNode container = cursor.node();
+		String segment = path[cursor.resolved];
+		String nested = nest(path, cursor.resolved + 1, value.text());
+		if (container.kind() == SyntaxKind.OBJECT) {
+			SyntaxNode sibling = lastEntry(container);
+			String member = key(segment, sibling) + separator(sibling) + nested;
+			insertEntry(cursor, parseValue("{" + member + "}").child(1));
+		} else if (container.kind() == SyntaxKind.ARRAY && parseIndex(segment) == entryCount(container)) {
+			insertEntry(cursor, parseValue(nested));
+		} else if (container.kind() == SyntaxKind.ERROR && container.width() == 0) {
+			// The document, or a member, is missing its value altogether
+			replaceCurrent(cursor, parseValue(nest(path, cursor.resolved, value.text())));
+		} else {
+			throw new IllegalArgumentException("Cannot set " + Arrays.toString(path) + ": no " + segment
+					+ " in " + SyntaxKind.name(container.kind()));
+		}
+	}
+
+	/**
+	 * Sets the value at {@code path} to {@code value}, written as compact JSON5.
+	 *
+	 * @see #setValue(String, String...)
+	 */
+	public void setValue(JsonElement value, String... path) {
+		setValue(value.toString(), path);
+	}
+
+	/**
+	 * Removes the member or array element at {@code path}, along with the comments on the lines before it, and the
+	 * comma and any comment after it on its line. If it was the last entry, the comma after the previous entry is
+	 * removed instead.
+	 *
+	 * @return true if there was such a value.
+	 */
+	public boolean remove(String... path) {
+		Cursor cursor = resolve(path);
+		if (path.length == 0 || cursor.resolved != path.length) {
+			return false;
+		}
+		int index = cursor.index();
+		cursor.up();
+		if (cursor.node().kind() == SyntaxKind.MEMBER) {
+			index = cursor.index();
+			cursor.up();
+		}
+
+		SyntaxNode container = cursor.node();
+		int runStart = index;
+		while (runStart > 0 && container.child(runStart - 1).isTrivia()) {
+			runStart--;
+		}
+		// Start from the first line break, so that a comment on the same line as the previous entry stays with it
+		int start = runStart;
+		while (start < index && container.child(start).kind() != SyntaxKind.NEWLINE) {
+			start++;
+		}
+		boolean inline = start == index;
+		if (inline) {
+			start = runStart;
+		}
+
+		int next = index + 1;
+		while (next < container.childCount() && (container.child(next).kind() == SyntaxKind.WHITESPACE
+				|| container.child(next).kind() == SyntaxKind.BLOCK_COMMENT)) {
+			next++;
+		}
+		boolean comma = next < container.childCount() && container.child(next).kind() == SyntaxKind.COMMA;
+		int end = index + 1;
+		if (comma) {
+			end = next + 1;
+			// For "{a: 1, b: 2}", take the space after the comma too when there was none before the entry
+			if (inline && runStart == index && end < container.childCount()
+					&& container.child(end).kind() == SyntaxKind.WHITESPACE) {
+				end++;
+			}
+		}
+		if (!inline) {
+			// A comment at the end of the entry's line belongs to it
+			while (end < container.childCount() && container.child(end).isTrivia()
+					&& container.child(end).kind() != SyntaxKind.NEWLINE) {
+				end++;
+			}
+		}
+
+		splice(cursor, start, end, NONE);
+		if (!comma && runStart > 0 && cursor.node().child(runStart - 1).kind() == SyntaxKind.COMMA) {
+			splice(cursor, runStart - 1, runStart, NONE);
+		}
+		return true;
+	}
+
+	/**
+	 * Replaces {@code removedLength} characters at {@code offset} with {@code text} and updates the tree to match, as
+	 * if the edited text had been parsed from scratch.
+	 *
+	 * <p>Only the entries touching the edit in the innermost object or array around it are lexed and parsed again.
+	 * The rest of the tree is shared with the previous one, as are any objects and arrays in the re-parsed entries
+	 * which the edit does not reach. If the edit changes the structure around it, for example by opening a string or
+	 * removing a bracket, the enclosing containers are tried in turn, and finally the whole document.
+	 *
+	 * @throws IndexOutOfBoundsException if the removed span is not inside the document.
+	 */
+	public void edit(int offset, int removedLength, String text) {
+		TextEdit edit = new TextEdit(offset, removedLength, text);
+		if (offset + removedLength > root.width()) {
+			throw new IndexOutOfBoundsException("Edit at " + offset + " removing " + removedLength
+					+ " characters is outside a document of length " + root.width());
+		}
+
+		// Find the objects and arrays whose contents hold the whole edit, innermost last
+		Cursor cursor = new Cursor(root);
+		int[] containers = new int[8];
+		int count = 0;
+		int child;
+		while ((child = enclosingChild(cursor.node(), cursor.offset(), edit)) >= 0) {
+			cursor.down(child);
+			int kind = cursor.node().kind();
+			if (kind == SyntaxKind.OBJECT || kind == SyntaxKind.ARRAY) {
+				if (count == containers.length) {
+					containers = Arrays.copyOf(containers, count * 2);
+				}
+				containers[count++] = cursor.depth;
+			}
+		}
+
+		edits.add(edit);
+		for (int i = count - 1; i >= 0; i--) {
+			cursor.depth = containers[i];
+			if (reparseEntries(cursor, edit)) {
+				return;
+			}
+		}
+
+		Map<Integer, SyntaxNode> reusable = new HashMap<>();
+		collectReusable(root, 0, 0, edit, reusable);
+		StringBuilder updated = new StringBuilder(root.width() + text.length());
+		root.appendTo(updated);
+		edit.applyTo(updated);
+		root = SyntaxParser.parse(updated.toString(), reusable);
+	}
+
+	public void edit(TextEdit edit) {
+		edit(edit.offset(), edit.removedLength(), edit.text());
+	}
+
+	/**
+	 * Returns the edits made since the tree was parsed or this method was last called, and forgets them. Applying
+	 * them in order to the text at that time gives the current {@link #text()}.
+	 */
+	public List<TextEdit> takeEdits() {
+		List<TextEdit> result = new ArrayList<>(edits);
+		edits.clear();
+		return result;
+	}
+
+	public void write(Writer out) throws IOException {
+		write(root, out);
+	}
+
+	/**
+	 * Returns the text of the document.
+	 */
+	public String text() {
+		return root.text();
+	}
+
+	@Override
+	public String toString() {
+		return text();
+	}
+
+	private Cursor resolve(String[] path) {
+		Cursor cursor = new Cursor(root);
+		cursor.down(root.valueIndex());
+		for (String segment : path) {
+			SyntaxNode node = cursor.node();
+			int child;
+			if (node.kind() == SyntaxKind.OBJECT) {
+				child = memberIndex(node, segment);
+			} else if (node.kind() == SyntaxKind.ARRAY) {
+				child = entryIndex(node, parseIndex(segment));
+			} else {
+				child = -1;
+			}
+			if (child < 0) {
+				break;
+			}
+
+			cursor.down(child);
+			if (node.kind() == SyntaxKind.OBJECT) {
+				cursor.down(cursor.node().childCount() - 1);
+			}
+			cursor.resolved++;
+		}
+		return cursor;
+	}
+
+	private void replaceCurrent(Cursor cursor, SyntaxNode value) {
+		int index = cursor.index();
+		cursor.up();
+		splice(cursor, index, index + 1, new SyntaxNode[] { value });
+	}
+
+	/**
+	 * Adds {@code entry} after the last entry of the object or array at {@code cursor}, copying the layout of the
+	 * entries before it.
+	 */
+	private void insertEntry(Cursor cursor, SyntaxNode entry) {
+		SyntaxNode container = cursor.node();
+		int close = container.childCount() - 1;
+		int last = -1;
+		String newline = null;
+		for (int i = 1; i < close; i++) {
+			SyntaxNode child = container.child(i);
+			if (child.isEntry()) {
+				last = i;
+			} else if (newline == null && child.kind() == SyntaxKind.NEWLINE) {
+				newline = child.text();
+			}
+		}
+
+		if (last < 0) {
+			if (newline != null) {
+				String indent = indentBefore(container, close);
+				indent += indent.isEmpty() || indent.indexOf('\t') >= 0 ? "\t" : "  ";
+				splice(cursor, 1, 1, layout(newline, indent, entry, false));
+			} else if (container.child(close - 1).kind() == SyntaxKind.WHITESPACE) {
+				splice(cursor, close, close, new SyntaxNode[] { entry, SyntaxNode.token(SyntaxKind.WHITESPACE, " ") });
+			} else {
+				splice(cursor, close, close, new SyntaxNode[] { entry });
+			}
+			return;
+		}
+
+		int comma = last + 1;
+		while (comma < close && container.child(comma).isTrivia()) {
+			comma++;
+		}
+		boolean trailingComma = container.child(comma).kind() == SyntaxKind.COMMA;
+		SyntaxNode commaToken = SyntaxNode.token(SyntaxKind.COMMA, ",");
+		if (newline != null) {
+			// Insert on a new line after any comment on the last entry's line
+			int at = trailingComma ? comma + 1 : last + 1;
+			while (at < close && container.child(at).kind() != SyntaxKind.NEWLINE) {
+				at++;
+			}
+			splice(cursor, at, at, layout(newline, indentBefore(container, last), entry, trailingComma));
+			if (!trailingComma) {
+				splice(cursor, last + 1, last + 1, new SyntaxNode[] { commaToken });
+			}
+		} else if (trailingComma) {
+			splice(cursor, comma + 1, comma + 1,
+					new SyntaxNode[] { SyntaxNode.token(SyntaxKind.WHITESPACE, " "), entry, commaToken });
+		} else {
+			splice(cursor, last + 1, last + 1,
+					new SyntaxNode[] { commaToken, SyntaxNode.token(SyntaxKind.WHITESPACE, " "), entry });
+		}
+	}
+
+	/**
+	 * Re-parses the entries touching {@code edit} in the object or array at {@code cursor}.
+	 *
+	 * @return false if the edit cannot be applied to the entries on their own.
+	 */
+	private boolean reparseEntries(Cursor cursor, TextEdit edit) {
+		SyntaxNode container = cursor.node();
+		int editStart = edit.offset();
+		int editEnd = editStart + edit.removedLength();
+		int first = 1;
+		int last = 0;
+		int fragmentStart = editStart;
+		int childStart = cursor.offset() + container.child(0).width();
+		for (int i = 1; i < container.childCount() - 1; i++) {
+			int childEnd = childStart + container.child(i).width();
+			// Include the neighbours on either side, in case the edit joins a token to theirs
+			if (childEnd >= editStart && childStart <= editEnd) {
+				if (first > last) {
+					first = i;
+					fragmentStart = childStart;
+				}
+				last = i;
+			}
+			childStart = childEnd;
+		}
+
+		// A missing comma before the first entry is reported again when it is parsed
+		while (first > 1 && container.child(first - 1).width() == 0) {
+			first--;
+		}
+
+		StringBuilder fragment = new StringBuilder();
+		Map<Integer, SyntaxNode> reusable = new HashMap<>();
+		for (int i = first, start = fragmentStart; i <= last; start += container.child(i++).width()) {
+			container.child(i).appendTo(fragment);
+			collectReusable(container.child(i), start, fragmentStart, edit, reusable);
+		}
+		fragment.replace(editStart - fragmentStart, editEnd - fragmentStart, edit.text());
+		int limit = fragment.length();
+		// The closing bracket guarantees that there is a next character
+		fragment.append(firstChar(container, last + 1));
+
+		int objects = 0;
+		int arrays = 0;
+		for (int depth = 1; depth <= cursor.depth; depth++) {
+			int kind = cursor.nodes[depth].kind();
+			if (kind == SyntaxKind.OBJECT) {
+				objects++;
+			} else if (kind == SyntaxKind.ARRAY) {
+				arrays++;
+			}
+		}
+		boolean[] afterEntry = new boolean[1];
+		SyntaxNode[] entries = SyntaxParser.parseEntries(fragment.toString(), limit, reusable, container.kind(),
+				objects, arrays, SyntaxParser.isAfterEntry(container, first), afterEntry);
+		// The entries after the fragment were parsed expecting a comma or not; that must still hold
+		if (entries == null || afterEntry[0] != SyntaxParser.isAfterEntry(container, last + 1)) {
+			return false;
+		}
+		replaceChildren(cursor, first, last + 1, entries);
+		return true;
+	}
+
+	/**
+	 * Returns the index of the child of {@code node} which holds the whole of {@code edit}, or -1. The edit must be
+	 * inside the brackets of an object or array.
+	 */
+	private static int enclosingChild(SyntaxNode node, int offset, TextEdit edit) {
+		int editStart = edit.offset();
+		int editEnd = editStart + edit.removedLength();
+		for (int i = 0; i < node.childCount() && offset <= editStart; i++) {
+			SyntaxNode child = node.child(i);
+			int start = offset;
+			int end = offset + child.width();
+			offset = end;
+			if (child.isToken()) {
+				continue;
+			} else if (child.kind() == SyntaxKind.OBJECT || child.kind() == SyntaxKind.ARRAY) {
+				if (!child.child(child.childCount() - 1).isToken()) {
+					// Without its closing bracket, the container's end depends on what follows it
+					continue;
+				}
+				start += child.child(0).width();
+				end -= child.child(child.childCount() - 1).width();
+			}
+			if (start <= editStart && editEnd <= end) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Adds the objects and arrays without errors in {@code node} which {@code edit} does not reach to
+	 * {@code reusable}, by their offset from {@code base} once the edit is made.
+	 */
+	private static void collectReusable(SyntaxNode node, int offset, int base, TextEdit edit,
+			Map<Integer, SyntaxNode> reusable) {
+		if (node.isToken()) {
+			return;
+		}
+		int editStart = edit.offset();
+		int editEnd = editStart + edit.removedLength();
+		if ((node.kind() == SyntaxKind.OBJECT || node.kind() == SyntaxKind.ARRAY) && !node.hasErrors()) {
+			if (offset + node.width() <= editStart) {
+				reusable.put(offset - base, node);
+				return;
+			} else if (offset >= editEnd) {
+				reusable.put(offset - base + edit.text().length() - edit.removedLength(), node);
+				return;
+			}
+		}
+		for (int i = 0; i < node.childCount(); i++) {
+			collectReusable(node.child(i), offset, base, edit, reusable);
+			offset += node.child(i).width();
+		}
+	}
+
+	/**
+	 * Returns the first character of the children of {@code node} from {@code index} on.
+	 */
+	private static char firstChar(SyntaxNode node, int index) {
+		while (!node.isToken()) {
+			while (node.child(index).width() == 0) {
+				index++;
+			}
+			node = node.child(index);
+			index = 0;
+		}
+		return node.text().charAt(0);
+	}
+
+	private static SyntaxNode[] layout(String newline, String indent, SyntaxNode entry, boolean comma) {
+		List<SyntaxNode> nodes = new ArrayList<>(4);
+		nodes.add(SyntaxNode.token(SyntaxKind.NEWLINE, newline));
+		if (!indent.isEmpty()) {
+			nodes.add(SyntaxNode.token(SyntaxKind.WHITESPACE, indent));
+		}
+		nodes.add(entry);
+		if (comma) {
+			nodes.add(SyntaxNode.token(SyntaxKind.COMMA, ","));
+		}
+		return nodes.toArray(NONE);
+	}
+
+	/**
+	 * Replaces the children of the node at {@code cursor} from {@code from} to {@code to}, rebuilding the nodes above
+	 * it and recording the edit.
+	 */
+	private void splice(Cursor cursor, int from, int to, SyntaxNode[] replacement) {
+		SyntaxNode container = cursor.node();
+		int offset = cursor.offset();
+		for (int i = 0; i < from; i++) {
+			offset += container.child(i).width();
+		}
+		int removed = 0;
+		for (int i = from; i < to; i++) {
+			removed += container.child(i).width();
+		}
+		StringBuilder inserted = new StringBuilder();
+		for (SyntaxNode node : replacement) {
+			node.appendTo(inserted);
+		}
+		replaceChildren(cursor, from, to, replacement);
+		edits.add(new TextEdit(offset, removed, inserted.toString()));
+	}
+
+	private void replaceChildren(Cursor cursor, int from, int to, SyntaxNode[] replacement) {
+		cursor.nodes[cursor.depth] = cursor.node().replace(from, to, replacement);
+		for (int depth = cursor.depth - 1; depth >= 0; depth--) {
+			int index = cursor.indices[depth];
+			cursor.nodes[depth] = cursor.nodes[depth].replace(index, index + 1,
+					new SyntaxNode[] { cursor.nodes[depth + 1] });
+		}
+		root = cursor.nodes[0];
+	}
+
+	private static SyntaxNode parseValue(String json5) {
+		SyntaxNode document = SyntaxParser.parse(json5);
+		if (document.hasErrors()) {
+			throw new IllegalArgumentException("Malformed value: " + json5);
+		}
+		return document.value();
+	}
+
+	private static String nest(String[] path, int from, String value) {
+		for (int i = path.length - 1; i >= from; i--) {
+			value = "{" + key(path[i], null) + ": " + value + "}";
+		}
+		return value;
+	}
+
+	/**
+	 * Returns {@code name} written as a member name, quoted if it has to be or if {@code sibling} is.
+	 */
+	private static String key(String name, @Nullable SyntaxNode sibling) {
+		boolean quoted = sibling != null && sibling.child(0).kind() == SyntaxKind.STRING
+				|| name.isEmpty() || !Character.isJavaIdentifierStart(name.charAt(0));
+		for (int i = 1; i < name.length() && !quoted; i++) {
+			quoted = !Character.isJavaIdentifierPart(name.charAt(i));
+		}
+		return quoted ? new JsonString(name).toString() : name;
+	}
+
+	/**
+	 * Returns the text between the name and the value of {@code sibling}, if it is only a colon and whitespace.
+	 */
+	private static String separator(@Nullable SyntaxNode sibling) {
+		if (sibling == null) {
+			return ": ";
+		}
+		StringBuilder separator = new StringBuilder();
+		for (int i = 1; i < sibling.childCount() - 1; i++) {
+			SyntaxNode child = sibling.child(i);
+			if (child.kind() != SyntaxKind.COLON && child.kind() != SyntaxKind.WHITESPACE) {
+				return ": ";
+			}
+			separator.append(child.text());
+		}
+		return separator.toString();
+	}
+
+	/**
+	 * Returns the whitespace at the start of the line of the child at {@code index}, if nothing else comes before it
+	 * on that line.
+	 */
+	private static String indentBefore(SyntaxNode container, int index) {
+		if (index >= 2 && container.child(index - 1).kind() == SyntaxKind.WHITESPACE
+				&& container.child(index - 2).kind() == SyntaxKind.NEWLINE) {
+			return container.child(index - 1).text();
+		}
+		return "";
+	}
+
+	private static @Nullable SyntaxNode lastEntry(SyntaxNode container) {
+		for (int i = container.childCount() - 1; i >= 0; i--) {
+			if (container.child(i).kind() == SyntaxKind.MEMBER) {
+				return container.child(i);
+			}
+		}
+		return null;
+	}
+
+	private static int memberIndex(SyntaxNode object, String name) {
+		for (int i = object.childCount() - 1; i >= 0; i--) {
+			SyntaxNode child = object.child(i);
+			if (child.kind() == SyntaxKind.MEMBER && name.equals(child.name())) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static int entryIndex(SyntaxNode array, int entry) {
+		if (entry < 0) {
+			return -1;
+		}
+		for (int i = 0; i < array.childCount(); i++) {
+			if (array.child(i).isEntry() && entry-- == 0) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static int entryCount(SyntaxNode array) {
+		int count = 0;
+		for (int i = 0; i < array.childCount(); i++) {
+			if (array.child(i).isEntry()) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private static int parseIndex(String segment) {
+		try {
+			return Integer.parseInt(segment);
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	private static void collectDiagnostics(SyntaxNode node, int offset, List<Diagnostic> diagnostics) {
+		if (node.kind() == SyntaxKind.ERROR) {
+			diagnostics.add(new Diagnostic(offset, node.width(), node.message()));
+		}
+		for (int i = 0; i < node.childCount(); i++) {
+			SyntaxNode child = node.child(i);
+			if (child.hasErrors()) {
+				collectDiagnostics(child, offset, diagnostics);
+			}
+			offset += child.width();
+		}
+	}
+
+	private static void write(SyntaxNode node, Writer out) throws IOException {
+		if (node.isToken()) {
+			out.write(node.text());
+		} else {
+			for (int i = 0; i < node.childCount(); i++) {
+				write(node.child(i), out);
+			}
+		}
+	}
+
+	/**
+	 * The path from the root to a node, with the offset of each node along the way.
+	 */
+	private static final class Cursor {
+		SyntaxNode[] nodes = new SyntaxNode[8];
+		int[] offsets = new int[8];
+		/** The index of each node on the path within the node before it. */
+		int[] indices = new int[8];
+		int depth = 0;
+		/** The number of path segments which lead to existing values. */
+		int resolved = 0;
+
+		Cursor(SyntaxNode root) {
+			nodes[0] = root;
+		}
+
+		SyntaxNode node() {
+			return nodes[depth];
+		}
+
+		int offset() {
+			return offsets[depth];
+		}
+
+		/**
+		 * Returns the index of the current node within its parent.
+		 */
+		int index() {
+			return indices[depth - 1];
+		}
+
+		void down(int index) {
+			if (depth + 1 == nodes.length) {
+				nodes = Arrays.copyOf(nodes, nodes.length * 2);
+				offsets = Arrays.copyOf(offsets, offsets.length * 2);
+				indices = Arrays.copyOf(indices, indices.length * 2);
+			}
+			SyntaxNode parent = nodes[depth];
+			int offset = offsets[depth];
+			for (int i = 0; i < index; i++) {
+				offset += parent.child(i).width();
+			}
+			indices[depth] = index;
+			depth++;
+			nodes[depth] = parent.child(index);
+			offsets[depth] = offset;
+		}
+
+		void up() {
+			depth--;
+		}
+	}
+}
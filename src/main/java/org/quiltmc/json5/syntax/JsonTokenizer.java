@@ -0,0 +1,196 @@
+/*
+ * Copyright 2021 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.json5.syntax;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Splits JSON5 text into tokens without decoding them, for tools such as syntax highlighters and linters which only
+ * need to know where tokens are. Whitespace, newlines and comments are tokens too, so the tokens cover every
+ * character of the input, and malformed input never fails: characters which can't start a token become
+ * {@link SyntaxKind#UNKNOWN} tokens, and unterminated strings and comments run to the end of the line or input.
+ *
+ * <p>Tokens are handed out in batches:
+ * <pre>{@code
+ * JsonTokenizer tokenizer = JsonTokenizer.of(reader);
+ * TokenBatch batch = new TokenBatch(1024);
+ * while (tokenizer.next(batch) > 0) {
+ *   for (int i = 0; i < batch.size(); i++) {
+ *     highlight(batch.kind(i), batch.start(i), batch.end(i));
+ *   }
+ * }
+ * }</pre>
+ *
+ * <p>When reading from a {@link Reader}, only a window of the input around the current token is kept in memory.
+ */
+@Deprecated
+public final class JsonTokenizer implements Closeable {
+	private final Reader in;
+	private final CharSequence text;
+	private final JsonLexer lexer;
+	/** The input from {@code in} which has been read but not tokenized yet is kept in {@code window}. */
+	private final Window window;
+	/** The offset in the input of the first character of {@link #text}. */
+	private long base = 0;
+	private int pos = 0;
+	private int end;
+	private boolean eof;
+	private long line = 1;
+
+	private JsonTokenizer(Reader in, CharSequence text, Window window, int end, boolean eof) {
+		this.in = in;
+		this.text = text;
+		this.window = window;
+		this.end = end;
+		this.eof = eof;
+		this.lexer = new JsonLexer(text, 0, end);
+	}
+
+	public static JsonTokenizer of(CharSequence text) {
+		return new JsonTokenizer(null, text, null, text.length(), true);
+	}
+
+	public static JsonTokenizer of(Reader in) {
+		Window window = new Window(new char[8192]);
+		return new JsonTokenizer(in, window, window, 0, false);
+	}
+
+	public static JsonTokenizer of(Path path) throws IOException {
+		return of(Files.newBufferedReader(path));
+	}
+
+	/**
+	 * Fills {@code batch} with the next tokens, replacing its contents.
+	 *
+	 * @return the number of tokens in the batch, which is only zero at the end of the input.
+	 * @throws IOException if reading fails.
+	 */
+	public int next(TokenBatch batch) throws IOException {
+		batch.clear();
+		while (!batch.isFull()) {
+			lexer.reset(pos, end);
+			int kind = lexer.next();
+			int tokenEnd = lexer.tokenEnd();
+			if (kind == -1 || tokenEnd == end && !eof) {
+				// The token may go on past what has been read so far
+				if (!fill()) {
+					break;
+				}
+				continue;
+			}
+
+			batch.add(kind, base + pos, base + tokenEnd, line);
+			if (kind == SyntaxKind.NEWLINE) {
+				line++;
+			} else if (kind == SyntaxKind.BLOCK_COMMENT || kind == SyntaxKind.STRING) {
+				line += countNewlines(pos, tokenEnd);
+			}
+			pos = tokenEnd;
+		}
+		return batch.size();
+	}
+
+	/**
+	 * Returns the offset of the next token.
+	 */
+	public long offset() {
+		return base + pos;
+	}
+
+	/**
+	 * Closes the underlying {@link Reader}, if there is one.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (in != null) {
+			in.close();
+		}
+	}
+
+	private int countNewlines(int start, int end) {
+		int count = 0;
+		for (int i = start; i < end; i++) {
+			char c = text.charAt(i);
+			if (JsonLexer.isNewline(c) && !(c == '\r' && i + 1 < end && text.charAt(i + 1) == '\n')) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Reads more input, keeping the part from {@code pos} on.
+	 *
+	 * @return false if the input had already ended.
+	 */
+	private boolean fill() throws IOException {
+		if (eof) {
+			return false;
+		}
+		char[] chars = window.chars;
+		if (pos > 0) {
+			System.arraycopy(chars, pos, chars, 0, end - pos);
+			base += pos;
+			end -= pos;
+			pos = 0;
+		}
+		if (end == chars.length) {
+			// A single token fills the whole window
+			chars = window.chars = Arrays.copyOf(chars, chars.length * 2);
+		}
+		int read = in.read(chars, end, chars.length - end);
+		if (read == -1) {
+			eof = true;
+		} else {
+			end += read;
+		}
+		return true;
+	}
+
+	private static final class Window implements CharSequence {
+		char[] chars;
+
+		Window(char[] chars) {
+			this.chars = chars;
+		}
+
+		@Override
+		public int length() {
+			return chars.length;
+		}
+
+		@Override
+		public char charAt(int index) {
+			return chars[index];
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			return new String(chars, start, end - start);
+		}
+
+		@Override
+		public String toString() {
+			return new String(chars);
+		}
+	}
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2021 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.json5.syntax;
+
+/**
+ * The kinds of tokens and nodes of a {@link JsonSyntaxTree}.
+ */
+@Deprecated
+public final class SyntaxKind {
+	/** A run of spaces, tabs and other non-newline whitespace. */
+	public static final int WHITESPACE = 0;
+	/** A single line terminator: {@code \n}, {@code \r\n}, {@code \r}, U+2028 or U+2029. */
+	public static final int NEWLINE = 1;
+	/** A {@code //} comment, not including the line terminator. */
+	public static final int LINE_COMMENT = 2;
+	/** A {@code /* *&#47;} comment. */
+	public static final int BLOCK_COMMENT = 3;
+	public static final int BEGIN_OBJECT = 4;
+	public static final int END_OBJECT = 5;
+	public static final int BEGIN_ARRAY = 6;
+	public static final int END_ARRAY = 7;
+	public static final int COLON = 8;
+	public static final int COMMA = 9;
+	/** A single or double quoted string, including its quotes. */
+	public static final int STRING = 10;
+	/** A number, including hexadecimal numbers, {@code NaN} and {@code Infinity}, spelt as written. */
+	public static final int NUMBER = 11;
+	public static final int TRUE = 12;
+	public static final int FALSE = 13;
+	public static final int NULL = 14;
+	/** An unquoted name. */
+	public static final int IDENTIFIER = 15;
+	/** A character which cannot start any token. */
+	public static final int UNKNOWN = 16;
+
+	/** The root of a tree: the top-level value with the whitespace and comments around it. */
+	public static final int DOCUMENT = 32;
+	public static final int OBJECT = 33;
+	public static final int ARRAY = 34;
+	/** A name, a colon and a value, with the whitespace and comments between them. */
+	public static final int MEMBER = 35;
+	/** Tokens which do not fit the grammar, or a zero-width placeholder for a missing token. */
+	public static final int ERROR = 36;
+
+	private SyntaxKind() {
+	}
+
+	/**
+	 * Returns true for whitespace, newlines and comments.
+	 */
+	public static boolean isTrivia(int kind) {
+		return kind <= BLOCK_COMMENT;
+	}
+
+	/**
+	 * Returns true for kinds which are tokens rather than nodes.
+	 */
+	public static boolean isToken(int kind) {
+		return kind < DOCUMENT;
+	}
+
+	public static String name(int kind) {
+		switch (kind) {
+			case WHITESPACE:
+				return "WHITESPACE";
+			case NEWLINE:
+				return "NEWLINE";
+			case LINE_COMMENT:
+				return "LINE_COMMENT";
+			case BLOCK_COMMENT:
+				return "BLOCK_COMMENT";
+			case BEGIN_OBJECT:
+				return "BEGIN_OBJECT";
+			case END_OBJECT:
+				return "END_OBJECT";
+			case BEGIN_ARRAY:
+				return "BEGIN_ARRAY";
+			case END_ARRAY:
+				return "END_ARRAY";
+			case COLON:
+				return "COLON";
+			case COMMA:
+				return "COMMA";
+			case STRING:
+				return "STRING";
+			case NUMBER:
+				return "NUMBER";
+			case TRUE:
+				return "TRUE";
+			case FALSE:
+				return "FALSE";
+			case NULL:
+				return "NULL";
+			case IDENTIFIER:
+				return "IDENTIFIER";
+			case UNKNOWN:
+				return "UNKNOWN";
+			case DOCUMENT:
+				return "DOCUMENT";
+			case OBJECT:
+				return "OBJECT";
+			case ARRAY:
+				return "ARRAY";
+			case MEMBER:
+				return "MEMBER";
+			case ERROR:
+				return "ERROR";
+			default:
+				throw new IllegalArgumentException("Unknown kind " + kind);
+		}
+	}
+}
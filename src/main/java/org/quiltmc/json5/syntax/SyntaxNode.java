@@ -0,0 +1,226 @@
+/*
+ * Copyright 2021 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.json5.syntax;
+
+import org.jetbrains.annotations.Nullable;
+import org.quiltmc.json5.JsonReader;
+
+import java.io.IOException;
+
+/**
+ * An immutable token or node of a {@link JsonSyntaxTree}.
+ *
+ * <p>Tokens hold their exact source text. Nodes hold their children and only know their own width, not their position
+ * in the document, so unchanged nodes can be shared between the trees before and after an edit. Positions are worked
+ * out by {@link JsonSyntaxTree} while walking down from the root.
+ */
+@Deprecated
+public final class SyntaxNode {
+	private static final SyntaxNode[] NO_CHILDREN = new SyntaxNode[0];
+
+	private final int kind;
+	private final String text;
+	private final SyntaxNode[] children;
+	private final int width;
+	private final String message;
+	private final boolean hasErrors;
+
+	private SyntaxNode(int kind, String text, SyntaxNode[] children, int width, String message, boolean hasErrors) {
+		this.kind = kind;
+		this.text = text;
+		this.children = children;
+		this.width = width;
+		this.message = message;
+		this.hasErrors = hasErrors;
+	}
+
+	static SyntaxNode token(int kind, String text) {
+		return new SyntaxNode(kind, text, NO_CHILDREN, text.length(), null, false);
+	}
+
+	static SyntaxNode node(int kind, SyntaxNode[] children) {
+		return node(kind, children, null);
+	}
+
+	/**
+	 * Creates an {@link SyntaxKind#ERROR} node. With no children, it marks the place of a missing token.
+	 */
+	static SyntaxNode error(String message, SyntaxNode... children) {
+		return node(SyntaxKind.ERROR, children, message);
+	}
+
+	private static SyntaxNode node(int kind, SyntaxNode[] children, String message) {
+		int width = 0;
+		boolean hasErrors = message != null;
+		for (SyntaxNode child : children) {
+			width += child.width;
+			hasErrors |= child.hasErrors;
+		}
+		return new SyntaxNode(kind, null, children, width, message, hasErrors);
+	}
+
+	/**
+	 * Returns the {@link SyntaxKind} of this token or node.
+	 */
+	public int kind() {
+		return kind;
+	}
+
+	public boolean isToken() {
+		return text != null;
+	}
+
+	/**
+	 * Returns true for whitespace, newlines and comments.
+	 */
+	public boolean isTrivia() {
+		return SyntaxKind.isTrivia(kind);
+	}
+
+	/**
+	 * Returns the length of the source text of this token or node.
+	 */
+	public int width() {
+		return width;
+	}
+
+	/**
+	 * Returns the exact source text of this token or node, including any whitespace and comments inside it.
+	 */
+	public String text() {
+		if (text != null) {
+			return text;
+		}
+		StringBuilder builder = new StringBuilder(width);
+		appendTo(builder);
+		return builder.toString();
+	}
+
+	public int childCount() {
+		return children.length;
+	}
+
+	/**
+	 * @throws IndexOutOfBoundsException if {@code index} is out of range.
+	 */
+	public SyntaxNode child(int index) {
+		return children[index];
+	}
+
+	/**
+	 * Returns the description of the problem for {@link SyntaxKind#ERROR} nodes, or null for any other kind.
+	 */
+	public @Nullable String message() {
+		return message;
+	}
+
+	/**
+	 * Returns true if this node is or contains an {@link SyntaxKind#ERROR} node.
+	 */
+	public boolean hasErrors() {
+		return hasErrors;
+	}
+
+	/**
+	 * Returns the decoded name of a {@link SyntaxKind#MEMBER}, or null for any other kind or if the name is malformed.
+	 */
+	public @Nullable String name() {
+		if (kind != SyntaxKind.MEMBER) {
+			return null;
+		}
+		SyntaxNode key = children[0];
+		if (key.kind == SyntaxKind.STRING) {
+			try {
+				return JsonReader.json5(key.text).nextString();
+			} catch (IOException | IllegalStateException e) {
+				return null;
+			}
+		}
+		return key.isToken() ? key.text : null;
+	}
+
+	/**
+	 * Returns the value of a {@link SyntaxKind#MEMBER} or {@link SyntaxKind#DOCUMENT}, or null for any other kind or
+	 * if the document has no value. The value may be an {@link SyntaxKind#ERROR} node if it is malformed or missing.
+	 */
+	public @Nullable SyntaxNode value() {
+		if (kind == SyntaxKind.MEMBER) {
+			return children[children.length - 1];
+		} else if (kind == SyntaxKind.DOCUMENT) {
+			int index = valueIndex();
+			return index < 0 ? null : children[index];
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the index of the top-level value of a document, or -1.
+	 */
+	int valueIndex() {
+		for (int i = 0; i < children.length; i++) {
+			if (!children[i].isTrivia()) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns true if this is an entry of an object or array: a member, or a value which is not an error.
+	 */
+	boolean isEntry() {
+		switch (kind) {
+			case SyntaxKind.MEMBER:
+			case SyntaxKind.OBJECT:
+			case SyntaxKind.ARRAY:
+			case SyntaxKind.STRING:
+			case SyntaxKind.NUMBER:
+			case SyntaxKind.TRUE:
+			case SyntaxKind.FALSE:
+			case SyntaxKind.NULL:
+				return true;
+			default:
+				return false;
+		}
+	}
+
+	/**
+	 * Returns a copy of this node with the children from {@code from} to {@code to} replaced.
+	 */
+	SyntaxNode replace(int from, int to, SyntaxNode[] replacement) {
+		SyntaxNode[] result = new SyntaxNode[children.length - (to - from) + replacement.length];
+		System.arraycopy(children, 0, result, 0, from);
+		System.arraycopy(replacement, 0, result, from, replacement.length);
+		System.arraycopy(children, to, result, from + replacement.length, children.length - to);
+		return node(kind, result, message);
+	}
+
+	void appendTo(StringBuilder builder) {
+		if (text != null) {
+			builder.append(text);
+		} else {
+			for (SyntaxNode child : children) {
+				child.appendTo(builder);
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return text();
+	}
+}
@@ -0,0 +1,341 @@
+/*
+ * Copyright 2021 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.json5.syntax;
+
+import static org.quiltmc.json5.syntax.SyntaxKind.ARRAY;
+import static org.quiltmc.json5.syntax.SyntaxKind.BEGIN_ARRAY;
+import static org.quiltmc.json5.syntax.SyntaxKind.BEGIN_OBJECT;
+import static org.quiltmc.json5.syntax.SyntaxKind.BLOCK_COMMENT;
+import static org.quiltmc.json5.syntax.SyntaxKind.COLON;
+import static org.quiltmc.json5.syntax.SyntaxKind.COMMA;
+import static org.quiltmc.json5.syntax.SyntaxKind.END_ARRAY;
+import static org.quiltmc.json5.syntax.SyntaxKind.END_OBJECT;
+import static org.quiltmc.json5.syntax.SyntaxKind.ERROR;
+import static org.quiltmc.json5.syntax.SyntaxKind.FALSE;
+import static org.quiltmc.json5.syntax.SyntaxKind.IDENTIFIER;
+import static org.quiltmc.json5.syntax.SyntaxKind.NULL;
+import static org.quiltmc.json5.syntax.SyntaxKind.NUMBER;
+import static org.quiltmc.json5.syntax.SyntaxKind.OBJECT;
+import static org.quiltmc.json5.syntax.SyntaxKind.STRING;
+import static org.quiltmc.json5.syntax.SyntaxKind.TRUE;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A recursive descent parser which never gives up: anything which does not fit the grammar is wrapped in an
+ * {@link SyntaxKind#ERROR} node, and missing tokens are marked with empty ones, so that every character of the input
+ * ends up in the tree.
+ *
+ * <p>When re-parsing part of a document after an edit, objects and arrays from the previous tree can be passed in by
+ * offset. Where one of them starts, the parser takes it as is and moves the lexer past it without looking at its text.
+ */
+final class SyntaxParser {
+	private static final SyntaxNode[] EMPTY = new SyntaxNode[0];
+
+	private final String text;
+	private final JsonLexer lexer;
+	/** The end of the text to parse. The text may carry one more character to check that the last token ends here. */
+	private final int limit;
+	private final Map<Integer, SyntaxNode> reusable;
+
+	private int kind;
+	private int start;
+	private int end;
+	private boolean unterminated;
+
+	/** The number of enclosing objects and arrays, used to tell which container a stray closing bracket belongs to. */
+	private int openObjects;
+	private int openArrays;
+
+	/** Set if a token runs past the limit, or an object, array or member is still unfinished there. */
+	private boolean incomplete = false;
+
+	private SyntaxParser(String text, int limit, Map<Integer, SyntaxNode> reusable, int openObjects, int openArrays) {
+		this.text = text;
+		this.lexer = new JsonLexer(text, 0, text.length());
+		this.limit = limit;
+		this.reusable = reusable;
+		this.openObjects = openObjects;
+		this.openArrays = openArrays;
+		advance();
+	}
+
+	static SyntaxNode parse(String text) {
+		return parse(text, Collections.emptyMap());
+	}
+
+	static SyntaxNode parse(String text, Map<Integer, SyntaxNode> reusable) {
+		return new SyntaxParser(text, text.length(), reusable, 0, 0).document();
+	}
+
+	/**
+	 * Parses the text as a run of the entries of an object or array, as if it appeared in the middle of a container of
+	 * that kind.
+	 *
+	 * @param text the text to parse, followed by the character after it in the document, if there is one.
+	 * @param limit the length of the text to parse.
+	 * @param afterEntry whether the text comes after an entry with no comma after it yet.
+	 * @param afterEntryOut receives whether the last entry in the text is not followed by a comma.
+	 * @return the parsed nodes, or null if parsing the text in place would give a different result, because a token
+	 * runs on past the text, a bracket in it closes the container, or an object or array in it is not closed.
+	 */
+	static @Nullable SyntaxNode[] parseEntries(String text, int limit, Map<Integer, SyntaxNode> reusable,
+			int containerKind, int openObjects, int openArrays, boolean afterEntry, boolean[] afterEntryOut) {
+		SyntaxParser parser = new SyntaxParser(text, limit, reusable, openObjects, openArrays);
+		List<SyntaxNode> children = new ArrayList<>();
+		boolean after = parser.entries(containerKind, children, afterEntry);
+		if (parser.kind != -1 || parser.incomplete) {
+			return null;
+		}
+		afterEntryOut[0] = after;
+		return children.toArray(EMPTY);
+	}
+
+	/**
+	 * Returns whether the entry before {@code index} in {@code container} would leave the parser expecting a comma,
+	 * recovering the state that {@link #entries} had at that point.
+	 */
+	static boolean isAfterEntry(SyntaxNode container, int index) {
+		for (int i = index - 1; i > 0; i--) {
+			SyntaxNode child = container.child(i);
+			if (child.isEntry()) {
+				return true;
+			} else if (child.kind() == COMMA) {
+				return false;
+			} else if (child.kind() == ERROR && child.childCount() == 1) {
+				int wrapped = child.child(0).kind();
+				if (wrapped == COMMA) {
+					return false;
+				} else if (container.kind() == ARRAY && wrapped != COLON && wrapped != END_OBJECT) {
+					// Malformed values still count as entries of arrays
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private SyntaxNode document() {
+		List<SyntaxNode> children = new ArrayList<>();
+		trivia(children);
+		if (kind == -1) {
+			children.add(SyntaxNode.error("Expected a value"));
+		} else {
+			children.add(value());
+		}
+		while (kind != -1) {
+			if (!trivia(children)) {
+				children.add(unexpected());
+			}
+		}
+		return SyntaxNode.node(SyntaxKind.DOCUMENT, children.toArray(EMPTY));
+	}
+
+	private SyntaxNode value() {
+		switch (kind) {
+			case BEGIN_OBJECT:
+			case BEGIN_ARRAY:
+				return container();
+			case STRING:
+				return string();
+			case NUMBER:
+			case TRUE:
+			case FALSE:
+			case NULL:
+				return token();
+			default:
+				return unexpected();
+		}
+	}
+
+	private SyntaxNode container() {
+		SyntaxNode reused = reusable.get(start);
+		if (reused != null) {
+			lexer.reset(start + reused.width());
+			advance();
+			return reused;
+		}
+		return kind == BEGIN_OBJECT ? object() : array();
+	}
+
+	private SyntaxNode object() {
+		List<SyntaxNode> children = new ArrayList<>();
+		children.add(token());
+		openObjects++;
+		entries(OBJECT, children, false);
+		if (kind == END_OBJECT) {
+			children.add(token());
+		} else {
+			incomplete |= kind == -1;
+			children.add(SyntaxNode.error("Expected '}'"));
+		}
+		openObjects--;
+		return SyntaxNode.node(OBJECT, children.toArray(EMPTY));
+	}
+
+	private SyntaxNode array() {
+		List<SyntaxNode> children = new ArrayList<>();
+		children.add(token());
+		openArrays++;
+		entries(ARRAY, children, false);
+		if (kind == END_ARRAY) {
+			children.add(token());
+		} else {
+			incomplete |= kind == -1;
+			children.add(SyntaxNode.error("Expected ']'"));
+		}
+		openArrays--;
+		return SyntaxNode.node(ARRAY, children.toArray(EMPTY));
+	}
+
+	/**
+	 * Parses the entries of an object or array, stopping at the end of the input or at a closing bracket which ends
+	 * the container.
+	 *
+	 * @return whether the last entry was not followed by a comma.
+	 */
+	private boolean entries(int containerKind, List<SyntaxNode> children, boolean afterEntry) {
+		boolean object = containerKind == OBJECT;
+		while (kind != -1) {
+			if (trivia(children)) {
+				continue;
+			} else if (kind == (object ? END_OBJECT : END_ARRAY)
+					|| kind == (object ? END_ARRAY : END_OBJECT) && (object ? openArrays : openObjects) > 0) {
+				break;
+			}
+
+			if (kind == COMMA) {
+				children.add(afterEntry ? token() : unexpected());
+				afterEntry = false;
+			} else if (kind == COLON || kind == END_ARRAY || kind == END_OBJECT) {
+				children.add(unexpected());
+			} else if (!object) {
+				if (afterEntry) {
+					children.add(SyntaxNode.error("Expected ',' or ']'"));
+				}
+				children.add(value());
+				afterEntry = true;
+			} else if (kind == STRING || kind == IDENTIFIER || kind == TRUE || kind == FALSE || kind == NULL) {
+				if (afterEntry) {
+					children.add(SyntaxNode.error("Expected ',' or '}'"));
+				}
+				children.add(member());
+				afterEntry = true;
+			} else if (kind == NUMBER) {
+				children.add(SyntaxNode.error("Expected a name", token()));
+			} else {
+				children.add(unexpected());
+			}
+		}
+		return afterEntry;
+	}
+
+	private SyntaxNode member() {
+		List<SyntaxNode> children = new ArrayList<>();
+		children.add(kind == STRING ? string() : token());
+		trivia(children);
+		if (kind == COLON) {
+			children.add(token());
+		} else {
+			incomplete |= kind == -1;
+			children.add(SyntaxNode.error("Expected ':'"));
+		}
+		trivia(children);
+		if (kind == -1 || kind == COMMA || kind == COLON || kind == END_OBJECT || kind == END_ARRAY) {
+			incomplete |= kind == -1;
+			children.add(SyntaxNode.error("Expected a value"));
+		} else {
+			children.add(value());
+		}
+		return SyntaxNode.node(SyntaxKind.MEMBER, children.toArray(EMPTY));
+	}
+
+	private SyntaxNode string() {
+		return unterminated ? SyntaxNode.error("Unterminated string", token()) : token();
+	}
+
+	/**
+	 * Wraps the current token in an error. A stray object or array is parsed and wrapped as a whole, so that its
+	 * contents don't produce errors of their own.
+	 */
+	private SyntaxNode unexpected() {
+		String message;
+		switch (kind) {
+			case BEGIN_OBJECT:
+				return SyntaxNode.error("Unexpected object", container());
+			case BEGIN_ARRAY:
+				return SyntaxNode.error("Unexpected array", container());
+			case IDENTIFIER:
+				message = "Unexpected identifier";
+				break;
+			case STRING:
+				message = "Unexpected string";
+				break;
+			case NUMBER:
+			case TRUE:
+			case FALSE:
+			case NULL:
+				message = "Unexpected value";
+				break;
+			default:
+				message = "Unexpected '" + text.charAt(start) + "'";
+		}
+		return SyntaxNode.error(message, token());
+	}
+
+	/**
+	 * Adds the whitespace and comments at the current position to {@code children}.
+	 *
+	 * @return true if there were any.
+	 */
+	private boolean trivia(List<SyntaxNode> children) {
+		boolean any = false;
+		while (kind != -1 && SyntaxKind.isTrivia(kind)) {
+			if (kind == BLOCK_COMMENT && unterminated) {
+				children.add(SyntaxNode.error("Unterminated comment", token()));
+			} else {
+				children.add(token());
+			}
+			any = true;
+		}
+		return any;
+	}
+
+	private SyntaxNode token() {
+		SyntaxNode token = SyntaxNode.token(kind, text.substring(start, end));
+		advance();
+		return token;
+	}
+
+	private void advance() {
+		kind = lexer.next();
+		start = lexer.tokenStart();
+		end = lexer.tokenEnd();
+		unterminated = lexer.isUnterminated();
+		if (kind != -1 && start >= limit) {
+			kind = -1;
+		} else if (end > limit) {
+			incomplete = true;
+			kind = -1;
+		}
+	}
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2021 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.json5.syntax;
+
+/**
+ * A replacement of a span of text: {@code removedLength} characters at {@code offset} are replaced with {@code text}.
+ */
+@Deprecated
+public final class TextEdit {
+	private final int offset;
+	private final int removedLength;
+	private final String text;
+
+	public TextEdit(int offset, int removedLength, String text) {
+		if (offset < 0 || removedLength < 0) {
+			throw new IllegalArgumentException("offset < 0 || removedLength < 0");
+		}
+		if (text == null) {
+			throw new NullPointerException("text == null");
+		}
+		this.offset = offset;
+		this.removedLength = removedLength;
+		this.text = text;
+	}
+
+	public int offset() {
+		return offset;
+	}
+
+	public int removedLength() {
+		return removedLength;
+	}
+
+	/**
+	 * Returns the text inserted in place of the removed span.
+	 */
+	public String text() {
+		return text;
+	}
+
+	/**
+	 * Applies this edit to {@code builder}.
+	 *
+	 * @throws IndexOutOfBoundsException if the removed span is not inside {@code builder}.
+	 */
+	public void applyTo(StringBuilder builder) {
+		if (offset + removedLength > builder.length()) {
+			throw new IndexOutOfBoundsException("Edit at " + offset + " removing " + removedLength
+					+ " characters is outside a text of length " + builder.length());
+		}
+		builder.replace(offset, offset + removedLength, text);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (!(o instanceof TextEdit)) {
+			return false;
+		}
+		TextEdit other = (TextEdit) o;
+		return offset == other.offset && removedLength == other.removedLength && text.equals(other.text);
+	}
+
+	@Override
+	public int hashCode() {
+		return (offset * 31 + removedLength) * 31 + text.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return "TextEdit(" + offset + ", " + removedLength + ", \"" + text + "\")";
+	}
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2021 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.json5.syntax;
+
+/**
+ * A reusable batch of tokens filled by {@link JsonTokenizer#next(TokenBatch)}, stored in parallel primitive arrays so
+ * that tokenizing doesn't allocate an object per token.
+ */
+@Deprecated
+public final class TokenBatch {
+	private final int[] kinds;
+	private final long[] starts;
+	private final long[] ends;
+	private final long[] lines;
+	private int size;
+
+	public TokenBatch(int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+		}
+		this.kinds = new int[capacity];
+		this.starts = new long[capacity];
+		this.ends = new long[capacity];
+		this.lines = new long[capacity];
+	}
+
+	public int capacity() {
+		return kinds.length;
+	}
+
+	/**
+	 * Returns the number of tokens in the batch.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the {@link SyntaxKind} of a token.
+	 *
+	 * @throws IndexOutOfBoundsException if {@code index} is not less than {@link #size()}.
+	 */
+	public int kind(int index) {
+		checkIndex(index);
+		return kinds[index];
+	}
+
+	/**
+	 * Returns the offset of the first character of a token. Offsets are longs, so that inputs of any length can be
+	 * tokenized.
+	 *
+	 * @throws IndexOutOfBoundsException if {@code index} is not less than {@link #size()}.
+	 */
+	public long start(int index) {
+		checkIndex(index);
+		return starts[index];
+	}
+
+	/**
+	 * Returns the offset after the last character of a token.
+	 *
+	 * @throws IndexOutOfBoundsException if {@code index} is not less than {@link #size()}.
+	 */
+	public long end(int index) {
+		checkIndex(index);
+		return ends[index];
+	}
+
+	/**
+	 * Returns the line a token starts on, counting from 1.
+	 *
+	 * @throws IndexOutOfBoundsException if {@code index} is not less than {@link #size()}.
+	 */
+	public long line(int index) {
+		checkIndex(index);
+		return lines[index];
+	}
+
+	void clear() {
+		size = 0;
+	}
+
+	boolean isFull() {
+		return size == kinds.length;
+	}
+
+	void add(int kind, long start, long end, long line) {
+		kinds[size] = kind;
+		starts[size] = start;
+		ends[size] = end;
+		lines[size] = line;
+		size++;
+	}
+
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+		}
+	}
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2021 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.json5.tree;
+
+import org.jetbrains.annotations.Nullable;
+import org.quiltmc.json5.JsonWriter;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A mutable JSON array.
+ */
+@Deprecated
+public final class JsonArray extends JsonElement implements Iterable<JsonElement> {
+	private static final JsonElement[] EMPTY = new JsonElement[0];
+
+	private JsonElement[] values = EMPTY;
+	/** The comment before each element, or null until the first comment is set. */
+	private String[] comments = null;
+	private int size = 0;
+	private String trailingComment;
+
+	public JsonArray() {
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * @throws IndexOutOfBoundsException if {@code index} is out of range.
+	 */
+	public JsonElement get(int index) {
+		checkIndex(index);
+		return values[index];
+	}
+
+	public JsonArray add(JsonElement value) {
+		if (value == null) {
+			throw new NullPointerException("value == null");
+		}
+		if (size == values.length) {
+			grow();
+		}
+		values[size++] = value;
+		return this;
+	}
+
+	public JsonArray add(String value) {
+		return add(new JsonString(value));
+	}
+
+	public JsonArray add(long value) {
+		return add(new JsonNumber(value));
+	}
+
+	public JsonArray add(double value) {
+		return add(new JsonNumber(value));
+	}
+
+	public JsonArray add(boolean value) {
+		return add(JsonBoolean.of(value));
+	}
+
+	/**
+	 * Replaces the element at {@code index}, keeping its comment.
+	 *
+	 * @return the previous element.
+	 * @throws IndexOutOfBoundsException if {@code index} is out of range.
+	 */
+	public JsonElement set(int index, JsonElement value) {
+		if (value == null) {
+			throw new NullPointerException("value == null");
+		}
+		checkIndex(index);
+		JsonElement previous = values[index];
+		values[index] = value;
+		return previous;
+	}
+
+	/**
+	 * Removes the element at {@code index} along with its comment.
+	 *
+	 * @return the removed element.
+	 * @throws IndexOutOfBoundsException if {@code index} is out of range.
+	 */
+	public JsonElement remove(int index) {
+		checkIndex(index);
+		JsonElement previous = values[index];
+		int moved = size - index - 1;
+		System.arraycopy(values, index + 1, values, index, moved);
+		if (comments != null) {
+			System.arraycopy(comments, index + 1, comments, index, moved);
+			comments[size - 1] = null;
+		}
+		values[--size] = null;
+		return previous;
+	}
+
+	/**
+	 * Returns the comment written before the element at {@code index}, or null if there is none.
+	 */
+	public @Nullable String getComment(int index) {
+		checkIndex(index);
+		return comments == null ? null : comments[index];
+	}
+
+	/**
+	 * Sets the comment written before the element at {@code index}. Multiple lines are separated with {@code '\n'}.
+	 */
+	public void setComment(int index, @Nullable String comment) {
+		checkIndex(index);
+		if (comments == null) {
+			if (comment == null) {
+				return;
+			}
+			comments = new String[values.length];
+		}
+		comments[index] = comment;
+	}
+
+	/**
+	 * Returns the comment written after the last element, or null if there is none.
+	 */
+	public @Nullable String getTrailingComment() {
+		return trailingComment;
+	}
+
+	public void setTrailingComment(@Nullable String comment) {
+		this.trailingComment = comment;
+	}
+
+	@Override
+	public void write(JsonWriter writer) throws IOException {
+		writer.beginArray();
+		for (int i = 0; i < size; i++) {
+			if (comments != null) {
+				writer.comment(comments[i]);
+			}
+			values[i].write(writer);
+		}
+		writer.comment(trailingComment);
+		writer.endArray();
+	}
+
+	@Override
+	public boolean isArray() {
+		return true;
+	}
+
+	@Override
+	public JsonArray asArray() {
+		return this;
+	}
+
+	@Override
+	public Iterator<JsonElement> iterator() {
+		return new Iterator<JsonElement>() {
+			private int next = 0;
+
+			@Override
+			public boolean hasNext() {
+				return next < size;
+			}
+
+			@Override
+			public JsonElement next() {
+				if (next >= size) {
+					throw new NoSuchElementException();
+				}
+				return values[next++];
+			}
+		};
+	}
+
+	/**
+	 * Arrays are equal if they contain equal elements in the same order. Comments are ignored.
+	 */
+	@Override
+	public boolean equals(Object o) {
+		if (o == this) {
+			return true;
+		}
+		if (!(o instanceof JsonArray) || ((JsonArray) o).size != size) {
+			return false;
+		}
+		JsonElement[] other = ((JsonArray) o).values;
+		for (int i = 0; i < size; i++) {
+			if (!values[i].equals(other[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+		int result = 1;
+		for (int i = 0; i < size; i++) {
+			result = 31 * result + values[i].hashCode();
+		}
+		return result;
+	}
+
+	private void grow() {
+		int capacity = Math.max(4, size * 2);
+		values = Arrays.copyOf(values, capacity);
+		if (comments != null) {
+			comments = Arrays.copyOf(comments, capacity);
+		}
+	}
+
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+	}
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2021 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.json5.tree;
+
+import org.quiltmc.json5.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * A JSON {@code true} or {@code false}.
+ */
+@Deprecated
+public final class JsonBoolean extends JsonElement {
+	public static final JsonBoolean TRUE = new JsonBoolean(true);
+	public static final JsonBoolean FALSE = new JsonBoolean(false);
+
+	private final boolean value;
+
+	private JsonBoolean(boolean value) {
+		this.value = value;
+	}
+
+	public static JsonBoolean of(boolean value) {
+		return value ? TRUE : FALSE;
+	}
+
+	@Override
+	public void write(JsonWriter writer) throws IOException {
+		writer.value(value);
+	}
+
+	@Override
+	public boolean isBoolean() {
+		return true;
+	}
+
+	@Override
+	public boolean asBoolean() {
+		return value;
+	}
+}
@@ -0,0 +1,245 @@
+/*
+ * Copyright 2021 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.json5.tree;
+
+import org.jetbrains.annotations.Nullable;
+import org.quiltmc.json5.JsonReader;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A cache of parsed JSON5 files, so that loading a file which has not changed since it was last loaded costs one
+ * look at its attributes rather than a parse.
+ *
+ * <p>A file counts as unchanged while its size, modification time and file key stay the same. Where a file may be
+ * rewritten within the resolution of its modification time without changing size, {@link #setHashContent()} also
+ * compares a hash of the content, which costs reading the file but still saves parsing it.
+ *
+ * <p>Documents are kept as {@link JsonSnapshot}s, which are immutable, so the same snapshot can be handed to every
+ * caller. The cache holds files up to a total size in bytes, evicting the least recently loaded first. When a file
+ * has changed, the new snapshot {@linkplain JsonSnapshot#sharingWith shares} its unchanged sections with the old one.
+ *
+ * <p>This class is safe for use by multiple threads once configured. Files are parsed outside of any lock, so a file
+ * loaded by two threads at once may be parsed twice.
+ */
+@Deprecated
+public final class JsonCache {
+	private final long maxBytes;
+	private boolean hashContent = false;
+	private boolean retainComments = false;
+
+	/** In order of last use, for evicting the least recently used. Guarded by this. */
+	private final LinkedHashMap<Path, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private long bytes;
+	private long hits;
+	private long misses;
+
+	/**
+	 * Creates a cache holding files up to a total of {@code maxBytes}. A file bigger than that is never cached.
+	 */
+	public JsonCache(long maxBytes) {
+		if (maxBytes < 0) {
+			throw new IllegalArgumentException("Maximum size cannot be negative, but was " + maxBytes);
+		}
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * Makes the cache compare a SHA-256 hash of the content of a file as well as its attributes before reusing a
+	 * snapshot of it.
+	 */
+	public JsonCache setHashContent() {
+		this.hashContent = true;
+		return this;
+	}
+
+	/**
+	 * Makes the cache keep comments in the snapshots it parses. See {@link JsonReader#setRetainComments()}.
+	 */
+	public JsonCache setRetainComments() {
+		this.retainComments = true;
+		return this;
+	}
+
+	/**
+	 * Returns a snapshot of the JSON5 document in {@code file}, parsing it only if it is not cached or has changed.
+	 *
+	 * @throws org.quiltmc.json5.exception.ParseException if the file is malformed, in which case any snapshot of an
+	 * earlier version of it is dropped.
+	 */
+	public JsonSnapshot get(Path file) throws IOException {
+		Path key = Objects.requireNonNull(file, "Path cannot be null").toAbsolutePath().normalize();
+		BasicFileAttributes attributes = Files.readAttributes(key, BasicFileAttributes.class);
+		Entry entry;
+		synchronized (this) {
+			entry = entries.get(key);
+		}
+
+		byte[] content = null;
+		byte[] hash = null;
+		if (hashContent) {
+			content = Files.readAllBytes(key);
+			hash = sha256(content);
+		}
+		if (entry != null && entry.matches(attributes, hash)) {
+			synchronized (this) {
+				hits++;
+			}
+			return entry.snapshot;
+		}
+
+		JsonSnapshot snapshot;
+		try {
+			snapshot = parse(key, content);
+		} catch (IOException | RuntimeException e) {
+			invalidate(key);
+			throw e;
+		}
+		if (entry != null) {
+			snapshot = snapshot.sharingWith(entry.snapshot);
+		}
+		Entry updated = new Entry(attributes, hash, snapshot);
+		synchronized (this) {
+			misses++;
+			remove(key);
+			if (updated.size <= maxBytes) {
+				entries.put(key, updated);
+				bytes += updated.size;
+				evict();
+			}
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Drops any snapshot of {@code file}, so that it is parsed again the next time it is loaded.
+	 */
+	public synchronized void invalidate(Path file) {
+		remove(file.toAbsolutePath().normalize());
+	}
+
+	/**
+	 * Drops every snapshot.
+	 */
+	public synchronized void invalidateAll() {
+		entries.clear();
+		bytes = 0;
+	}
+
+	/**
+	 * Returns the number of loads which reused a cached snapshot.
+	 */
+	public synchronized long getHitCount() {
+		return hits;
+	}
+
+	/**
+	 * Returns the number of loads which parsed the file.
+	 */
+	public synchronized long getMissCount() {
+		return misses;
+	}
+
+	/**
+	 * Returns the total size of the files whose snapshots are cached.
+	 */
+	public synchronized long getCachedBytes() {
+		return bytes;
+	}
+
+	private JsonSnapshot parse(Path file, @Nullable byte[] content) throws IOException {
+		JsonReader reader;
+		if (content == null) {
+			reader = JsonReader.json5(file);
+		} else {
+			// Already read for hashing
+			reader = JsonReader.json5(new InputStreamReader(new ByteArrayInputStream(content),
+					StandardCharsets.UTF_8.newDecoder())).setSource(file.toString());
+		}
+		try {
+			if (retainComments) {
+				reader.setRetainComments();
+			}
+			JsonSnapshot snapshot = JsonSnapshot.read(reader);
+			// Throws if anything follows the value
+			reader.peek();
+			return snapshot;
+		} finally {
+			reader.close();
+		}
+	}
+
+	private void remove(Path key) {
+		Entry removed = entries.remove(key);
+		if (removed != null) {
+			bytes -= removed.size;
+		}
+	}
+
+	private void evict() {
+		Iterator<Map.Entry<Path, Entry>> iterator = entries.entrySet().iterator();
+		while (bytes > maxBytes && iterator.hasNext()) {
+			bytes -= iterator.next().getValue().size;
+			iterator.remove();
+		}
+	}
+
+	private static byte[] sha256(byte[] content) {
+		try {
+			return MessageDigest.getInstance("SHA-256").digest(content);
+		} catch (NoSuchAlgorithmException e) {
+			// Every Java platform is required to support SHA-256
+			throw new AssertionError(e);
+		}
+	}
+
+	private static final class Entry {
+		final long size;
+		final FileTime lastModified;
+		final @Nullable Object fileKey;
+		final @Nullable byte[] hash;
+		final JsonSnapshot snapshot;
+
+		Entry(BasicFileAttributes attributes, @Nullable byte[] hash, JsonSnapshot snapshot) {
+			this.size = attributes.size();
+			this.lastModified = attributes.lastModifiedTime();
+			this.fileKey = attributes.fileKey();
+			this.hash = hash;
+			this.snapshot = snapshot;
+		}
+
+		boolean matches(BasicFileAttributes attributes, @Nullable byte[] hash) {
+			return attributes.size() == size && attributes.lastModifiedTime().equals(lastModified)
+					&& Objects.equals(attributes.fileKey(), fileKey)
+					&& (hash == null || Arrays.equals(hash, this.hash));
+		}
+	}
+}
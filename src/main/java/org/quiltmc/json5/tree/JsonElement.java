@@ -0,0 +1,209 @@
+/*
+ * Copyright 2021 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.json5.tree;
+
+import org.quiltmc.json5.JsonReader;
+import org.quiltmc.json5.JsonToken;
+import org.quiltmc.json5.JsonWriter;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+/**
+ * A node of an in-memory JSON5 document.
+ *
+ * <p>Objects and arrays are mutable, and keep the comments found before each of their members. Strings, numbers,
+ * booleans and null are immutable and may be shared between trees.
+ */
+@Deprecated
+public abstract class JsonElement {
+	JsonElement() {
+	}
+
+	/**
+	 * Reads the next value of {@code reader} into a tree. Comments are kept if the reader
+	 * {@link JsonReader#retainsComments() retains comments}.
+	 *
+	 * <p>Comments before the value itself are discarded. To keep the header comment of a document, call
+	 * {@link JsonReader#peek()} and {@link JsonReader#takeComment()} before this method.
+	 *
+	 * @throws IllegalStateException if the next token is not the start of a value.
+	 */
+	public static JsonElement read(JsonReader reader) throws IOException {
+		JsonToken token = reader.peek();
+		reader.takeComment();
+		switch (token) {
+		case BEGIN_OBJECT:
+			JsonObject object = new JsonObject();
+			reader.beginObject();
+			while (reader.hasNext()) {
+				String comment = reader.takeComment();
+				String name = reader.nextName();
+				reader.peek();
+				comment = join(comment, reader.takeComment());
+				object.put(name, read(reader));
+				if (comment != null) {
+					object.setComment(name, comment);
+				}
+			}
+			object.setTrailingComment(reader.takeComment());
+			reader.endObject();
+			return object;
+		case BEGIN_ARRAY:
+			JsonArray array = new JsonArray();
+			reader.beginArray();
+			while (reader.hasNext()) {
+				String comment = reader.takeComment();
+				array.add(read(reader));
+				if (comment != null) {
+					array.setComment(array.size() - 1, comment);
+				}
+			}
+			array.setTrailingComment(reader.takeComment());
+			reader.endArray();
+			return array;
+		case STRING:
+			return new JsonString(reader.nextString());
+		case NUMBER:
+			// nextString returns the number as it was written, so nothing is parsed until the value is asked for
+			return new JsonNumber(reader.nextString());
+		case BOOLEAN:
+			return reader.nextBoolean() ? JsonBoolean.TRUE : JsonBoolean.FALSE;
+		case NULL:
+			reader.nextNull();
+			return JsonNull.INSTANCE;
+		default:
+			throw new IllegalStateException("Expected a value but was " + reader.peek() + reader.locationString());
+		}
+	}
+
+	/**
+	 * Encodes this element and everything it contains.
+	 */
+	public abstract void write(JsonWriter writer) throws IOException;
+
+	public boolean isObject() {
+		return false;
+	}
+
+	public boolean isArray() {
+		return false;
+	}
+
+	public boolean isString() {
+		return false;
+	}
+
+	public boolean isNumber() {
+		return false;
+	}
+
+	public boolean isBoolean() {
+		return false;
+	}
+
+	public boolean isNull() {
+		return false;
+	}
+
+	/**
+	 * @throws IllegalStateException if this element is not an object.
+	 */
+	public JsonObject asObject() {
+		throw unexpected("an object");
+	}
+
+	/**
+	 * @throws IllegalStateException if this element is not an array.
+	 */
+	public JsonArray asArray() {
+		throw unexpected("an array");
+	}
+
+	/**
+	 * Returns the value of this string, or the source text of this number.
+	 *
+	 * @throws IllegalStateException if this element is neither a string nor a number.
+	 */
+	public String asString() {
+		throw unexpected("a string");
+	}
+
+	/**
+	 * @throws IllegalStateException if this element is not a number.
+	 */
+	public Number asNumber() {
+		throw unexpected("a number");
+	}
+
+	/**
+	 * @throws IllegalStateException if this element is not a number.
+	 * @throws ArithmeticException if the number cannot be exactly represented as a long.
+	 */
+	public long asLong() {
+		throw unexpected("a number");
+	}
+
+	/**
+	 * @throws IllegalStateException if this element is not a number.
+	 * @throws ArithmeticException if the number cannot be exactly represented as an int.
+	 */
+	public int asInt() {
+		throw unexpected("a number");
+	}
+
+	/**
+	 * @throws IllegalStateException if this element is not a number.
+	 */
+	public double asDouble() {
+		throw unexpected("a number");
+	}
+
+	/**
+	 * @throws IllegalStateException if this element is not a boolean.
+	 */
+	public boolean asBoolean() {
+		throw unexpected("a boolean");
+	}
+
+	/**
+	 * Returns this element as compact JSON5.
+	 */
+	@Override
+	public String toString() {
+		StringWriter out = new StringWriter();
+		try {
+			JsonWriter writer = JsonWriter.json5(out);
+			writer.setCompact();
+			write(writer);
+		} catch (IOException e) {
+			throw new AssertionError(e); // StringWriter does not throw
+		}
+		return out.toString();
+	}
+
+	private IllegalStateException unexpected(String expected) {
+		return new IllegalStateException("Expected " + expected + " but was " + getClass().getSimpleName());
+	}
+
+	static String join(String first, String second) {
+		if (first == null) {
+			return second;
+		}
+		return second == null ? first : first + "\n" + second;
+	}
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright 2021 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.json5.tree;
+
+import org.quiltmc.json5.JsonWriter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * A JSON number.
+ *
+ * <p>Numbers read from a document keep their source text and are only parsed when one of the {@code as} methods is
+ * called. Numbers created from a {@code long} or a {@code double} are stored as that primitive.
+ */
+@Deprecated
+public final class JsonNumber extends JsonElement {
+	private static final int KIND_TEXT = 0;
+	private static final int KIND_LONG = 1;
+	private static final int KIND_DOUBLE = 2;
+
+	private final int kind;
+	/** The source text, when the kind is KIND_TEXT. */
+	private final String text;
+	private final long longValue;
+	private final double doubleValue;
+
+	public JsonNumber(long value) {
+		this.kind = KIND_LONG;
+		this.text = null;
+		this.longValue = value;
+		this.doubleValue = 0;
+	}
+
+	public JsonNumber(double value) {
+		this.kind = KIND_DOUBLE;
+		this.text = null;
+		this.longValue = 0;
+		this.doubleValue = value;
+	}
+
+	/**
+	 * @param text a number literal that has already been validated by a {@link org.quiltmc.json5.JsonReader}.
+	 */
+	JsonNumber(String text) {
+		this.kind = KIND_TEXT;
+		this.text = text;
+		this.longValue = 0;
+		this.doubleValue = 0;
+	}
+
+	@Override
+	public void write(JsonWriter writer) throws IOException {
+		if (kind == KIND_LONG) {
+			writer.value(longValue);
+		} else if (kind == KIND_DOUBLE) {
+			writer.value(doubleValue);
+		} else if (!writer.isStrictJson() || isJsonLiteral(text)) {
+			writer.jsonValue(text);
+		} else {
+			// Hexadecimal, NaN, Infinity or a leading/trailing decimal point, which JSON can't express as written
+			writer.value(asNumber());
+		}
+	}
+
+	@Override
+	public boolean isNumber() {
+		return true;
+	}
+
+	/**
+	 * Returns the source text of this number, or its {@code toString()} if it wasn't read from a document.
+	 */
+	@Override
+	public String asString() {
+		if (kind == KIND_LONG) {
+			return Long.toString(longValue);
+		} else if (kind == KIND_DOUBLE) {
+			return Double.toString(doubleValue);
+		}
+		return text;
+	}
+
+	/**
+	 * Returns a {@link Long} or {@link Double} for numbers created from primitives. Numbers read from a document are
+	 * returned the same way {@link org.quiltmc.json5.JsonReader#nextNumber()} would: as a {@link BigInteger} for
+	 * hexadecimal numbers, a {@link Double} for NaN and infinities, and a {@link BigDecimal} otherwise.
+	 */
+	@Override
+	public Number asNumber() {
+		if (kind == KIND_LONG) {
+			return longValue;
+		} else if (kind == KIND_DOUBLE) {
+			return doubleValue;
+		}
+
+		int start = signLength(text);
+		if (isHex(text, start)) {
+			BigInteger result = new BigInteger(text.substring(start + 2), 16);
+			return text.charAt(0) == '-' ? result.negate() : result;
+		} else if (!isFinite(text, start)) {
+			return Double.parseDouble(text);
+		}
+		return new BigDecimal(text);
+	}
+
+	/**
+	 * @throws ArithmeticException if the number cannot be exactly represented as a long.
+	 */
+	@Override
+	public long asLong() {
+		if (kind == KIND_LONG) {
+			return longValue;
+		} else if (kind == KIND_TEXT) {
+			// Fast path for the plain integers which are the overwhelming majority
+			int start = signLength(text);
+			int length = text.length();
+			if (length - start <= 18 && start < length) {
+				long result = 0;
+				int i = start;
+				for (; i < length; i++) {
+					char c = text.charAt(i);
+					if (c < '0' || c > '9') {
+						break;
+					}
+					result = result * 10 + (c - '0');
+				}
+				if (i == length) {
+					return text.charAt(0) == '-' ? -result : result;
+				}
+			}
+		}
+
+		Number number = asNumber();
+		if (number instanceof BigInteger) {
+			return ((BigInteger) number).longValueExact();
+		} else if (number instanceof BigDecimal) {
+			return ((BigDecimal) number).longValueExact();
+		}
+		return exact(number.doubleValue()).longValueExact();
+	}
+
+	/**
+	 * @throws ArithmeticException if the number cannot be exactly represented as an int.
+	 */
+	@Override
+	public int asInt() {
+		long value = asLong();
+		if ((int) value != value) {
+			throw new ArithmeticException("Overflow");
+		}
+		return (int) value;
+	}
+
+	@Override
+	public double asDouble() {
+		if (kind == KIND_DOUBLE) {
+			return doubleValue;
+		} else if (kind == KIND_LONG) {
+			return longValue;
+		} else if (isHex(text, signLength(text))) {
+			return asNumber().doubleValue();
+		}
+		// parseDouble understands signs, NaN, Infinity and leading or trailing decimal points
+		return Double.parseDouble(text);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (o == this) {
+			return true;
+		}
+		if (!(o instanceof JsonNumber)) {
+			return false;
+		}
+		JsonNumber other = (JsonNumber) o;
+		if (kind == KIND_LONG && other.kind == KIND_LONG) {
+			return longValue == other.longValue;
+		}
+		BigDecimal a = toBigDecimal();
+		BigDecimal b = other.toBigDecimal();
+		if (a == null || b == null) {
+			return a == b && Double.compare(asDouble(), other.asDouble()) == 0;
+		}
+		return a.compareTo(b) == 0;
+	}
+
+	@Override
+	public int hashCode() {
+		BigDecimal value = toBigDecimal();
+		return value == null ? Double.hashCode(asDouble()) : value.stripTrailingZeros().hashCode();
+	}
+
+	/**
+	 * Returns the value of this number, or null if it is NaN or infinite. A double is taken as the shortest decimal
+	 * which reads back as it, which is what it is written as, rather than its exact binary value, so that a number
+	 * created from a double equals the same number read back from a document.
+	 */
+	private BigDecimal toBigDecimal() {
+		if (kind == KIND_LONG) {
+			return BigDecimal.valueOf(longValue);
+		} else if (kind == KIND_DOUBLE) {
+			return Double.isNaN(doubleValue) || Double.isInfinite(doubleValue) ? null : BigDecimal.valueOf(doubleValue);
+		}
+		Number number = asNumber();
+		if (number instanceof BigInteger) {
+			return new BigDecimal((BigInteger) number);
+		}
+		return number instanceof BigDecimal ? (BigDecimal) number : null;
+	}
+
+	private static BigDecimal exact(double value) {
+		if (Double.isNaN(value) || Double.isInfinite(value)) {
+			throw new ArithmeticException("Not a finite number: " + value);
+		}
+		return new BigDecimal(value);
+	}
+
+	private static int signLength(String text) {
+		char c = text.charAt(0);
+		return c == '-' || c == '+' ? 1 : 0;
+	}
+
+	private static boolean isHex(String text, int start) {
+		return text.length() > start + 1 && text.charAt(start) == '0' && (text.charAt(start + 1) == 'x' || text.charAt(start + 1) == 'X');
+	}
+
+	private static boolean isFinite(String text, int start) {
+		char c = text.charAt(start);
+		return c != 'N' && c != 'I';
+	}
+
+	/**
+	 * Returns true if a JSON5 number literal is also a valid JSON number literal.
+	 */
+	private static boolean isJsonLiteral(String text) {
+		int start = text.charAt(0) == '-' ? 1 : 0;
+		if (text.charAt(0) == '+' || isHex(text, start) || !isFinite(text, start) || text.charAt(start) == '.') {
+			return false;
+		}
+		for (int i = start; i < text.length(); i++) {
+			// a decimal point must be followed by a digit
+			if (text.charAt(i) == '.' && (i + 1 == text.length() || text.charAt(i + 1) < '0' || text.charAt(i + 1) > '9')) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
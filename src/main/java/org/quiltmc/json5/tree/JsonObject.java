@@ -0,0 +1,280 @@
+/*
+ * Copyright 2021 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.json5.tree;
+
+import org.jetbrains.annotations.Nullable;
+import org.quiltmc.json5.JsonWriter;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A mutable JSON object which keeps its members in insertion order.
+ *
+ * <p>Members are stored in parallel arrays rather than as map entries. Small objects are searched linearly; once an
+ * object grows past a few members, an open-addressing table of member indices is built for constant time lookups.
+ */
+@Deprecated
+public final class JsonObject extends JsonElement {
+	private static final String[] NO_NAMES = new String[0];
+	private static final JsonElement[] NO_VALUES = new JsonElement[0];
+
+	private String[] names = NO_NAMES;
+	private JsonElement[] values = NO_VALUES;
+	/** The comment before each member, or null until the first comment is set. */
+	private String[] comments = null;
+	private int size = 0;
+	private String trailingComment;
+
+	/** The {@link MemberTable} of the names, or null while the object is small enough to be searched linearly. */
+	private int[] table = null;
+
+	public JsonObject() {
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public boolean has(String name) {
+		return indexOf(name) >= 0;
+	}
+
+	/**
+	 * Returns the value of the member called {@code name}, or null if there is no such member.
+	 */
+	public @Nullable JsonElement get(String name) {
+		int index = indexOf(name);
+		return index < 0 ? null : values[index];
+	}
+
+	/**
+	 * Returns the name of the member at {@code index}, in insertion order.
+	 *
+	 * @throws IndexOutOfBoundsException if {@code index} is out of range.
+	 */
+	public String nameAt(int index) {
+		checkIndex(index);
+		return names[index];
+	}
+
+	/**
+	 * Returns the value of the member at {@code index}, in insertion order.
+	 *
+	 * @throws IndexOutOfBoundsException if {@code index} is out of range.
+	 */
+	public JsonElement valueAt(int index) {
+		checkIndex(index);
+		return values[index];
+	}
+
+	/**
+	 * Returns the position of the member called {@code name} in insertion order, or -1 if there is no such member.
+	 */
+	public int indexOf(String name) {
+		return MemberTable.find(table, names, size, name);
+	}
+
+	/**
+	 * Sets the value of the member called {@code name}. A new member is added at the end; an existing member keeps its
+	 * position and comment.
+	 *
+	 * @return the previous value, or null if there was no such member.
+	 */
+	public @Nullable JsonElement put(String name, JsonElement value) {
+		if (value == null) {
+			throw new NullPointerException("value == null");
+		}
+		int index = indexOf(name);
+		if (index >= 0) {
+			JsonElement previous = values[index];
+			values[index] = value;
+			return previous;
+		}
+
+		if (size == names.length) {
+			grow();
+		}
+		names[size] = name;
+		values[size] = value;
+		size++;
+		if (table != null) {
+			MemberTable.insert(table, names, size - 1);
+		} else {
+			table = MemberTable.build(names, size, names.length);
+		}
+		return null;
+	}
+
+	public @Nullable JsonElement put(String name, String value) {
+		return put(name, new JsonString(value));
+	}
+
+	public @Nullable JsonElement put(String name, long value) {
+		return put(name, new JsonNumber(value));
+	}
+
+	public @Nullable JsonElement put(String name, double value) {
+		return put(name, new JsonNumber(value));
+	}
+
+	public @Nullable JsonElement put(String name, boolean value) {
+		return put(name, JsonBoolean.of(value));
+	}
+
+	/**
+	 * Removes the member called {@code name} along with its comment.
+	 *
+	 * @return the removed value, or null if there was no such member.
+	 */
+	public @Nullable JsonElement remove(String name) {
+		int index = indexOf(name);
+		if (index < 0) {
+			return null;
+		}
+
+		JsonElement previous = values[index];
+		int moved = size - index - 1;
+		System.arraycopy(names, index + 1, names, index, moved);
+		System.arraycopy(values, index + 1, values, index, moved);
+		if (comments != null) {
+			System.arraycopy(comments, index + 1, comments, index, moved);
+			comments[size - 1] = null;
+		}
+		size--;
+		names[size] = null;
+		values[size] = null;
+		// Every later member moved down one place, so their slots are stale
+		if (table != null) {
+			table = MemberTable.build(names, size, names.length);
+		}
+		return previous;
+	}
+
+	/**
+	 * Returns the comment written before the member called {@code name}, or null if there is none.
+	 */
+	public @Nullable String getComment(String name) {
+		int index = indexOf(name);
+		return index < 0 || comments == null ? null : comments[index];
+	}
+
+	/**
+	 * Sets the comment written before the member called {@code name}. Multiple lines are separated with {@code '\n'}.
+	 *
+	 * @throws IllegalArgumentException if there is no such member.
+	 */
+	public void setComment(String name, @Nullable String comment) {
+		int index = indexOf(name);
+		if (index < 0) {
+			throw new IllegalArgumentException("No member called " + name);
+		}
+		if (comments == null) {
+			if (comment == null) {
+				return;
+			}
+			comments = new String[names.length];
+		}
+		comments[index] = comment;
+	}
+
+	/**
+	 * Returns the comment written after the last member, or null if there is none.
+	 */
+	public @Nullable String getTrailingComment() {
+		return trailingComment;
+	}
+
+	public void setTrailingComment(@Nullable String comment) {
+		this.trailingComment = comment;
+	}
+
+	@Override
+	public void write(JsonWriter writer) throws IOException {
+		writer.beginObject();
+		for (int i = 0; i < size; i++) {
+			if (comments != null) {
+				writer.comment(comments[i]);
+			}
+			writer.name(names[i]);
+			values[i].write(writer);
+		}
+		writer.comment(trailingComment);
+		writer.endObject();
+	}
+
+	@Override
+	public boolean isObject() {
+		return true;
+	}
+
+	@Override
+	public JsonObject asObject() {
+		return this;
+	}
+
+	/**
+	 * Objects are equal if they have the same members with equal values, in any order. Comments are ignored.
+	 */
+	@Override
+	public boolean equals(Object o) {
+		if (o == this) {
+			return true;
+		}
+		if (!(o instanceof JsonObject) || ((JsonObject) o).size != size) {
+			return false;
+		}
+		JsonObject other = (JsonObject) o;
+		for (int i = 0; i < size; i++) {
+			if (!values[i].equals(other.get(names[i]))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+		int result = 0;
+		for (int i = 0; i < size; i++) {
+			result += names[i].hashCode() ^ values[i].hashCode();
+		}
+		return result;
+	}
+
+	private void grow() {
+		int capacity = Math.max(4, size * 2);
+		names = Arrays.copyOf(names, capacity);
+		values = Arrays.copyOf(values, capacity);
+		if (comments != null) {
+			comments = Arrays.copyOf(comments, capacity);
+		}
+		if (table != null) {
+			table = MemberTable.build(names, size, capacity);
+		}
+	}
+
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+	}
+}
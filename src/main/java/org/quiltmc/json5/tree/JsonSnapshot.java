@@ -0,0 +1,718 @@
+/*
+ * Copyright 2021 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.json5.tree;
+
+import org.jetbrains.annotations.Nullable;
+import org.quiltmc.json5.JsonReader;
+import org.quiltmc.json5.JsonToken;
+import org.quiltmc.json5.JsonWriter;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+
+/**
+ * An immutable node of a JSON5 document.
+ *
+ * <p>Snapshots are never modified once created, and all of their state is held in final fields, so they can be
+ * shared between threads and read without locking. The {@code with} methods return a new snapshot which shares every
+ * unchanged subtree with the original, so changing a single value only copies the nodes along its path. Within a
+ * node, replacing the value of an existing member shares the member names, index and comments with the original.
+ *
+ * <p>Strings, numbers, booleans and null are represented by the same immutable {@link JsonElement}s as the mutable
+ * tree, and are shared when converting between the two.
+ */
+@Deprecated
+public final class JsonSnapshot {
+	private static final int KIND_OBJECT = 0;
+	private static final int KIND_ARRAY = 1;
+	private static final int KIND_SCALAR = 2;
+
+	private static final String[] NO_NAMES = new String[0];
+	private static final JsonSnapshot[] NO_CHILDREN = new JsonSnapshot[0];
+
+	public static final JsonSnapshot NULL = new JsonSnapshot(JsonNull.INSTANCE);
+	public static final JsonSnapshot TRUE = new JsonSnapshot(JsonBoolean.TRUE);
+	public static final JsonSnapshot FALSE = new JsonSnapshot(JsonBoolean.FALSE);
+	public static final JsonSnapshot EMPTY_OBJECT = new JsonSnapshot(KIND_OBJECT, NO_NAMES, NO_CHILDREN, null, null, null);
+	public static final JsonSnapshot EMPTY_ARRAY = new JsonSnapshot(KIND_ARRAY, null, NO_CHILDREN, null, null, null);
+
+	private final int kind;
+	/** The value of a scalar, or null for objects and arrays. */
+	private final JsonElement scalar;
+	/** The member names of an object, exactly as long as {@link #children}. */
+	private final String[] names;
+	/** The values of an object or the elements of an array. */
+	private final JsonSnapshot[] children;
+	/** The comment before each child, or null if there are none. */
+	private final String[] comments;
+	private final String trailingComment;
+	/** The {@link MemberTable} of an object's names, or null while it is small enough to be searched linearly. */
+	private final int[] table;
+
+	/** Lazily computed, like {@link String#hashCode()}. Zero until first computed. */
+	private int hash;
+
+	private JsonSnapshot(JsonElement scalar) {
+		this.kind = KIND_SCALAR;
+		this.scalar = scalar;
+		this.names = null;
+		this.children = null;
+		this.comments = null;
+		this.trailingComment = null;
+		this.table = null;
+	}
+
+	private JsonSnapshot(int kind, String[] names, JsonSnapshot[] children, String[] comments, String trailingComment, int[] table) {
+		this.kind = kind;
+		this.scalar = null;
+		this.names = names;
+		this.children = children;
+		this.comments = comments;
+		this.trailingComment = trailingComment;
+		this.table = table;
+	}
+
+	private static JsonSnapshot object(String[] names, JsonSnapshot[] children, String[] comments, String trailingComment) {
+		return new JsonSnapshot(KIND_OBJECT, names, children, comments, trailingComment, MemberTable.build(names, names.length, names.length));
+	}
+
+	public static JsonSnapshot of(String value) {
+		return new JsonSnapshot(new JsonString(value));
+	}
+
+	public static JsonSnapshot of(long value) {
+		return new JsonSnapshot(new JsonNumber(value));
+	}
+
+	public static JsonSnapshot of(double value) {
+		return new JsonSnapshot(new JsonNumber(value));
+	}
+
+	public static JsonSnapshot of(boolean value) {
+		return value ? TRUE : FALSE;
+	}
+
+	/**
+	 * Returns an immutable copy of {@code element}, including its comments.
+	 */
+	public static JsonSnapshot of(JsonElement element) {
+		if (element.isObject()) {
+			JsonObject object = element.asObject();
+			int size = object.size();
+			String[] names = new String[size];
+			JsonSnapshot[] children = new JsonSnapshot[size];
+			String[] comments = null;
+			for (int i = 0; i < size; i++) {
+				names[i] = object.nameAt(i);
+				children[i] = of(object.valueAt(i));
+				comments = withComment(comments, size, i, object.getComment(names[i]));
+			}
+			return object(names, children, comments, object.getTrailingComment());
+		} else if (element.isArray()) {
+			JsonArray array = element.asArray();
+			int size = array.size();
+			JsonSnapshot[] children = new JsonSnapshot[size];
+			String[] comments = null;
+			for (int i = 0; i < size; i++) {
+				children[i] = of(array.get(i));
+				comments = withComment(comments, size, i, array.getComment(i));
+			}
+			return new JsonSnapshot(KIND_ARRAY, null, children, comments, array.getTrailingComment(), null);
+		} else if (element.isNull()) {
+			return NULL;
+		} else if (element.isBoolean()) {
+			return of(element.asBoolean());
+		}
+		return new JsonSnapshot(element);
+	}
+
+	/**
+	 * Reads the next value of {@code reader} into a snapshot, in the same way as {@link JsonElement#read(JsonReader)}.
+	 *
+	 * @throws IllegalStateException if the next token is not the start of a value.
+	 */
+	public static JsonSnapshot read(JsonReader reader) throws IOException {
+		JsonToken token = reader.peek();
+		reader.takeComment();
+		if (token == JsonToken.BEGIN_OBJECT) {
+			String[] names = NO_NAMES;
+			JsonSnapshot[] children = NO_CHILDREN;
+			String[] comments = null;
+			int size = 0;
+			reader.beginObject();
+			while (reader.hasNext()) {
+				String comment = reader.takeComment();
+				String name = reader.nextName();
+				reader.peek();
+				comment = JsonElement.join(comment, reader.takeComment());
+				if (size == children.length) {
+					names = Arrays.copyOf(names, Math.max(4, size * 2));
+					children = Arrays.copyOf(children, names.length);
+					comments = comments == null ? null : Arrays.copyOf(comments, names.length);
+				}
+				names[size] = name;
+				children[size] = read(reader);
+				comments = withComment(comments, names.length, size, comment);
+				size++;
+			}
+			String trailingComment = reader.takeComment();
+			reader.endObject();
+
+			// Duplicate names are rare, so only go to the trouble of removing them once everything has been read
+			JsonSnapshot result = object(trim(names, size), trim(children, size), trim(comments, size), trailingComment);
+			return result.hasDuplicateNames() ? result.withoutDuplicateNames() : result;
+		} else if (token == JsonToken.BEGIN_ARRAY) {
+			JsonSnapshot[] children = NO_CHILDREN;
+			String[] comments = null;
+			int size = 0;
+			reader.beginArray();
+			while (reader.hasNext()) {
+				String comment = reader.takeComment();
+				if (size == children.length) {
+					children = Arrays.copyOf(children, Math.max(4, size * 2));
+					comments = comments == null ? null : Arrays.copyOf(comments, children.length);
+				}
+				children[size] = read(reader);
+				comments = withComment(comments, children.length, size, comment);
+				size++;
+			}
+			String trailingComment = reader.takeComment();
+			reader.endArray();
+			return new JsonSnapshot(KIND_ARRAY, null, trim(children, size), trim(comments, size), trailingComment, null);
+		}
+		return of(JsonElement.read(reader));
+	}
+
+	/**
+	 * Returns a mutable copy of this snapshot, including its comments.
+	 */
+	public JsonElement toElement() {
+		if (kind == KIND_OBJECT) {
+			JsonObject object = new JsonObject();
+			for (int i = 0; i < children.length; i++) {
+				object.put(names[i], children[i].toElement());
+				if (comments != null) {
+					object.setComment(names[i], comments[i]);
+				}
+			}
+			object.setTrailingComment(trailingComment);
+			return object;
+		} else if (kind == KIND_ARRAY) {
+			JsonArray array = new JsonArray();
+			for (int i = 0; i < children.length; i++) {
+				array.add(children[i].toElement());
+				if (comments != null) {
+					array.setComment(i, comments[i]);
+				}
+			}
+			array.setTrailingComment(trailingComment);
+			return array;
+		}
+		return scalar;
+	}
+
+	/**
+	 * Encodes this snapshot and everything it contains.
+	 */
+	public void write(JsonWriter writer) throws IOException {
+		if (kind == KIND_SCALAR) {
+			scalar.write(writer);
+			return;
+		}
+
+		if (kind == KIND_OBJECT) {
+			writer.beginObject();
+		} else {
+			writer.beginArray();
+		}
+		for (int i = 0; i < children.length; i++) {
+			if (comments != null) {
+				writer.comment(comments[i]);
+			}
+			if (kind == KIND_OBJECT) {
+				writer.name(names[i]);
+			}
+			children[i].write(writer);
+		}
+		writer.comment(trailingComment);
+		if (kind == KIND_OBJECT) {
+			writer.endObject();
+		} else {
+			writer.endArray();
+		}
+	}
+
+	public boolean isObject() {
+		return kind == KIND_OBJECT;
+	}
+
+	public boolean isArray() {
+		return kind == KIND_ARRAY;
+	}
+
+	public boolean isString() {
+		return kind == KIND_SCALAR && scalar.isString();
+	}
+
+	public boolean isNumber() {
+		return kind == KIND_SCALAR && scalar.isNumber();
+	}
+
+	public boolean isBoolean() {
+		return kind == KIND_SCALAR && scalar.isBoolean();
+	}
+
+	public boolean isNull() {
+		return kind == KIND_SCALAR && scalar.isNull();
+	}
+
+	/**
+	 * Returns the number of members of an object or elements of an array.
+	 *
+	 * @throws IllegalStateException if this is neither an object nor an array.
+	 */
+	public int size() {
+		if (kind == KIND_SCALAR) {
+			throw new IllegalStateException("Expected an object or an array but was " + scalar.getClass().getSimpleName());
+		}
+		return children.length;
+	}
+
+	public boolean has(String name) {
+		return indexOf(name) >= 0;
+	}
+
+	/**
+	 * Returns the position of the member called {@code name} in insertion order, or -1 if there is no such member.
+	 *
+	 * @throws IllegalStateException if this is not an object.
+	 */
+	public int indexOf(String name) {
+		checkKind(KIND_OBJECT);
+		return MemberTable.find(table, names, names.length, name);
+	}
+
+	/**
+	 * Returns the value of the member called {@code name}, or null if there is no such member.
+	 *
+	 * @throws IllegalStateException if this is not an object.
+	 */
+	public @Nullable JsonSnapshot get(String name) {
+		int index = indexOf(name);
+		return index < 0 ? null : children[index];
+	}
+
+	/**
+	 * Returns the element at {@code index} of an array, or the value of the member at {@code index} of an object.
+	 *
+	 * @throws IllegalStateException if this is neither an object nor an array.
+	 * @throws IndexOutOfBoundsException if {@code index} is out of range.
+	 */
+	public JsonSnapshot get(int index) {
+		size();
+		return children[index];
+	}
+
+	/**
+	 * Returns the name of the member at {@code index}, in insertion order.
+	 *
+	 * @throws IllegalStateException if this is not an object.
+	 * @throws IndexOutOfBoundsException if {@code index} is out of range.
+	 */
+	public String nameAt(int index) {
+		checkKind(KIND_OBJECT);
+		return names[index];
+	}
+
+	/**
+	 * Returns the comment written before the member called {@code name}, or null if there is none.
+	 *
+	 * @throws IllegalStateException if this is not an object.
+	 */
+	public @Nullable String getComment(String name) {
+		int index = indexOf(name);
+		return index < 0 || comments == null ? null : comments[index];
+	}
+
+	/**
+	 * Returns the comment written before the element at {@code index}, or null if there is none.
+	 *
+	 * @throws IllegalStateException if this is neither an object nor an array.
+	 * @throws IndexOutOfBoundsException if {@code index} is out of range.
+	 */
+	public @Nullable String getComment(int index) {
+		get(index);
+		return comments == null ? null : comments[index];
+	}
+
+	/**
+	 * Returns the comment written after the last member or element, or null if there is none.
+	 */
+	public @Nullable String getTrailingComment() {
+		return trailingComment;
+	}
+
+	/**
+	 * @see JsonElement#asString()
+	 */
+	public String asString() {
+		return scalar().asString();
+	}
+
+	/**
+	 * @see JsonElement#asNumber()
+	 */
+	public Number asNumber() {
+		return scalar().asNumber();
+	}
+
+	/**
+	 * @see JsonElement#asLong()
+	 */
+	public long asLong() {
+		return scalar().asLong();
+	}
+
+	/**
+	 * @see JsonElement#asInt()
+	 */
+	public int asInt() {
+		return scalar().asInt();
+	}
+
+	/**
+	 * @see JsonElement#asDouble()
+	 */
+	public double asDouble() {
+		return scalar().asDouble();
+	}
+
+	/**
+	 * @see JsonElement#asBoolean()
+	 */
+	public boolean asBoolean() {
+		return scalar().asBoolean();
+	}
+
+	/**
+	 * Returns an object with the member {@code name} set to {@code value}. A new member is added at the end; an
+	 * existing member keeps its position and comment.
+	 *
+	 * @throws IllegalStateException if this is not an object.
+	 */
+	public JsonSnapshot with(String name, JsonSnapshot value) {
+		if (value == null) {
+			throw new NullPointerException("value == null");
+		}
+		int index = indexOf(name);
+		if (index >= 0) {
+			if (children[index] == value) {
+				return this;
+			}
+			JsonSnapshot[] newChildren = children.clone();
+			newChildren[index] = value;
+			return new JsonSnapshot(KIND_OBJECT, names, newChildren, comments, trailingComment, table);
+		}
+
+		int size = names.length;
+		String[] newNames = Arrays.copyOf(names, size + 1);
+		JsonSnapshot[] newChildren = Arrays.copyOf(children, size + 1);
+		newNames[size] = name;
+		newChildren[size] = value;
+		return object(newNames, newChildren, comments == null ? null : Arrays.copyOf(comments, size + 1), trailingComment);
+	}
+
+	/**
+	 * Returns an object without the member called {@code name}, or this object if there is no such member.
+	 *
+	 * @throws IllegalStateException if this is not an object.
+	 */
+	public JsonSnapshot without(String name) {
+		int index = indexOf(name);
+		if (index < 0) {
+			return this;
+		}
+		return object(remove(names, index), remove(children, index), remove(comments, index), trailingComment);
+	}
+
+	/**
+	 * Returns an object with the comment before the member called {@code name} replaced.
+	 *
+	 * @throws IllegalStateException if this is not an object.
+	 * @throws IllegalArgumentException if there is no such member.
+	 */
+	public JsonSnapshot withComment(String name, @Nullable String comment) {
+		int index = indexOf(name);
+		if (index < 0) {
+			throw new IllegalArgumentException("No member called " + name);
+		}
+		String[] newComments = comments == null ? null : comments.clone();
+		newComments = withComment(newComments, names.length, index, comment);
+		return new JsonSnapshot(KIND_OBJECT, names, children, newComments, trailingComment, table);
+	}
+
+	/**
+	 * Returns an array with the element at {@code index} replaced, keeping its comment.
+	 *
+	 * @throws IllegalStateException if this is not an array.
+	 * @throws IndexOutOfBoundsException if {@code index} is out of range.
+	 */
+	public JsonSnapshot with(int index, JsonSnapshot value) {
+		if (value == null) {
+			throw new NullPointerException("value == null");
+		}
+		checkKind(KIND_ARRAY);
+		if (children[index] == value) {
+			return this;
+		}
+		JsonSnapshot[] newChildren = children.clone();
+		newChildren[index] = value;
+		return new JsonSnapshot(KIND_ARRAY, null, newChildren, comments, trailingComment, null);
+	}
+
+	/**
+	 * Returns an array with {@code value} added to the end.
+	 *
+	 * @throws IllegalStateException if this is not an array.
+	 */
+	public JsonSnapshot withAdded(JsonSnapshot value) {
+		if (value == null) {
+			throw new NullPointerException("value == null");
+		}
+		checkKind(KIND_ARRAY);
+		int size = children.length;
+		JsonSnapshot[] newChildren = Arrays.copyOf(children, size + 1);
+		newChildren[size] = value;
+		return new JsonSnapshot(KIND_ARRAY, null, newChildren, comments == null ? null : Arrays.copyOf(comments, size + 1), trailingComment, null);
+	}
+
+	/**
+	 * Returns an array without the element at {@code index}.
+	 *
+	 * @throws IllegalStateException if this is not an array.
+	 * @throws IndexOutOfBoundsException if {@code index} is out of range.
+	 */
+	public JsonSnapshot without(int index) {
+		checkKind(KIND_ARRAY);
+		if (index < 0 || index >= children.length) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + children.length);
+		}
+		return new JsonSnapshot(KIND_ARRAY, null, remove(children, index), remove(comments, index), trailingComment, null);
+	}
+
+	/**
+	 * Returns a copy of this object with the value at the end of a path of member names set to {@code value}. Missing
+	 * objects along the path are created. Only the objects along the path are copied.
+	 *
+	 * @throws IllegalStateException if this or a value along the path is not an object.
+	 */
+	public JsonSnapshot withPath(JsonSnapshot value, String... path) {
+		if (path.length == 0) {
+			return value;
+		}
+
+		JsonSnapshot[] parents = new JsonSnapshot[path.length];
+		JsonSnapshot node = this;
+		for (int i = 0; i < path.length; i++) {
+			parents[i] = node;
+			node = node.get(path[i]);
+			if (node == null) {
+				node = EMPTY_OBJECT;
+			}
+		}
+
+		JsonSnapshot result = value;
+		for (int i = path.length - 1; i >= 0; i--) {
+			result = parents[i].with(path[i], result);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns a snapshot equal to this one, in which every subtree that is equal to the corresponding subtree of
+	 * {@code previous} (including comments) is replaced by that subtree.
+	 *
+	 * <p>This is intended for reloads: after sharing with the previous snapshot, unchanged sections can be detected
+	 * with {@code ==}, and only the changed sections are kept in memory twice.
+	 */
+	public JsonSnapshot sharingWith(@Nullable JsonSnapshot previous) {
+		if (previous == null || previous == this || previous.kind != kind) {
+			return this;
+		}
+		if (kind == KIND_SCALAR) {
+			return scalar.equals(previous.scalar) ? previous : this;
+		}
+
+		boolean same = children.length == previous.children.length
+				&& Arrays.equals(names, previous.names)
+				&& Arrays.equals(comments, previous.comments)
+				&& (trailingComment == null ? previous.trailingComment == null : trailingComment.equals(previous.trailingComment));
+		JsonSnapshot[] shared = null;
+		for (int i = 0; i < children.length; i++) {
+			JsonSnapshot counterpart;
+			if (kind == KIND_OBJECT) {
+				counterpart = same ? previous.children[i] : previous.get(names[i]);
+			} else {
+				counterpart = i < previous.children.length ? previous.children[i] : null;
+			}
+
+			JsonSnapshot child = children[i].sharingWith(counterpart);
+			same &= child == counterpart;
+			if (child != children[i]) {
+				if (shared == null) {
+					shared = children.clone();
+				}
+				shared[i] = child;
+			}
+		}
+
+		if (same) {
+			return previous;
+		}
+		return shared == null ? this : new JsonSnapshot(kind, names, shared, comments, trailingComment, table);
+	}
+
+	/**
+	 * Snapshots are equal if they represent equal values, as defined by {@link JsonElement#equals(Object)}.
+	 * Comments are ignored.
+	 */
+	@Override
+	public boolean equals(Object o) {
+		if (o == this) {
+			return true;
+		}
+		if (!(o instanceof JsonSnapshot)) {
+			return false;
+		}
+		JsonSnapshot other = (JsonSnapshot) o;
+		if (other.kind != kind || kind != KIND_SCALAR && other.children.length != children.length) {
+			return false;
+		}
+		if (kind == KIND_SCALAR) {
+			return scalar.equals(other.scalar);
+		}
+		if (hash != 0 && other.hash != 0 && hash != other.hash) {
+			return false;
+		}
+		for (int i = 0; i < children.length; i++) {
+			if (!children[i].equals(kind == KIND_OBJECT ? other.get(names[i]) : other.children[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+		int result = hash;
+		if (result == 0) {
+			if (kind == KIND_SCALAR) {
+				result = scalar.hashCode();
+			} else if (kind == KIND_OBJECT) {
+				for (int i = 0; i < children.length; i++) {
+					result += names[i].hashCode() ^ children[i].hashCode();
+				}
+			} else {
+				result = 1;
+				for (JsonSnapshot child : children) {
+					result = 31 * result + child.hashCode();
+				}
+			}
+			hash = result;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns this snapshot as compact JSON5.
+	 */
+	@Override
+	public String toString() {
+		StringWriter out = new StringWriter();
+		try {
+			JsonWriter writer = JsonWriter.json5(out);
+			writer.setCompact();
+			write(writer);
+		} catch (IOException e) {
+			throw new AssertionError(e); // StringWriter does not throw
+		}
+		return out.toString();
+	}
+
+	private JsonElement scalar() {
+		if (kind != KIND_SCALAR) {
+			throw new IllegalStateException("Expected a scalar but was " + (kind == KIND_OBJECT ? "an object" : "an array"));
+		}
+		return scalar;
+	}
+
+	private void checkKind(int expected) {
+		if (kind != expected) {
+			throw new IllegalStateException("Expected " + (expected == KIND_OBJECT ? "an object" : "an array") + " but was "
+					+ (kind == KIND_OBJECT ? "an object" : kind == KIND_ARRAY ? "an array" : scalar.getClass().getSimpleName()));
+		}
+	}
+
+	private boolean hasDuplicateNames() {
+		for (int i = 0; i < names.length; i++) {
+			if (indexOf(names[i]) != i) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Keeps the first position of each name with its last value, like repeated calls to {@link JsonObject#put}.
+	 */
+	private JsonSnapshot withoutDuplicateNames() {
+		JsonSnapshot result = EMPTY_OBJECT;
+		for (int i = 0; i < names.length; i++) {
+			result = result.with(names[i], children[i]);
+			String comment = comments == null ? null : comments[i];
+			if (comment != null) {
+				result = result.withComment(names[i], comment);
+			}
+		}
+		return new JsonSnapshot(KIND_OBJECT, result.names, result.children, result.comments, trailingComment, result.table);
+	}
+
+	private static String[] withComment(String[] comments, int length, int index, String comment) {
+		if (comments == null) {
+			if (comment == null) {
+				return null;
+			}
+			comments = new String[length];
+		}
+		comments[index] = comment;
+		return comments;
+	}
+
+	private static <T> T[] trim(T[] array, int size) {
+		return array == null || array.length == size ? array : Arrays.copyOf(array, size);
+	}
+
+	private static <T> T[] remove(T[] array, int index) {
+		if (array == null) {
+			return null;
+		}
+		T[] result = Arrays.copyOf(array, array.length - 1);
+		System.arraycopy(array, index + 1, result, index, array.length - index - 1);
+		return result;
+	}
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2021 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.json5.tree;
+
+/**
+ * Open-addressing hash tables over arrays of member names, using linear probing. Each slot holds the index of a
+ * member plus one, so that zero marks an empty slot. Tables are at least twice as long as the number of members they
+ * can hold, so they never fill up.
+ */
+final class MemberTable {
+	/** Objects with at most this many members are searched linearly instead. */
+	static final int LINEAR_SEARCH_LIMIT = 8;
+
+	private MemberTable() {
+	}
+
+	/**
+	 * Returns the index of {@code name} in the first {@code size} entries of {@code names}, or -1.
+	 *
+	 * @param table the table of {@code names}, or null to search linearly.
+	 */
+	static int find(int[] table, String[] names, int size, String name) {
+		if (name == null) {
+			throw new NullPointerException("name == null");
+		}
+		if (table == null) {
+			for (int i = 0; i < size; i++) {
+				if (names[i].equals(name)) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		int mask = table.length - 1;
+		for (int slot = hash(name) & mask; ; slot = (slot + 1) & mask) {
+			int entry = table[slot];
+			if (entry == 0) {
+				return -1;
+			}
+			if (names[entry - 1].equals(name)) {
+				return entry - 1;
+			}
+		}
+	}
+
+	/**
+	 * Builds a table for the first {@code size} entries of {@code names}, with room for {@code capacity} members.
+	 *
+	 * @return the table, or null if {@code size} is small enough to be searched linearly.
+	 */
+	static int[] build(String[] names, int size, int capacity) {
+		if (size <= LINEAR_SEARCH_LIMIT) {
+			return null;
+		}
+		int[] table = new int[Integer.highestOneBit(Math.max(capacity, 1) * 4 - 1)];
+		for (int i = 0; i < size; i++) {
+			insert(table, names, i);
+		}
+		return table;
+	}
+
+	/**
+	 * Adds the member at {@code index} to a table which has room for it.
+	 */
+	static void insert(int[] table, String[] names, int index) {
+		int mask = table.length - 1;
+		int slot = hash(names[index]) & mask;
+		while (table[slot] != 0) {
+			slot = (slot + 1) & mask;
+		}
+		table[slot] = index + 1;
+	}
+
+	private static int hash(String name) {
+		int h = name.hashCode();
+		return h ^ (h >>> 16);
+	}
+}
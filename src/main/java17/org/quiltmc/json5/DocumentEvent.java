@@ -0,0 +1,59 @@
+/*
+ * Copyright 2021 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.json5;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A JDK Flight Recorder event for a document read or written, saying where it came from or went to, how big it was
+ * and how long it took. These are created and committed by {@link JsonEvents}.
+ */
+@Category({ "QuiltMC", "JSON5" })
+@StackTrace(false)
+abstract class DocumentEvent extends Event {
+	@Label("Source")
+	@Description("Where the document was read from or written to")
+	String source;
+
+	@Label("Characters")
+	long characters;
+
+	@Label("Tokens")
+	long tokens;
+
+	@Label("Maximum Depth")
+	int maxDepth;
+
+	@Label("Error")
+	@Description("The error which stopped the document, if it was not finished")
+	String error;
+
+	@Name("org.quiltmc.json5.DocumentRead")
+	@Label("JSON5 Document Read")
+	static final class Read extends DocumentEvent {
+	}
+
+	@Name("org.quiltmc.json5.DocumentWritten")
+	@Label("JSON5 Document Written")
+	static final class Written extends DocumentEvent {
+	}
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2021 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.json5;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Emits JDK Flight Recorder events for the documents read and written by readers and writers which have been told
+ * where their text comes from or goes to.
+ *
+ * <p>This version replaces the Java 8 one on newer JDKs. The events are only touched from {@link Recorder}, through
+ * methods which take and return {@link Object}, so that this class still loads in a runtime image without the
+ * {@code jdk.jfr} module.
+ */
+final class JsonEvents {
+	private static final boolean AVAILABLE = ModuleLayer.boot().findModule("jdk.jfr").isPresent();
+
+	private JsonEvents() {
+	}
+
+	/**
+	 * Starts timing a document being read, if its event is enabled.
+	 *
+	 * @return the event, to pass to {@link #end}, or null if it is not enabled.
+	 */
+	static @Nullable Object beginRead() {
+		return AVAILABLE ? Recorder.beginRead() : null;
+	}
+
+	/**
+	 * Like {@link #beginRead()}, for a document being written.
+	 */
+	static @Nullable Object beginWrite() {
+		return AVAILABLE ? Recorder.beginWrite() : null;
+	}
+
+	/**
+	 * Stops timing an event from {@link #beginRead()} or {@link #beginWrite()}, and commits it.
+	 *
+	 * @param error the message of the error which stopped the document, or null if it was finished.
+	 */
+	static void end(Object event, String source, JsonMetrics metrics, @Nullable String error) {
+		Recorder.end(event, source, metrics, error);
+	}
+
+	private static final class Recorder {
+		static @Nullable Object beginRead() {
+			return begin(new DocumentEvent.Read());
+		}
+
+		static @Nullable Object beginWrite() {
+			return begin(new DocumentEvent.Written());
+		}
+
+		private static @Nullable Object begin(DocumentEvent event) {
+			if (!event.isEnabled()) {
+				return null;
+			}
+			event.begin();
+			return event;
+		}
+
+		static void end(Object event, String source, JsonMetrics metrics, @Nullable String error) {
+			DocumentEvent document = (DocumentEvent) event;
+			document.end();
+			if (document.shouldCommit()) {
+				document.source = source;
+				document.characters = metrics.chars;
+				for (long count : metrics.tokens) {
+					document.tokens += count;
+				}
+				document.maxDepth = metrics.maxDepth;
+				document.error = error;
+				document.commit();
+			}
+		}
+	}
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2021 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.json5;
+
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Searches char arrays with the incubating Vector API, as many characters at a time as the CPU's widest vectors hold.
+ * This class links against {@code jdk.incubator.vector}, so it must only be loaded when that module is present.
+ */
+final class VectorCharScanner {
+	static final VectorSpecies<Short> SPECIES = ShortVector.SPECIES_PREFERRED;
+
+	private VectorCharScanner() {
+	}
+
+	/**
+	 * Returns the index of the first of {@code a}, {@code b} or {@code c} in the whole vectors of {@code chars} from
+	 * {@code from}, or the index of the first character after them if there is none.
+	 */
+	static int indexOf(char[] chars, int from, int to, char a, char b, char c) {
+		int i = from;
+		for (int end = to - SPECIES.length(); i <= end; i += SPECIES.length()) {
+			ShortVector vector = ShortVector.fromCharArray(SPECIES, chars, i);
+			VectorMask<Short> found = vector.eq((short) a).or(vector.eq((short) b)).or(vector.eq((short) c));
+			if (found.anyTrue()) {
+				return i + found.firstTrue();
+			}
+		}
+		return i;
+	}
+}
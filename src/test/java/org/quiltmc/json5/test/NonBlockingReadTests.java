@@ -0,0 +1,298 @@
+/*
+ * Copyright 2021 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.json5.test;
+
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+import org.quiltmc.json5.JsonReader;
+import org.quiltmc.json5.JsonToken;
+import org.quiltmc.json5.NonBlockingJsonReader;
+import org.quiltmc.json5.exception.LimitExceededException;
+import org.quiltmc.json5.exception.MalformedSyntaxException;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class NonBlockingReadTests {
+	/**
+	 * Every test file must give the same tokens, or fail in both readers, however the input is split up.
+	 */
+	@TestFactory
+	Stream<DynamicTest> sameAsJsonReader() throws IOException {
+		return Files.walk(Paths.get("tests").resolve("json5-tests")).filter(path -> !Files.isDirectory(path))
+				.flatMap(path -> Stream.of(true, false).map(strict -> DynamicTest.dynamicTest(
+						(strict ? "JSON: " : "JSON5: ") + path, () -> {
+					byte[] bytes = Files.readAllBytes(path);
+					String expected = pull(path, strict);
+					char[] chars = new String(bytes, StandardCharsets.UTF_8).toCharArray();
+					Random random = new Random(path.hashCode());
+
+					assertEquals(expected, pushChunks(strict, chars, 1), "one char at a time");
+					assertEquals(expected, pushChunks(strict, bytes, 1), "one byte at a time");
+					assertEquals(expected, pushChunks(strict, bytes, 1 + random.nextInt(16)), "random chunks");
+					assertEquals(expected, pushChunks(strict, bytes, Math.max(bytes.length, 1)), "whole input");
+				})));
+	}
+
+	@Test
+	void values() throws IOException {
+		String text = "{'caf\\u00e9': [0x1F, -Infinity, 1.5e3, \"a\\\nb\", TRUE], \u00e9\ud83d\ude00: null, // x\n}";
+		byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+		NonBlockingJsonReader reader = NonBlockingJsonReader.json5();
+		assertEquals(JsonToken.NEED_MORE_INPUT, reader.nextToken());
+
+		List<String> values = new ArrayList<>();
+		for (byte b : bytes) {
+			reader.feed(ByteBuffer.wrap(new byte[] { b }));
+			JsonToken token;
+			while ((token = reader.nextToken()) != JsonToken.NEED_MORE_INPUT) {
+				switch (token) {
+					case NAME:
+						values.add(reader.stringValue() + " " + reader.path());
+						break;
+					case STRING:
+						values.add(reader.stringValue());
+						break;
+					case NUMBER:
+						values.add(reader.numberValue().toString());
+						break;
+					case BOOLEAN:
+						values.add(String.valueOf(reader.booleanValue()));
+						break;
+					default:
+						values.add(token.toString());
+				}
+			}
+		}
+		reader.endOfInput();
+		assertEquals(JsonToken.END_DOCUMENT, reader.nextToken());
+		assertEquals("[BEGIN_OBJECT, caf\u00e9 $.caf\u00e9, BEGIN_ARRAY, 31, -Infinity, 1.5E+3, a\nb, true, END_ARRAY, "
+				+ "\u00e9\ud83d\ude00 $.\u00e9\ud83d\ude00, NULL, END_OBJECT]", values.toString());
+	}
+
+	@Test
+	void numbers() throws IOException {
+		NonBlockingJsonReader reader = NonBlockingJsonReader.json5();
+		reader.feed("[12");
+		assertEquals(JsonToken.BEGIN_ARRAY, reader.nextToken());
+		assertEquals(JsonToken.NEED_MORE_INPUT, reader.nextToken());
+		reader.feed("34, -0x");
+		assertEquals(JsonToken.NUMBER, reader.nextToken());
+		assertEquals(1234, reader.intValue());
+		assertEquals(JsonToken.NEED_MORE_INPUT, reader.nextToken());
+		reader.feed("ff]");
+		assertEquals(JsonToken.NUMBER, reader.nextToken());
+		assertEquals(-255L, reader.longValue());
+		assertEquals(BigInteger.valueOf(-255), reader.numberValue());
+		assertEquals(JsonToken.END_ARRAY, reader.nextToken());
+		assertEquals(JsonToken.NEED_MORE_INPUT, reader.nextToken());
+		reader.endOfInput();
+		assertEquals(JsonToken.END_DOCUMENT, reader.nextToken());
+	}
+
+	@Test
+	void errors() throws IOException {
+		assertThrows(EOFException.class, () -> pushAll(false, "{\"a\": [1, 2"));
+		assertThrows(MalformedSyntaxException.class, () -> pushAll(false, "['abc"));
+		assertThrows(MalformedSyntaxException.class, () -> pushAll(false, "/* abc"));
+		assertThrows(MalformedSyntaxException.class, () -> pushAll(true, "{a: 1}"));
+		assertThrows(NumberFormatException.class, () -> pushAll(false, "'\\u00g0'"));
+		assertThrows(MalformedSyntaxException.class, () -> push(false,
+				(reader, drain) -> reader.feed(ByteBuffer.wrap(new byte[] { '"', (byte) 0xc3 }))));
+
+		MalformedSyntaxException e = assertThrows(MalformedSyntaxException.class, () -> pushAll(false, "{a: 00}"));
+		assertEquals("unexpected leading zero at line 1 column 7 path $.a", e.getMessage());
+
+		// Unquoted names can't start with characters reserved by lenient Gson, as in JsonReader
+		assertThrows(MalformedSyntaxException.class, () -> pushAll(false, "{#a: 1}"));
+		assertThrows(MalformedSyntaxException.class, () -> pushAll(false, "{=: 1}"));
+		assertThrows(MalformedSyntaxException.class, () -> pushAll(false, "{\\u0041: 1}"));
+		assertThrows(MalformedSyntaxException.class, () -> pushAll(false, "[1, #2]"));
+	}
+
+	@Test
+	void limits() throws IOException {
+		NonBlockingJsonReader deep = NonBlockingJsonReader.json5().setMaxDepth(2);
+		deep.feed("[[[");
+		assertEquals(JsonToken.BEGIN_ARRAY, deep.nextToken());
+		assertEquals(JsonToken.BEGIN_ARRAY, deep.nextToken());
+		assertThrows(LimitExceededException.class, deep::nextToken);
+
+		// Strings are stopped before the rest of them arrives
+		NonBlockingJsonReader string = NonBlockingJsonReader.json5().setMaxStringLength(4);
+		string.feed("['abc");
+		assertEquals(JsonToken.BEGIN_ARRAY, string.nextToken());
+		assertEquals(JsonToken.NEED_MORE_INPUT, string.nextToken());
+		string.feed("de");
+		LimitExceededException e = assertThrows(LimitExceededException.class, string::nextToken);
+		assertEquals("String longer than 4 at line 1 column 8 path $[0]", e.getMessage());
+		NonBlockingJsonReader name = NonBlockingJsonReader.json5().setMaxStringLength(4);
+		name.feed("{abcde");
+		assertEquals(JsonToken.BEGIN_OBJECT, name.nextToken());
+		assertThrows(LimitExceededException.class, name::nextToken);
+
+		NonBlockingJsonReader number = NonBlockingJsonReader.json5().setMaxNumberLength(3);
+		number.feed("[123, 1234]");
+		assertEquals(JsonToken.BEGIN_ARRAY, number.nextToken());
+		assertEquals(JsonToken.NUMBER, number.nextToken());
+		assertThrows(LimitExceededException.class, number::nextToken);
+		assertEquals(1024, NonBlockingJsonReader.json5().getMaxNumberLength());
+
+		NonBlockingJsonReader names = NonBlockingJsonReader.json5().setMaxNamesPerObject(1);
+		names.feed("{a: {b: 1}, c: 2}");
+		assertEquals(JsonToken.BEGIN_OBJECT, names.nextToken());
+		assertEquals(JsonToken.NAME, names.nextToken());
+		assertEquals(JsonToken.BEGIN_OBJECT, names.nextToken());
+		assertEquals(JsonToken.NAME, names.nextToken());
+		assertEquals(JsonToken.NUMBER, names.nextToken());
+		assertEquals(JsonToken.END_OBJECT, names.nextToken());
+		assertThrows(LimitExceededException.class, names::nextToken);
+
+		NonBlockingJsonReader document = NonBlockingJsonReader.json5().setMaxDocumentLength(4);
+		document.feed("[1, ");
+		assertThrows(LimitExceededException.class, () -> document.feed("2]"));
+		assertThrows(LimitExceededException.class, () -> document.feed(ByteBuffer.wrap(new byte[] { '2' })));
+	}
+
+	private static String pull(Path path, boolean strict) throws IOException {
+		StringBuilder out = new StringBuilder();
+		try (JsonReader reader = strict ? JsonReader.json(path) : JsonReader.json5(path)) {
+			pullValue(reader, out);
+			if (reader.peek() != JsonToken.END_DOCUMENT) {
+				throw new AssertionError("Expected the end of the document");
+			}
+		} catch (Throwable t) {
+			return "failed";
+		}
+		return out.toString();
+	}
+
+	private static void pullValue(JsonReader reader, StringBuilder out) throws IOException {
+		JsonToken token = reader.peek();
+		out.append(token).append(' ');
+		switch (token) {
+			case BEGIN_ARRAY:
+				reader.beginArray();
+				while (reader.hasNext()) {
+					pullValue(reader, out);
+				}
+				reader.endArray();
+				out.append("END_ARRAY ");
+				break;
+			case BEGIN_OBJECT:
+				reader.beginObject();
+				while (reader.hasNext()) {
+					out.append("NAME ").append(reader.nextName()).append(' ');
+					pullValue(reader, out);
+				}
+				reader.endObject();
+				out.append("END_OBJECT ");
+				break;
+			case STRING:
+			case NUMBER:
+				out.append(reader.nextString()).append(' ');
+				break;
+			case BOOLEAN:
+				out.append(reader.nextBoolean()).append(' ');
+				break;
+			case NULL:
+				reader.nextNull();
+				break;
+			default:
+				throw new AssertionError("Unexpected " + token);
+		}
+	}
+
+	/**
+	 * Feeds the input in chunks, reading the tokens available after each one as a caller would.
+	 */
+	private static String push(boolean strict, Feeder feeder) throws IOException {
+		NonBlockingJsonReader reader = strict ? NonBlockingJsonReader.json() : NonBlockingJsonReader.json5();
+		StringBuilder out = new StringBuilder();
+		feeder.feed(reader, () -> drain(reader, out));
+		reader.endOfInput();
+		if (drain(reader, out) != JsonToken.END_DOCUMENT) {
+			throw new AssertionError("Asked for more input after the end");
+		}
+		return out.toString();
+	}
+
+	private static JsonToken drain(NonBlockingJsonReader reader, StringBuilder out) throws IOException {
+		JsonToken token;
+		while ((token = reader.nextToken()) != JsonToken.NEED_MORE_INPUT && token != JsonToken.END_DOCUMENT) {
+			out.append(token).append(' ');
+			if (token == JsonToken.NAME || token == JsonToken.STRING || token == JsonToken.NUMBER) {
+				out.append(reader.stringValue()).append(' ');
+			} else if (token == JsonToken.BOOLEAN) {
+				out.append(reader.booleanValue()).append(' ');
+			}
+		}
+		return token;
+	}
+
+	private static String pushChunks(boolean strict, byte[] bytes, int chunk) {
+		try {
+			return push(strict, (reader, drain) -> {
+				for (int i = 0; i < bytes.length; i += chunk) {
+					reader.feed(ByteBuffer.wrap(bytes, i, Math.min(chunk, bytes.length - i)));
+					drain.run();
+				}
+			});
+		} catch (Throwable t) {
+			return "failed";
+		}
+	}
+
+	private static String pushChunks(boolean strict, char[] chars, int chunk) {
+		try {
+			return push(strict, (reader, drain) -> {
+				for (int i = 0; i < chars.length; i += chunk) {
+					reader.feed(chars, i, Math.min(chunk, chars.length - i));
+					drain.run();
+				}
+			});
+		} catch (Throwable t) {
+			return "failed";
+		}
+	}
+
+	private static void pushAll(boolean strict, String text) throws IOException {
+		push(strict, (reader, drain) -> reader.feed(text));
+	}
+
+	interface Feeder {
+		void feed(NonBlockingJsonReader reader, Drain drain) throws IOException;
+	}
+
+	interface Drain {
+		void run() throws IOException;
+	}
+}
@@ -17,17 +17,41 @@
 package org.quiltmc.json5.test;
 
 import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestFactory;
+import org.quiltmc.json5.JsonArrayIndex;
+import org.quiltmc.json5.JsonMetrics;
+import org.quiltmc.json5.JsonMetricsListener;
 import org.quiltmc.json5.JsonReader;
 import org.quiltmc.json5.JsonToken;
+import org.quiltmc.json5.JsonWriter;
+import org.quiltmc.json5.TokenBuffer;
+import org.quiltmc.json5.exception.ErrorCode;
+import org.quiltmc.json5.exception.LimitExceededException;
+import org.quiltmc.json5.exception.MalformedSyntaxException;
 import org.quiltmc.json5.exception.ParseException;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
 import java.util.stream.Stream;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class ReadTests {
 	@TestFactory
@@ -107,6 +131,691 @@ class ReadTests {
 		);
 	}
 
+	/**
+	 * Strings, comments and indentation long enough to run across the reader's buffer, with the characters which end
+	 * them at every offset.
+	 */
+	@Test
+	void longRuns() throws IOException {
+		StringBuilder text = new StringBuilder("[\n");
+		StringBuilder expected = new StringBuilder();
+		for (int i = 0; i < 300; i++) {
+			StringBuilder run = new StringBuilder();
+			StringBuilder spaces = new StringBuilder();
+			for (int j = 0; j < i; j++) {
+				run.append((char) ('a' + j % 26));
+				spaces.append(' ');
+			}
+			text.append(spaces).append("/*").append(run).append("\n*").append(run).append("*/ // ").append(run)
+					.append("\n").append(spaces).append('\'').append(run).append("\\\n\\'").append(run).append("',\n");
+			expected.append(run).append("\n'").append(run).append('\n');
+		}
+		text.append("  ]");
+
+		StringBuilder actual = new StringBuilder();
+		JsonReader reader = JsonReader.json5(text.toString());
+		reader.beginArray();
+		while (reader.hasNext()) {
+			actual.append(reader.nextString()).append('\n');
+		}
+		reader.endArray();
+		assertEquals(expected.toString(), actual.toString());
+		assertEquals(" at line 1202 column 4 path $", reader.locationString());
+	}
+
+	@Test
+	void primitiveArrays() throws IOException {
+		JsonReader reader = JsonReader.json5("[[1, -2, 0x7f, 3.0, 1e2],"
+				+ " [9007199254740993, -0x10, 1234567890123456789000e-3],"
+				+ " [0.1, -2.5e-3, -0, 1e22, 1e23, 0x1F, NaN, -Infinity, 123456789012345678], [], [1, 2, 3]]");
+		reader.beginArray();
+		assertArrayEquals(new int[] { 1, -2, 127, 3, 100 }, reader.nextIntArray());
+		assertArrayEquals(new long[] { 9007199254740993L, -16, 1234567890123456789L }, reader.nextLongArray());
+		assertArrayEquals(new double[] { 0.1, -2.5e-3, 0, 1e22, 1e23, 31, Double.NaN, Double.NEGATIVE_INFINITY,
+				123456789012345678.0 }, reader.nextDoubleArray());
+		assertEquals(0, reader.nextLongArray(new long[0], 0, 0));
+		int[] into = new int[5];
+		assertEquals(3, reader.nextIntArray(into, 1, 4));
+		assertArrayEquals(new int[] { 0, 1, 2, 3, 0 }, into);
+		assertEquals("$[5]", reader.path());
+		reader.endArray();
+
+		assertThrows(IllegalStateException.class, () -> JsonReader.json5("[1, 2]").nextIntArray(new int[2], 1, 1));
+		assertThrows(IndexOutOfBoundsException.class,
+				() -> JsonReader.json5("[]").nextDoubleArray(new double[2], 1, 2));
+		assertThrows(ArithmeticException.class, () -> JsonReader.json5("[1, 2147483648]").nextIntArray());
+		assertThrows(IllegalStateException.class, () -> JsonReader.json5("[1, true]").nextLongArray());
+	}
+
+	/**
+	 * The shortcuts for small numbers must give exactly what the element by element methods do.
+	 */
+	@Test
+	void primitiveArraysMatchElements() throws IOException {
+		Random random = new Random(0);
+		StringBuilder text = new StringBuilder("[");
+		for (int i = 0; i < 10000; i++) {
+			if (random.nextBoolean()) {
+				text.append('-');
+			}
+			text.append(random.nextInt(1 << random.nextInt(31)));
+			if (random.nextBoolean()) {
+				text.append('.').append(random.nextInt(1 << random.nextInt(31)));
+			}
+			if (random.nextBoolean()) {
+				text.append('e').append(random.nextInt(50) - 25);
+			}
+			text.append(", ");
+		}
+		text.append("0x7fffffffffffffff, 12345678901234567890e-40, 0.30000000000000004]");
+
+		JsonReader reader = JsonReader.json5(text.toString());
+		double[] expected = new double[10003];
+		reader.beginArray();
+		for (int i = 0; reader.hasNext(); i++) {
+			expected[i] = reader.nextDouble();
+		}
+		reader.endArray();
+		assertArrayEquals(expected, JsonReader.json5(text.toString()).nextDoubleArray());
+	}
+
+	@Test
+	void stringReader() throws IOException {
+		StringBuilder text = new StringBuilder("[\"");
+		StringBuilder expected = new StringBuilder();
+		for (int i = 0; i < 5000; i++) {
+			text.append("ab\\n\\u00e9\\\"\n'");
+			expected.append("ab\n\u00e9\"\n'");
+		}
+		text.append("\", 'abc', 'def', 1.5, \"x\"]");
+
+		JsonReader reader = JsonReader.json5(text.toString());
+		reader.beginArray();
+		StringBuilder actual = new StringBuilder();
+		try (Reader value = reader.nextStringReader()) {
+			char[] chunk = new char[7];
+			int length;
+			while ((length = value.read(chunk, 0, chunk.length)) != -1) {
+				actual.append(chunk, 0, length);
+			}
+			assertEquals(-1, value.read());
+		}
+		assertEquals(expected.toString(), actual.toString());
+		assertEquals("$[1]", reader.path());
+
+		Reader abandoned = reader.nextStringReader();
+		assertEquals('a', abandoned.read());
+		assertEquals("def", reader.nextString());
+		assertEquals(-1, abandoned.read());
+		try (Reader value = reader.nextStringReader()) {
+			assertEquals('1', value.read());
+		}
+		reader.nextStringReader().close();
+		reader.endArray();
+		assertEquals(" at line 5001 column 28 path $", reader.locationString());
+	}
+
+	@Test
+	void binary() throws IOException {
+		Random random = new Random(0);
+		StringBuilder text = new StringBuilder("[");
+		byte[][] values = new byte[20][];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = new byte[i < 10 ? i : random.nextInt(10000)];
+			random.nextBytes(values[i]);
+			String encoded = Base64.getEncoder().encodeToString(values[i]);
+			if (i % 2 == 1) {
+				encoded = encoded.replace("=", "").replace("/", "\\/");
+			}
+			text.append('"').append(encoded).append("\", ");
+		}
+		text.append("'QUJD', 'QQ=', 'QUJDR', 'QU=J', 'QU*J']");
+
+		JsonReader reader = JsonReader.json5(text.toString());
+		reader.beginArray();
+		for (byte[] value : values) {
+			assertArrayEquals(value, reader.nextBinary());
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		reader.nextBinary(out);
+		assertEquals("ABC", out.toString("US-ASCII"));
+		for (int i = 0; i < 3; i++) {
+			assertThrows(IllegalArgumentException.class, reader::nextBinary);
+		}
+		IllegalArgumentException e = assertThrows(IllegalArgumentException.class, reader::nextBinary);
+		assertEquals("Invalid Base64 character '*' at index 2", e.getMessage());
+		reader.endArray();
+
+		// Only the bytes held in memory are limited
+		String encoded = Base64.getEncoder().encodeToString(values[19]);
+		JsonReader limited = JsonReader.json5("['" + encoded + "', '" + encoded + "']").setMaxStringLength(100);
+		limited.beginArray();
+		limited.nextBinary(new ByteArrayOutputStream());
+		assertThrows(LimitExceededException.class, limited::nextBinary);
+	}
+
+	@Test
+	void rawValue() throws IOException {
+		StringBuilder big = new StringBuilder("{ list: [");
+		for (int i = 0; i < 500; i++) {
+			big.append(i).append(", /* ] */ 'x',\n");
+		}
+		big.append("] }");
+		String text = "{a: " + big + ", b: TRUE, c: -0x1F, 'd': \"q\\\"\", e: [], f: 1}";
+
+		// A reader handing out a few chars at a time moves the buffer along while values are captured
+		JsonReader reader = JsonReader.json5(new StringReader(text) {
+			@Override
+			public int read(char[] chars, int offset, int length) throws IOException {
+				return super.read(chars, offset, Math.min(length, 5));
+			}
+		});
+		reader.beginObject();
+		assertEquals("a", reader.nextName());
+		assertEquals(big.toString(), reader.nextRawValue());
+		assertEquals("b", reader.nextName());
+		assertEquals("TRUE", reader.nextRawValue());
+		assertEquals("c", reader.nextName());
+		assertEquals("-0x1F", reader.nextRawValue());
+		assertEquals("d", reader.nextName());
+		assertEquals("\"q\\\"\"", reader.nextRawValue());
+		assertEquals("e", reader.nextName());
+		assertEquals("[]", reader.nextRawValue());
+		assertThrows(IllegalStateException.class, reader::nextRawValue);
+		assertEquals("f", reader.nextName());
+		assertEquals(1, reader.nextInt());
+		reader.endObject();
+
+		JsonReader again = JsonReader.json5(big.toString());
+		again.skipValue();
+		assertEquals(JsonToken.END_DOCUMENT, again.peek());
+
+		assertThrows(LimitExceededException.class, () -> JsonReader.json5(big.toString()).setMaxStringLength(100)
+				.nextRawValue());
+		StringBuilder string = new StringBuilder("'");
+		for (int i = 0; i < 5000; i++) {
+			string.append('x');
+		}
+		JsonReader limited = JsonReader.json5(string.append("'").toString()).setMaxStringLength(10);
+		assertThrows(LimitExceededException.class, limited::nextRawValue);
+		assertEquals("[1, 2]", JsonReader.json5("[1, 2]").setMaxStringLength(6).nextRawValue());
+	}
+
+	@Test
+	void tokenBuffer() throws IOException {
+		String data = "{x: [1, 0x10, -0, 1.5e3, 12345678901234567890, NaN, -Infinity], s: 'caf\u00e9\n', "
+				+ "'n': null, t: true, \"o\": {}}";
+		JsonReader reader = JsonReader.json5("{data: " + data + ", /* late */ type: 'point'}");
+		reader.beginObject();
+		assertEquals("data", reader.nextName());
+		TokenBuffer tokens = TokenBuffer.record(reader);
+		assertEquals("type", reader.nextName());
+		assertEquals("point", reader.nextString());
+		reader.endObject();
+		assertEquals(21, tokens.size());
+
+		String expected = transcript(JsonReader.json5(data));
+		assertEquals(expected, transcript(tokens.reader()));
+		assertEquals(expected, transcript(tokens.reader()));
+
+		VisitorTests.Transcript visited = new VisitorTests.Transcript();
+		JsonReader.json5(data).accept(visited);
+		VisitorTests.Transcript replayed = new VisitorTests.Transcript();
+		tokens.accept(replayed);
+		assertEquals(visited.out.toString(), replayed.out.toString());
+
+		StringWriter written = new StringWriter();
+		JsonWriter writer = JsonWriter.json5(written);
+		writer.setCompact();
+		tokens.writeTo(writer);
+		assertEquals("{x:[1,0x10,-0,1.5e3,12345678901234567890,NaN,-Infinity],s:\"caf\u00e9\\n\",n:null,t:true,"
+				+ "o:{}}", written.toString());
+
+		TokenBuffer json5Numbers = TokenBuffer.record(JsonReader.json5("[0x1F, -0X10, +.5, 5., 1.e2, -0, 1.5e3]"));
+		written = new StringWriter();
+		writer = JsonWriter.json(written);
+		writer.setCompact();
+		json5Numbers.writeTo(writer);
+		assertEquals("[31,-16,0.5,5,1E+2,-0,1.5e3]", written.toString());
+		TokenBuffer nan = TokenBuffer.record(JsonReader.json5("NaN"));
+		assertThrows(IllegalArgumentException.class, () -> nan.writeTo(JsonWriter.json(new StringWriter())));
+
+		JsonReader replay = tokens.reader();
+		replay.beginObject();
+		assertEquals("x", replay.nextName());
+		assertEquals("[1,0x10,-0,1.5e3,12345678901234567890,NaN,-Infinity]", replay.nextRawValue());
+		assertThrows(IllegalStateException.class, replay::nextRawValue);
+		assertEquals("s", replay.nextName());
+		replay.skipValue();
+		assertEquals("n", replay.nextName());
+		replay.nextNull();
+		replay.close();
+		assertThrows(IllegalStateException.class, replay::peek);
+
+		JsonReader names = JsonReader.json5("{a: 1}");
+		names.beginObject();
+		assertThrows(IllegalStateException.class, () -> TokenBuffer.record(names));
+	}
+
+	@Test
+	void peekField() throws IOException {
+		StringBuilder longString = new StringBuilder();
+		for (int i = 0; i < 300; i++) {
+			longString.append("text ").append(i);
+		}
+		String first = "{a: 1.5, b: {c: [2, 'x', true], type: 'inner'}, long: '" + longString + "', type: 'point', "
+				+ "z: 0x10}";
+		String text = "[" + first + ", {type: 'none'}, {x: false}, {}]";
+		JsonReader reader = JsonReader.json5(new StringReader(text) {
+			@Override
+			public int read(char[] chars, int offset, int length) throws IOException {
+				return super.read(chars, offset, Math.min(length, 5));
+			}
+		});
+		reader.beginArray();
+		reader.beginObject();
+		assertEquals("point", reader.peekField("type"));
+		assertEquals(null, reader.peekField("missing"));
+		assertEquals("1.5", reader.peekField("a"));
+		assertEquals("a", reader.nextName());
+		assertEquals(1.5, reader.nextDouble());
+		assertEquals("0x10", reader.peekField("z"));
+		assertEquals("b", reader.nextName());
+		assertEquals("$[0].b", reader.path());
+		reader.beginObject();
+		assertEquals("inner", reader.peekField("type"));
+		assertEquals("c", reader.nextName());
+		reader.skipValue();
+		assertEquals("type", reader.nextName());
+		assertEquals("inner", reader.nextString());
+		reader.endObject();
+		assertEquals("long", reader.nextName());
+		assertEquals(longString.toString(), reader.nextString());
+		assertEquals("type", reader.nextName());
+		assertEquals("point", reader.nextString());
+		assertEquals("z", reader.nextName());
+		assertEquals(16, reader.nextInt());
+		assertEquals(null, reader.peekField("type"));
+		reader.endObject();
+
+		reader.beginObject();
+		assertEquals("none", reader.peekField("type"));
+		assertEquals("none", reader.peekField("type"));
+		assertEquals("type", reader.nextName());
+		assertThrows(IllegalStateException.class, () -> reader.peekField("type"));
+		assertEquals("none", reader.nextString());
+		reader.endObject();
+		reader.beginObject();
+		assertEquals("false", reader.peekField("x"));
+		assertEquals("x", reader.nextName());
+		assertEquals(false, reader.nextBoolean());
+		reader.endObject();
+		reader.beginObject();
+		assertEquals(null, reader.peekField("x"));
+		reader.endObject();
+		reader.endArray();
+		assertEquals(JsonToken.END_DOCUMENT, reader.peek());
+
+		JsonReader replay = TokenBuffer.record(JsonReader.json5(first)).reader();
+		replay.beginObject();
+		assertEquals("point", replay.peekField("type"));
+		assertEquals(null, replay.peekField("c"));
+		StringBuilder names = new StringBuilder();
+		while (replay.hasNext()) {
+			names.append(replay.nextName()).append(' ');
+			replay.skipValue();
+		}
+		replay.endObject();
+		assertEquals("a b long type z ", names.toString());
+		assertEquals(JsonToken.END_DOCUMENT, replay.peek());
+
+		JsonReader commented = JsonReader.json5("{// first\nx: 1, /* second */ y: {z: 2}, // third\ntype: 'a'}")
+				.setRetainComments();
+		commented.beginObject();
+		assertEquals("a", commented.peekField("type"));
+		assertEquals("x", commented.nextName());
+		assertEquals("first", commented.takeComment());
+		assertEquals(1, commented.nextInt());
+		assertEquals("y", commented.nextName());
+		assertEquals("second", commented.takeComment());
+		commented.skipValue();
+		assertEquals("type", commented.nextName());
+		assertEquals("third", commented.takeComment());
+	}
+
+	@Test
+	void metrics() throws IOException {
+		StringBuilder longString = new StringBuilder();
+		for (int i = 0; i < 2000; i++) {
+			longString.append('s');
+		}
+		String text = "{a: [1, 2, {b: 'x\\ny'}], c: \"" + longString + "\", d: null}";
+		List<JsonMetrics> reported = new ArrayList<>();
+		JsonReader reader = JsonReader.json5(text).setMetricsListener(new JsonMetricsListener() {
+			@Override
+			public void onRead(JsonMetrics metrics) {
+				reported.add(metrics);
+			}
+		});
+		transcript(reader);
+		reader.close();
+
+		assertEquals(1, reported.size());
+		JsonMetrics metrics = reported.get(0);
+		assertEquals(text.length(), metrics.getCharCount());
+		assertEquals(2, metrics.getTokenCount(JsonToken.BEGIN_OBJECT));
+		assertEquals(1, metrics.getTokenCount(JsonToken.END_ARRAY));
+		assertEquals(4, metrics.getTokenCount(JsonToken.NAME));
+		assertEquals(2, metrics.getTokenCount(JsonToken.STRING));
+		assertEquals(2, metrics.getTokenCount(JsonToken.NUMBER));
+		assertEquals(1, metrics.getTokenCount(JsonToken.NULL));
+		assertEquals(0, metrics.getTokenCount(JsonToken.BOOLEAN));
+		assertEquals(2, metrics.getBufferFills());
+		assertEquals(2, metrics.getStringBuilderFallbacks());
+		assertEquals(1, metrics.getEscapeCount());
+		assertEquals(3, metrics.getMaxDepth());
+		assertTrue(metrics.getNanos() > 0);
+	}
+
+	@Test
+	void limits() throws IOException {
+		StringBuilder deep = new StringBuilder();
+		for (int i = 0; i < 100000; i++) {
+			deep.append('[');
+		}
+		JsonReader nested = JsonReader.json5(deep.toString()).setMaxDepth(64);
+		LimitExceededException e = assertThrows(LimitExceededException.class, nested::skipValue);
+		assertEquals(64, e.getMessage().split("\\[").length - 1, "path of the deepest array");
+
+		JsonReader shallow = JsonReader.json5("[[1], {a: [2]}]").setMaxDepth(2);
+		shallow.beginArray();
+		shallow.skipValue();
+		shallow.beginObject();
+		assertEquals("a", shallow.nextName());
+		assertThrows(LimitExceededException.class, shallow::beginArray);
+
+		StringBuilder longString = new StringBuilder();
+		for (int i = 0; i < 5000; i++) {
+			longString.append("ab\\n");
+		}
+		String strings = "['" + longString + "', 'short', '" + longString + "']";
+		JsonReader reader = JsonReader.json5(strings).setMaxStringLength(10);
+		reader.beginArray();
+		reader.skipValue();
+		assertEquals("short", reader.nextString());
+		assertThrows(LimitExceededException.class, reader::nextString);
+		assertEquals(15000, JsonReader.json5("'" + longString + "'").setMaxStringLength(15000).nextString().length());
+
+		JsonReader names = JsonReader.json5("{" + longString.substring(0, 12) + ": 1}").setMaxStringLength(10);
+		names.beginObject();
+		assertThrows(LimitExceededException.class, names::nextName);
+		JsonReader visited = JsonReader.json5("{abcdefghijkl: 1}").setMaxStringLength(10);
+		assertThrows(LimitExceededException.class, () -> visited.accept(new VisitorTests.Transcript()));
+
+		JsonReader numbers = JsonReader.json5("[12345, 123456, 0x12345]").setMaxNumberLength(5);
+		numbers.beginArray();
+		assertEquals(12345, numbers.nextInt());
+		assertThrows(LimitExceededException.class, numbers::peek);
+		assertEquals(1024, JsonReader.json5("1").getMaxNumberLength());
+
+		JsonReader document = JsonReader.json5("['" + longString + "']").setMaxDocumentLength(4096);
+		assertThrows(LimitExceededException.class, document::skipValue);
+		JsonReader.json5("[1, 2, 3]").setMaxDocumentLength(9).skipValue();
+
+		JsonReader members = JsonReader.json5("[{a: 1, b: {c: 1, d: 2}, c: 3}, {a: 1, b: 2, c: 3, d: 4}]")
+				.setMaxNamesPerObject(3);
+		members.beginArray();
+		members.beginObject();
+		assertEquals(null, members.peekField("d"));
+		while (members.hasNext()) {
+			members.skipValue();
+		}
+		members.endObject();
+		members.beginObject();
+		for (int i = 0; i < 3; i++) {
+			members.nextName();
+			members.skipValue();
+		}
+		assertThrows(LimitExceededException.class, members::nextName);
+	}
+
+	@Test
+	void exceptionLocation() throws IOException {
+		for (boolean stackless : new boolean[] { false, true }) {
+			JsonReader reader = JsonReader.json5("{a: [1,\n  'b', :]}");
+			if (stackless) {
+				reader.setStacklessExceptions();
+			}
+			reader.beginObject();
+			reader.nextName();
+			reader.beginArray();
+			reader.nextInt();
+			reader.nextString();
+			MalformedSyntaxException e = assertThrows(MalformedSyntaxException.class, reader::peek);
+			assertEquals("unable to parse number $.a[2]", e.getMessage());
+			assertEquals("unable to parse number", e.getReason());
+			assertEquals("$.a[2]", e.getPath());
+			assertEquals(ErrorCode.INVALID_LITERAL, e.getCode());
+			assertArrayEquals(new Object[] { "a", 2 }, e.getPathSegments());
+			assertEquals(2, e.getLine());
+			assertEquals(8, e.getColumn());
+			assertEquals(15, e.getOffset());
+			assertEquals(stackless, e.getStackTrace().length == 0);
+		}
+
+		JsonReader nested = JsonReader.json5("[[1, [2]]]").setMaxDepth(2).setStacklessExceptions();
+		nested.beginArray();
+		nested.beginArray();
+		nested.nextInt();
+		LimitExceededException e = assertThrows(LimitExceededException.class, nested::beginArray);
+		assertEquals("$[0][1]", e.getPath());
+		assertEquals(ErrorCode.DEPTH_LIMIT, e.getCode());
+		e.getPathSegments()[0] = 5;
+		assertEquals("$[0][1]", e.getPath());
+		assertEquals(0, e.getStackTrace().length);
+		assertEquals(-1, new ParseException("message").getLine());
+		assertNull(new ParseException("message").getCode());
+	}
+
+	@Test
+	void recovering() throws IOException {
+		JsonReader reader = JsonReader.json5("{\n  a: 1\n  b: 'x\\qy',\n  c: [1, 2 3, @, 4],\n  d: {e: }, f: true,\n"
+				+ "  g: [1, 2").setRecovering();
+		assertEquals("BEGIN_OBJECT NAME a $.a NUMBER 1 NAME b $.b STRING xqy NAME c $.c BEGIN_ARRAY NUMBER 1 NUMBER 2 "
+				+ "NUMBER 3 NUMBER 4 END_ARRAY NAME d $.d BEGIN_OBJECT NAME e $.d.e NULL END_OBJECT NAME f $.f "
+				+ "BOOLEAN true NAME g $.g BEGIN_ARRAY NUMBER 1 NUMBER 2 END_ARRAY END_OBJECT END_DOCUMENT",
+				transcript(reader));
+		List<String> found = new ArrayList<>();
+		for (MalformedSyntaxException e : reader.getDiagnostics()) {
+			found.add(e.getLine() + ":" + e.getColumn() + " " + e.getMessage());
+			assertEquals(0, e.getStackTrace().length);
+		}
+		assertEquals("[3:4 Unterminated object $.a, 3:10 Invalid escape sequence 113 $.b, "
+				+ "4:13 Unterminated array $.c[2], 4:15 unexpected character @ $.c[3], "
+				+ "5:10 unable to parse number $.d.e, 6:11 Unexpected end of input $.g[2]]", found.toString());
+
+		JsonReader values = JsonReader.json5("{a: tru, b: 2, c 3, d: {e: [1, }, f: ").setRecovering();
+		assertEquals("BEGIN_OBJECT NAME a $.a NULL NAME b $.b NUMBER 2 NAME c $.c NULL NAME d $.d BEGIN_OBJECT "
+				+ "NAME e $.d.e BEGIN_ARRAY NUMBER 1 END_ARRAY END_OBJECT NAME f $.f NULL END_OBJECT END_DOCUMENT",
+				transcript(values));
+
+		JsonReader commas = JsonReader.json5("[1,,2]").setRecovering();
+		assertEquals("BEGIN_ARRAY NUMBER 1 NUMBER 2 END_ARRAY END_DOCUMENT", transcript(commas));
+		assertEquals(1, commas.getDiagnostics().size());
+
+		JsonReader strict = JsonReader.json("{'a': [1, 2}").setRecovering();
+		assertEquals("BEGIN_OBJECT NAME a $.a BEGIN_ARRAY NUMBER 1 NUMBER 2 END_ARRAY END_OBJECT END_DOCUMENT",
+				transcript(strict));
+		assertEquals("[Found potentially valid JSON5, but invalid JSON while in strict mode $., "
+				+ "Unterminated array $.a[2]]", strict.getDiagnostics().toString().replace(
+						MalformedSyntaxException.class.getName() + ": ", ""));
+
+		JsonReader stray = JsonReader.json5("]").setRecovering();
+		assertEquals(JsonToken.END_DOCUMENT, stray.peek());
+		assertEquals("[Unexpected ']' $, Unexpected end of input $]", stray.getDiagnostics().toString().replace(
+				MalformedSyntaxException.class.getName() + ": ", ""));
+		JsonReader strayBeforeValue = JsonReader.json5("] 1e0").setRecovering();
+		assertEquals("NUMBER 1 END_DOCUMENT", transcript(strayBeforeValue));
+		assertEquals(1, strayBeforeValue.getDiagnostics().size());
+		JsonReader strayAfterValue = JsonReader.json5("[] ]").setRecovering();
+		assertEquals("BEGIN_ARRAY END_ARRAY END_DOCUMENT", transcript(strayAfterValue));
+		assertEquals(1, strayAfterValue.getDiagnostics().size());
+
+		assertThrows(MalformedSyntaxException.class, () -> transcript(JsonReader.json5("[1 2]")));
+		assertEquals(0, JsonReader.json5("[]").getDiagnostics().size());
+	}
+
+	@Test
+	void offsets() throws IOException {
+		StringBuilder text = new StringBuilder("\ufeff[");
+		for (int i = 0; i < 2000; i++) {
+			text.append(i % 3 == 0 ? "\n  " : " ").append("{'caf\u00e9 \ud83d\ude00': ").append(i).append("},");
+		}
+		text.append("\n]");
+		Path file = Files.createTempFile("offsets", ".json5");
+		try {
+			Files.write(file, text.toString().getBytes(StandardCharsets.UTF_8));
+			List<Long> offsets = new ArrayList<>();
+			try (JsonReader reader = JsonReader.json5(file)) {
+				reader.beginArray();
+				while (reader.hasNext()) {
+					long chars = reader.getTokenOffset();
+					assertEquals('{', text.charAt((int) chars));
+					long bytes = reader.getTokenByteOffset();
+					assertEquals(text.substring(0, (int) chars).getBytes(StandardCharsets.UTF_8).length, bytes);
+					assertEquals(bytes, reader.getTokenByteOffset());
+					offsets.add(bytes);
+					reader.skipValue();
+				}
+				assertEquals(text.length() - 1, reader.getTokenOffset());
+				assertEquals(669, reader.getTokenLine());
+				assertEquals(1, reader.getTokenColumn());
+			}
+
+			try (FileChannel channel = FileChannel.open(file)) {
+				JsonReader reader = JsonReader.json5(channel, offsets.get(1500), JsonToken.BEGIN_ARRAY);
+				reader.beginObject();
+				assertEquals("caf\u00e9 \ud83d\ude00", reader.nextName());
+				assertEquals(1500, reader.nextInt());
+				reader.endObject();
+				assertEquals((long) offsets.get(1501), reader.getTokenByteOffset());
+				for (int i = 1501; i < 2000; i++) {
+					reader.skipValue();
+				}
+				reader.endArray();
+				assertEquals(JsonToken.END_DOCUMENT, reader.peek());
+
+				JsonReader member = JsonReader.json5(channel, offsets.get(3) + 1, JsonToken.BEGIN_OBJECT);
+				member.nextName();
+				assertEquals(3, member.nextInt());
+				member.endObject();
+				assertThrows(IllegalStateException.class, () -> JsonReader.json5("[]").getTokenByteOffset());
+			}
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	void arrayIndex() throws IOException {
+		StringBuilder text = new StringBuilder("// elements\n[");
+		for (int i = 0; i < 5000; i++) {
+			text.append("{n: ").append(i).append(", s: '\u00e9\ud83d\ude00'},\n");
+		}
+		text.append("]");
+		Path file = Files.createTempFile("array", ".json5");
+		Path indexFile = Files.createTempFile("array", ".idx");
+		try {
+			Files.write(file, text.toString().getBytes(StandardCharsets.UTF_8));
+			JsonArrayIndex.build(file, 100).write(indexFile);
+			JsonArrayIndex index = JsonArrayIndex.read(indexFile);
+			assertEquals(5000, index.size());
+			assertEquals(100, index.getInterval());
+			assertTrue(index.isCurrent(file));
+
+			try (FileChannel channel = FileChannel.open(file)) {
+				for (long element : new long[] { 0, 99, 100, 4321, 4999 }) {
+					JsonReader reader = index.open(channel, element);
+					reader.beginObject();
+					assertEquals("n", reader.nextName());
+					assertEquals(element, reader.nextLong());
+					assertEquals("$[0].n", reader.path());
+					reader.skipValue();
+					reader.skipValue();
+					reader.endObject();
+				}
+				JsonReader first = index.open(channel, 1);
+				JsonReader last = index.open(channel, 4999);
+				first.close();
+				last.skipValue();
+				last.endArray();
+				assertEquals(JsonToken.END_DOCUMENT, last.peek());
+				last.close();
+				assertTrue(channel.isOpen());
+				assertEquals(0, channel.position());
+				first = index.open(channel, 1);
+				first.beginObject();
+				assertEquals("n", first.nextName());
+				assertEquals(1, first.nextInt());
+				assertThrows(IndexOutOfBoundsException.class, () -> index.open(channel, 5000));
+			}
+			assertThrows(IllegalArgumentException.class, () -> index.getOffset(150));
+			assertEquals(text.indexOf("{n: 200,") + 200 * 3, index.getOffset(200));
+		} finally {
+			Files.delete(file);
+			Files.delete(indexFile);
+		}
+	}
+
+	/**
+	 * Reads a value through every kind of {@code next} method, noting what each one returns.
+	 */
+	private static String transcript(JsonReader reader) throws IOException {
+		StringBuilder out = new StringBuilder();
+		int depth = 0;
+		do {
+			JsonToken token = reader.peek();
+			out.append(token).append(' ');
+			switch (token) {
+				case BEGIN_OBJECT:
+					reader.beginObject();
+					depth++;
+					break;
+				case END_OBJECT:
+					reader.endObject();
+					depth--;
+					break;
+				case BEGIN_ARRAY:
+					reader.beginArray();
+					depth++;
+					break;
+				case END_ARRAY:
+					reader.endArray();
+					depth--;
+					break;
+				case NAME:
+					out.append(reader.nextName()).append(' ').append(reader.path()).append(' ');
+					break;
+				case STRING:
+					out.append(reader.nextString()).append(' ');
+					break;
+				case NUMBER:
+					out.append(reader.nextNumber()).append(' ');
+					break;
+				case BOOLEAN:
+					out.append(reader.nextBoolean()).append(' ');
+					break;
+				case NULL:
+					reader.nextNull();
+					break;
+				default:
+					throw new AssertionError("Unexpected " + token);
+			}
+		} while (depth != 0);
+		out.append(reader.peek());
+		return out.toString();
+	}
+
 	static void read(JsonReader reader) throws IOException, ParseException {
 		innerRead(reader, 0);
 
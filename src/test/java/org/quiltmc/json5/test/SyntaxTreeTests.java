@@ -0,0 +1,237 @@
+/*
+ * Copyright 2021 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.json5.test;
+
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+import org.quiltmc.json5.syntax.Diagnostic;
+import org.quiltmc.json5.syntax.JsonSyntaxTree;
+import org.quiltmc.json5.syntax.JsonTokenizer;
+import org.quiltmc.json5.syntax.SyntaxKind;
+import org.quiltmc.json5.syntax.SyntaxNode;
+import org.quiltmc.json5.syntax.TextEdit;
+import org.quiltmc.json5.syntax.TokenBatch;
+import org.quiltmc.json5.tree.JsonSnapshot;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SyntaxTreeTests {
+	@TestFactory
+	Stream<DynamicTest> lossless() throws IOException {
+		return Files.walk(Paths.get("tests").resolve("json5-tests")).filter(path -> !Files.isDirectory(path))
+				.map(path -> DynamicTest.dynamicTest("Lossless: " + path, () -> {
+					String text = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+					JsonSyntaxTree tree = JsonSyntaxTree.parse(text);
+					assertEquals(text, tree.text());
+
+					String str = path.toString();
+					if (str.endsWith(".json") || str.endsWith(".json5")) {
+						assertEquals("[]", tree.diagnostics().toString());
+					}
+				}));
+	}
+
+	@Test
+	void edits() {
+		String original = "// Server settings\n{\n\t// The port to listen on\n\tport: 8080, // default\n\thost: 'localhost',\n\tlegacy: true,\n\t\"limits\": { 'max': 0x10 }\n}\n";
+		JsonSyntaxTree tree = JsonSyntaxTree.parse(original);
+		assertEquals("0x10", tree.find("limits", "max").text());
+		assertNull(tree.find("limits", "min"));
+
+		tree.setValue("25565", "port");
+		assertEquals("// Server settings\n{\n\t// The port to listen on\n\tport: 25565, // default\n\thost: 'localhost',\n\tlegacy: true,\n\t\"limits\": { 'max': 0x10 }\n}\n", tree.text());
+
+		tree.remove("legacy");
+		tree.setValue("1", "limits", "min");
+		tree.setValue(JsonSnapshot.of("eu").toElement(), "region", "name");
+		assertEquals("// Server settings\n{\n\t// The port to listen on\n\tport: 25565, // default\n\thost: 'localhost',\n\t\"limits\": { 'max': 0x10, \"min\": 1 },\n\t\"region\": {name: \"eu\"}\n}\n", tree.text());
+		assertFalse(tree.hasErrors());
+
+		StringBuilder patched = new StringBuilder(original);
+		for (TextEdit edit : tree.takeEdits()) {
+			assertTrue(edit.removedLength() + edit.text().length() < 30);
+			edit.applyTo(patched);
+		}
+		assertEquals(tree.text(), patched.toString());
+		assertEquals("[]", tree.takeEdits().toString());
+
+		tree.remove("limits");
+		tree.remove("port");
+		assertEquals("// Server settings\n{\n\thost: 'localhost',\n\t\"region\": {name: \"eu\"}\n}\n", tree.text());
+		tree.remove("region");
+		assertEquals("// Server settings\n{\n\thost: 'localhost'\n}\n", tree.text());
+		tree.remove("host");
+		assertEquals("// Server settings\n{\n}\n", tree.text());
+		tree.setValue("[]", "list");
+		tree.setValue("'a'", "list", "0");
+		tree.setValue("'b'", "list", "1");
+		assertEquals("// Server settings\n{\n\tlist: ['a', 'b']\n}\n", tree.text());
+		tree.remove("list", "0");
+		assertEquals("// Server settings\n{\n\tlist: ['b']\n}\n", tree.text());
+
+		assertThrows(IllegalArgumentException.class, () -> tree.setValue("[1,", "list"));
+		assertThrows(IllegalArgumentException.class, () -> tree.setValue("1", "list", "5"));
+	}
+
+	@Test
+	void diagnostics() {
+		JsonSyntaxTree tree = JsonSyntaxTree.parse("{a: 1 b: 'x, c: }");
+		List<Diagnostic> diagnostics = tree.diagnostics();
+		assertEquals(3, diagnostics.size(), diagnostics.toString());
+		assertEquals("Expected ',' or '}'", diagnostics.get(0).message());
+		assertEquals(6, diagnostics.get(0).offset());
+		assertEquals("Unterminated string", diagnostics.get(1).message());
+		assertEquals(9, diagnostics.get(1).offset());
+		assertEquals("Expected '}'", diagnostics.get(2).message());
+		assertEquals("{a: 1 b: 'x, c: }", tree.text());
+
+		JsonSyntaxTree empty = JsonSyntaxTree.parse("// nothing here\n");
+		assertEquals("Expected a value", empty.diagnostics().get(0).message());
+		empty.setValue("2", "a", "b");
+		assertEquals("// nothing here\n{a: {b: 2}}", empty.text());
+		assertFalse(empty.hasErrors());
+	}
+
+	@Test
+	void incremental() {
+		String original = "{\n\tname: 'demo', // comment\n\tlist: [1, 2, {a: [3, 4]}, \"x\"],\n\t/* block */\n\tnested: {b: {c: null, d: [true, false]}},\n\tlast: 0x1F,\n}\n";
+		String alphabet = "{}[],:'\"/*\n\r \\1aex.";
+		Random random = new Random(42);
+		for (int round = 0; round < 200; round++) {
+			JsonSyntaxTree tree = JsonSyntaxTree.parse(original);
+			for (int i = 0; i < 20; i++) {
+				int offset = random.nextInt(tree.length() + 1);
+				int removed = random.nextInt(Math.min(4, tree.length() - offset) + 1);
+				StringBuilder inserted = new StringBuilder();
+				for (int j = random.nextInt(4); j > 0; j--) {
+					inserted.append(alphabet.charAt(random.nextInt(alphabet.length())));
+				}
+
+				StringBuilder expected = new StringBuilder(tree.text());
+				expected.replace(offset, offset + removed, inserted.toString());
+				tree.edit(offset, removed, inserted.toString());
+				assertEquals(dump(JsonSyntaxTree.parse(expected.toString()).root()), dump(tree.root()),
+						"after replacing " + removed + " at " + offset + " with '" + inserted + "' giving " + expected);
+			}
+		}
+	}
+
+	@Test
+	void incrementalReuse() {
+		StringBuilder text = new StringBuilder("{\n");
+		for (int i = 0; i < 1000; i++) {
+			text.append("\tkey").append(i).append(": {values: [").append(i).append(", ").append(i * 2).append("]},\n");
+		}
+		text.append("}\n");
+		JsonSyntaxTree tree = JsonSyntaxTree.parse(text.toString());
+		SyntaxNode before = tree.find("key500");
+		SyntaxNode other = tree.find("key501");
+
+		int offset = tree.offsetOf("key500", "values", "1");
+		tree.edit(offset, 4, "12345");
+		assertEquals("12345", tree.find("key500", "values", "1").text());
+		assertSame(other, tree.find("key501"));
+		assertNotSame(before, tree.find("key500"));
+
+		// Removing the comma after key500 changes what the parser expects next, but key501 is still left untouched
+		offset = tree.offsetOf("key500") + tree.find("key500").width();
+		tree.edit(offset, 1, "");
+		assertEquals("[Expected ',' or '}' at offset " + (offset + 2) + "]", tree.diagnostics().toString());
+		assertSame(other, tree.find("key501"));
+		tree.edit(offset, 0, ",");
+		assertFalse(tree.hasErrors());
+		assertEquals("12345", tree.find("key500", "values", "1").text());
+	}
+
+	@TestFactory
+	Stream<DynamicTest> tokenizer() throws IOException {
+		return Files.walk(Paths.get("tests").resolve("json5-tests")).filter(path -> !Files.isDirectory(path))
+				.map(path -> DynamicTest.dynamicTest("Tokenize: " + path, () -> {
+					String text = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+					String expected = tokens(JsonTokenizer.of(text), text, 1024);
+					// A reader which returns a single character at a time makes every token cross a refill
+					Reader trickle = new StringReader(text) {
+						@Override
+						public int read(char[] buffer, int offset, int length) throws IOException {
+							return super.read(buffer, offset, Math.min(length, 1));
+						}
+					};
+					assertEquals(expected, tokens(JsonTokenizer.of(trickle), text, 3));
+				}));
+	}
+
+	@Test
+	void tokenizerSpans() throws IOException {
+		String text = "{a: 'x\\\ny', /* 1\n2 */ b: [1,2]}\n";
+		assertEquals("BEGIN_OBJECT 0-1 1, IDENTIFIER 1-2 1, COLON 2-3 1, WHITESPACE 3-4 1, STRING 4-10 1, "
+				+ "COMMA 10-11 2, WHITESPACE 11-12 2, BLOCK_COMMENT 12-21 2, WHITESPACE 21-22 3, IDENTIFIER 22-23 3, COLON 23-24 3, "
+				+ "WHITESPACE 24-25 3, BEGIN_ARRAY 25-26 3, NUMBER 26-27 3, COMMA 27-28 3, NUMBER 28-29 3, "
+				+ "END_ARRAY 29-30 3, END_OBJECT 30-31 3, NEWLINE 31-32 3, ", tokens(JsonTokenizer.of(text), text, 4));
+	}
+
+	/**
+	 * Lists the tokens with their spans and lines, checking that they cover the text.
+	 */
+	private static String tokens(JsonTokenizer tokenizer, String text, int batchSize) throws IOException {
+		StringBuilder out = new StringBuilder();
+		StringBuilder covered = new StringBuilder();
+		TokenBatch batch = new TokenBatch(batchSize);
+		while (tokenizer.next(batch) > 0) {
+			for (int i = 0; i < batch.size(); i++) {
+				out.append(SyntaxKind.name(batch.kind(i))).append(' ').append(batch.start(i)).append('-')
+						.append(batch.end(i)).append(' ').append(batch.line(i)).append(", ");
+				covered.append(text, (int) batch.start(i), (int) batch.end(i));
+			}
+		}
+		assertEquals(0, tokenizer.next(batch));
+		assertEquals(text, covered.toString());
+		tokenizer.close();
+		return out.toString();
+	}
+
+	private static String dump(SyntaxNode node) {
+		if (node.isToken()) {
+			return SyntaxKind.name(node.kind()) + "(" + node.text() + ")";
+		}
+		StringBuilder builder = new StringBuilder(SyntaxKind.name(node.kind()));
+		if (node.message() != null) {
+			builder.append('<').append(node.message()).append('>');
+		}
+		builder.append('[');
+		for (int i = 0; i < node.childCount(); i++) {
+			builder.append(dump(node.child(i))).append(' ');
+		}
+		return builder.append(']').toString();
+	}
+}
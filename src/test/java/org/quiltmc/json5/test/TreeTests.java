@@ -0,0 +1,211 @@
+/*
+ * Copyright 2021 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.json5.test;
+
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+import org.quiltmc.json5.JsonReader;
+import org.quiltmc.json5.JsonWriter;
+import org.quiltmc.json5.exception.MalformedSyntaxException;
+import org.quiltmc.json5.tree.JsonCache;
+import org.quiltmc.json5.tree.JsonElement;
+import org.quiltmc.json5.tree.JsonObject;
+import org.quiltmc.json5.tree.JsonSnapshot;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TreeTests {
+	@TestFactory
+	Stream<DynamicTest> roundTrip() throws IOException {
+		return Files.walk(Paths.get("tests").resolve("json5-tests")).filter(path -> {
+			String str = path.toString();
+			return !Files.isDirectory(path) && (str.endsWith(".json") || str.endsWith(".json5"));
+		}).map(path -> DynamicTest.dynamicTest("Round trip: " + path, () -> {
+			JsonElement tree;
+			try (JsonReader reader = JsonReader.json5(path).setRetainComments()) {
+				tree = JsonElement.read(reader);
+			}
+
+			StringWriter out = new StringWriter();
+			tree.write(JsonWriter.json5(out));
+
+			try (JsonReader reader = JsonReader.json5(out.toString())) {
+				assertEquals(tree, JsonElement.read(reader));
+			}
+		}));
+	}
+
+	@Test
+	void comments() throws IOException {
+		String json5 = "// header\n{\n\t// about a\n\ta: 1,\n\t/*\n\t * about b\n\t * second line\n\t */\n\tb: [true, /* inline */ null],\n\t// last\n}";
+		JsonReader reader = JsonReader.json5(json5).setRetainComments();
+		reader.peek();
+		assertEquals("header", reader.takeComment());
+		JsonObject object = JsonElement.read(reader).asObject();
+
+		assertEquals("about a", object.getComment("a"));
+		assertEquals("about b\nsecond line", object.getComment("b"));
+		assertEquals("inline", object.get("b").asArray().getComment(1));
+		assertEquals("last", object.getTrailingComment());
+
+		StringWriter out = new StringWriter();
+		object.write(JsonWriter.json5(out));
+		JsonObject reread = JsonElement.read(JsonReader.json5(out.toString()).setRetainComments()).asObject();
+		assertEquals("about b\nsecond line", reread.getComment("b"));
+		assertEquals("last", reread.getTrailingComment());
+	}
+
+	@Test
+	void numbers() throws IOException {
+		JsonElement array = JsonElement.read(JsonReader.json5("[0x1F, +1.5, .5, 5., -Infinity, 12345678901234]"));
+
+		assertEquals(31, array.asArray().get(0).asInt());
+		assertEquals(1.5, array.asArray().get(1).asDouble());
+		assertEquals("+1.5", array.asArray().get(1).asString());
+		assertEquals(0.5, array.asArray().get(2).asDouble());
+		assertEquals(5L, array.asArray().get(3).asLong());
+		assertEquals(Double.NEGATIVE_INFINITY, array.asArray().get(4).asDouble());
+		assertEquals(12345678901234L, array.asArray().get(5).asLong());
+
+		StringWriter out = new StringWriter();
+		JsonWriter writer = JsonWriter.json(out);
+		writer.setCompact();
+		JsonElement.read(JsonReader.json5("[0x1F, +1.5, .5, 5.]")).write(writer);
+		assertEquals("[31,1.5,0.5,5]", out.toString());
+	}
+
+	@Test
+	void recovering() throws IOException {
+		JsonObject object = JsonElement.read(JsonReader.json5("{a: tru, b: 2}").setRecovering()).asObject();
+		assertEquals(2, object.size());
+		assertTrue(object.get("a").isNull());
+		assertEquals(2, object.get("b").asInt());
+	}
+
+	@Test
+	void builtEqualsParsed() throws IOException {
+		JsonObject built = new JsonObject();
+		built.put("a", 0.1);
+		built.put("b", 1e-7);
+		built.put("c", 3.0);
+		built.put("d", 12345678901234L);
+		StringWriter out = new StringWriter();
+		built.write(JsonWriter.json(out));
+		JsonElement parsed = JsonElement.read(JsonReader.json(out.toString()));
+		assertEquals(built, parsed);
+		assertEquals(built.hashCode(), parsed.hashCode());
+		assertEquals(JsonElement.read(JsonReader.json5("[0.1, 3]")), JsonElement.read(JsonReader.json5("[1e-1, 3.0]")));
+	}
+
+	@Test
+	void manyMembers() {
+		JsonObject object = new JsonObject();
+		for (int i = 0; i < 1000; i++) {
+			object.put("key" + i, i);
+		}
+		for (int i = 0; i < 1000; i += 2) {
+			object.remove("key" + i);
+		}
+
+		assertEquals(500, object.size());
+		assertEquals("key1", object.nameAt(0));
+		for (int i = 0; i < 1000; i++) {
+			if (i % 2 == 0) {
+				assertFalse(object.has("key" + i));
+				assertNull(object.get("key" + i));
+			} else {
+				assertEquals(i, object.get("key" + i).asInt());
+			}
+		}
+	}
+
+	@Test
+	void snapshots() throws IOException {
+		String json5 = "{\n\t// the server\n\tserver: { port: 25565, motd: 'hello' },\n\tworlds: [{ name: 'a' }, { name: 'b' }],\n}";
+		JsonSnapshot original = JsonSnapshot.read(JsonReader.json5(json5).setRetainComments());
+		JsonSnapshot changed = original.withPath(JsonSnapshot.of(25566), "server", "port");
+
+		assertEquals(25565, original.get("server").get("port").asInt());
+		assertEquals(25566, changed.get("server").get("port").asInt());
+		assertEquals("the server", changed.getComment("server"));
+		assertSame(original.get("worlds"), changed.get("worlds"));
+		assertSame(original.get("server").get("motd"), changed.get("server").get("motd"));
+		assertEquals(JsonSnapshot.read(JsonReader.json5(changed.toString())), changed);
+
+		JsonSnapshot reloaded = JsonSnapshot.read(JsonReader.json5(json5.replace("'b'", "'c'")).setRetainComments()).sharingWith(original);
+		assertSame(original.get("server"), reloaded.get("server"));
+		assertSame(original.get("worlds").get(0), reloaded.get("worlds").get(0));
+		assertNotSame(original.get("worlds"), reloaded.get("worlds"));
+		assertEquals("c", reloaded.get("worlds").get(1).get("name").asString());
+	}
+
+	@Test
+	void cache() throws IOException {
+		Path file = Files.createTempFile("cache", ".json5");
+		try {
+			Files.write(file, "{a: {b: [1, 2]}, c: 'x'}".getBytes(StandardCharsets.UTF_8));
+			JsonCache cache = new JsonCache(1024);
+			JsonSnapshot first = cache.get(file);
+			assertSame(first, cache.get(file));
+			assertEquals(1, cache.getHitCount());
+			assertEquals(1, cache.getMissCount());
+			assertEquals(Files.size(file), cache.getCachedBytes());
+
+			Files.write(file, "{a: {b: [1, 2]}, c: 'yz'}".getBytes(StandardCharsets.UTF_8));
+			JsonSnapshot second = cache.get(file);
+			assertEquals("yz", second.get("c").asString());
+			assertSame(first.get("a"), second.get("a"));
+
+			// Same size and modification time, so only a hash of the content tells them apart
+			FileTime modified = Files.getLastModifiedTime(file);
+			Files.write(file, "{a: {b: [1, 2]}, c: 'zz'}".getBytes(StandardCharsets.UTF_8));
+			Files.setLastModifiedTime(file, modified);
+			assertSame(second, cache.get(file));
+			JsonCache hashing = new JsonCache(1024).setHashContent();
+			assertEquals("zz", hashing.get(file).get("c").asString());
+			Files.write(file, "{a: {b: [1, 2]}, c: 'yz'}".getBytes(StandardCharsets.UTF_8));
+			Files.setLastModifiedTime(file, modified);
+			assertEquals("yz", hashing.get(file).get("c").asString());
+
+			JsonCache small = new JsonCache(Files.size(file) - 1);
+			assertNotSame(small.get(file), small.get(file));
+			assertEquals(0, small.getCachedBytes());
+
+			Files.write(file, "{a: }".getBytes(StandardCharsets.UTF_8));
+			assertThrows(MalformedSyntaxException.class, () -> cache.get(file));
+			assertEquals(0, cache.getCachedBytes());
+		} finally {
+			Files.delete(file);
+		}
+	}
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2021 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.json5.test;
+
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+import org.quiltmc.json5.JsonReader;
+import org.quiltmc.json5.JsonToken;
+import org.quiltmc.json5.JsonVisitor;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class VisitorTests {
+	@TestFactory
+	Stream<DynamicTest> sameAsPull() throws IOException {
+		return Files.walk(Paths.get("tests").resolve("json5-tests")).filter(path -> {
+			String str = path.toString();
+			return !Files.isDirectory(path) && (str.endsWith(".json") || str.endsWith(".json5"));
+		}).map(path -> DynamicTest.dynamicTest("Visit: " + path, () -> {
+			StringBuilder expected = new StringBuilder();
+			try (JsonReader reader = JsonReader.json5(path)) {
+				pull(reader, expected);
+			}
+
+			Transcript visitor = new Transcript() {
+				@Override
+				public void onLong(long value) {
+					onDouble(value);
+				}
+
+				@Override
+				public void onDouble(double value) {
+					out.append("NUMBER ").append(value + 0.0).append(' ');
+				}
+
+				@Override
+				public void onNumber(char[] chars, int offset, int length) {
+					onDouble(Double.parseDouble(new String(chars, offset, length)));
+				}
+			};
+			try (JsonReader reader = JsonReader.json5(path)) {
+				reader.accept(visitor);
+				assertEquals(JsonToken.END_DOCUMENT, reader.peek());
+			}
+			assertEquals(expected.toString(), visitor.out.toString());
+		}));
+	}
+
+	@Test
+	void values() throws IOException {
+		JsonReader reader = JsonReader.json5("{a: 1, 'b': [12345678901234567890, 1.5, -0x10, \"x\\ny\", NaN],\n"
+				+ "/* c */ c: null, d: true}");
+		reader.setRetainComments();
+		Transcript visitor = new Transcript();
+		reader.accept(visitor);
+		assertEquals("BEGIN_OBJECT NAME a LONG 1 NAME b BEGIN_ARRAY NUMBER 12345678901234567890 NUMBER 1.5 LONG -16 "
+				+ "STRING x\ny DOUBLE NaN END_ARRAY COMMENT c NAME c NULL NAME d BOOLEAN true END_OBJECT ",
+				visitor.out.toString());
+		assertEquals(JsonToken.END_DOCUMENT, reader.peek());
+	}
+
+	@Test
+	void member() throws IOException {
+		JsonReader reader = JsonReader.json5("{a: [1], b: 2}");
+		reader.beginObject();
+		Transcript visitor = new Transcript();
+		reader.accept(visitor);
+		assertEquals("NAME a BEGIN_ARRAY LONG 1 END_ARRAY ", visitor.out.toString());
+		assertEquals("b", reader.nextName());
+		assertEquals(2, reader.nextInt());
+		assertThrows(IllegalStateException.class, () -> reader.accept(visitor));
+		reader.endObject();
+	}
+
+	private static void pull(JsonReader reader, StringBuilder out) throws IOException {
+		JsonToken token = reader.peek();
+		switch (token) {
+			case BEGIN_ARRAY:
+				out.append("BEGIN_ARRAY ");
+				reader.beginArray();
+				while (reader.hasNext()) {
+					pull(reader, out);
+				}
+				reader.endArray();
+				out.append("END_ARRAY ");
+				break;
+			case BEGIN_OBJECT:
+				out.append("BEGIN_OBJECT ");
+				reader.beginObject();
+				while (reader.hasNext()) {
+					out.append("NAME ").append(reader.nextName()).append(' ');
+					pull(reader, out);
+				}
+				reader.endObject();
+				out.append("END_OBJECT ");
+				break;
+			case STRING:
+				out.append("STRING ").append(reader.nextString()).append(' ');
+				break;
+			case NUMBER:
+				out.append("NUMBER ").append(reader.nextDouble() + 0.0).append(' ');
+				break;
+			case BOOLEAN:
+				out.append("BOOLEAN ").append(reader.nextBoolean()).append(' ');
+				break;
+			case NULL:
+				reader.nextNull();
+				out.append("NULL ");
+				break;
+			default:
+				throw new AssertionError("Unexpected " + token);
+		}
+	}
+
+	/**
+	 * Writes the same transcript as {@link #pull}, except that it tells the kinds of numbers apart.
+	 */
+	static class Transcript implements JsonVisitor {
+		final StringBuilder out = new StringBuilder();
+
+		@Override
+		public void onBeginObject() {
+			out.append("BEGIN_OBJECT ");
+		}
+
+		@Override
+		public void onEndObject() {
+			out.append("END_OBJECT ");
+		}
+
+		@Override
+		public void onBeginArray() {
+			out.append("BEGIN_ARRAY ");
+		}
+
+		@Override
+		public void onEndArray() {
+			out.append("END_ARRAY ");
+		}
+
+		@Override
+		public void onName(char[] chars, int offset, int length) {
+			out.append("NAME ").append(chars, offset, length).append(' ');
+		}
+
+		@Override
+		public void onString(char[] chars, int offset, int length) {
+			out.append("STRING ").append(chars, offset, length).append(' ');
+		}
+
+		@Override
+		public void onLong(long value) {
+			out.append("LONG ").append(value).append(' ');
+		}
+
+		@Override
+		public void onDouble(double value) {
+			out.append("DOUBLE ").append(value).append(' ');
+		}
+
+		@Override
+		public void onNumber(char[] chars, int offset, int length) {
+			out.append("NUMBER ").append(chars, offset, length).append(' ');
+		}
+
+		@Override
+		public void onBoolean(boolean value) {
+			out.append("BOOLEAN ").append(value).append(' ');
+		}
+
+		@Override
+		public void onNull() {
+			out.append("NULL ");
+		}
+
+		@Override
+		public void onComment(CharSequence comment) {
+			out.append("COMMENT ").append(comment).append(' ');
+		}
+	}
+}
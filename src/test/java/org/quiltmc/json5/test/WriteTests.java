@@ -18,10 +18,17 @@ package org.quiltmc.json5.test;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.quiltmc.json5.JsonMetrics;
+import org.quiltmc.json5.JsonMetricsListener;
+import org.quiltmc.json5.JsonToken;
 import org.quiltmc.json5.JsonWriter;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.StringReader;
 import java.io.StringWriter;
+import java.util.Base64;
+import java.util.Random;
 
 class WriteTests {
 	@Test
@@ -89,6 +96,169 @@ class WriteTests {
 		});
 	}
 
+	@Test
+	void primitiveArrays() throws IOException {
+		int[] ints = { 1, -2, Integer.MAX_VALUE, Integer.MIN_VALUE };
+		long[] longs = { Long.MIN_VALUE, 0, 42 };
+		float[] floats = { 1.1f, -0.0f, Float.NaN };
+		double[] doubles = new double[5000];
+		for (int i = 0; i < doubles.length; i++) {
+			doubles[i] = i / 7.0;
+		}
+
+		for (String indent : new String[] { "", "\t", "  " }) {
+			StringWriter expected = new StringWriter();
+			try (JsonWriter writer = JsonWriter.json5(expected)) {
+				writer.setIndent(indent);
+				writer.beginObject().comment("Ints").name("ints").beginArray();
+				for (int i = 1; i < 4; i++) {
+					writer.value(ints[i]);
+				}
+				writer.endArray().name("longs").beginArray();
+				for (long value : longs) {
+					writer.value(value);
+				}
+				writer.endArray().name("nested").beginArray().beginArray();
+				for (float value : floats) {
+					writer.value((Number) value);
+				}
+				writer.endArray().beginArray().endArray().beginArray();
+				for (double value : doubles) {
+					writer.value(value);
+				}
+				writer.endArray().endArray().name("none").nullValue().endObject();
+			}
+
+			StringWriter actual = new StringWriter();
+			try (JsonWriter writer = JsonWriter.json5(actual)) {
+				writer.setIndent(indent);
+				writer.beginObject().comment("Ints").name("ints").value(ints, 1, 3).name("longs").value(longs)
+						.name("nested").beginArray().value(floats).value(new int[0]).value(doubles).endArray()
+						.name("none").value((long[]) null).endObject();
+			}
+			Assertions.assertEquals(expected.toString(), actual.toString());
+		}
+	}
+
+	@Test
+	void inlinePrimitiveArrays() throws IOException {
+		StringWriter w = new StringWriter();
+		try (JsonWriter writer = JsonWriter.json5(w)) {
+			writer.setMaxInlineArrayLength(3);
+			writer.beginArray().value(new int[] { 1, 2, 3 }).value(new double[] { 0.5, 1, 2, 3 }).endArray();
+		}
+		Assertions.assertEquals("[\n\t[1, 2, 3],\n\t[\n\t\t0.5,\n\t\t1.0,\n\t\t2.0,\n\t\t3.0\n\t]\n]", w.toString());
+	}
+
+	@Test
+	void primitiveArraysStrict() throws IOException {
+		StringWriter w = new StringWriter();
+		JsonWriter writer = JsonWriter.json(w);
+		Assertions.assertThrows(IllegalArgumentException.class,
+				() -> writer.value(new double[] { 1, Double.POSITIVE_INFINITY }));
+		Assertions.assertThrows(IndexOutOfBoundsException.class, () -> writer.value(new float[2], 1, 2));
+		Assertions.assertEquals("", w.toString());
+		writer.value(new float[] { 1, Float.NaN }, 0, 1);
+		writer.close();
+		Assertions.assertEquals("[\n\t1.0\n]", w.toString());
+	}
+
+	@Test
+	void readerValue() throws IOException {
+		StringBuilder value = new StringBuilder();
+		for (int i = 0; i < 3000; i++) {
+			value.append("<a href=\"x\">\\\n\u2028</a>");
+		}
+
+		for (boolean htmlSafe : new boolean[] { false, true }) {
+			StringWriter expected = new StringWriter();
+			try (JsonWriter writer = JsonWriter.json5(expected)) {
+				writer.setHtmlSafe(htmlSafe);
+				writer.beginObject().name("value").value(value.toString()).name("none").nullValue().endObject();
+			}
+
+			StringWriter actual = new StringWriter();
+			try (JsonWriter writer = JsonWriter.json5(actual)) {
+				writer.setHtmlSafe(htmlSafe);
+				writer.beginObject().name("value").value(new StringReader(value.toString()))
+						.name("none").value((StringReader) null).endObject();
+			}
+			Assertions.assertEquals(expected.toString(), actual.toString());
+		}
+	}
+
+	@Test
+	void metrics() throws IOException {
+		JsonMetrics[] reported = new JsonMetrics[1];
+		StringWriter out = new StringWriter();
+		JsonWriter writer = JsonWriter.json5(out);
+		writer.setMetricsListener(new JsonMetricsListener() {
+			@Override
+			public void onWritten(JsonMetrics metrics) {
+				reported[0] = metrics;
+			}
+		});
+		writer.beginObject().name("a").value("x\ny\t").name("b").value(new int[] { 1, 2, 3 }).name("c")
+				.beginArray().beginObject().name("d").value(true).endObject().nullValue().value(1.5).endArray()
+				.endObject();
+		writer.close();
+
+		JsonMetrics metrics = reported[0];
+		Assertions.assertEquals(out.toString().length(), metrics.getCharCount());
+		Assertions.assertEquals(2, metrics.getTokenCount(JsonToken.BEGIN_OBJECT));
+		Assertions.assertEquals(2, metrics.getTokenCount(JsonToken.END_ARRAY));
+		Assertions.assertEquals(4, metrics.getTokenCount(JsonToken.NAME));
+		Assertions.assertEquals(1, metrics.getTokenCount(JsonToken.STRING));
+		Assertions.assertEquals(4, metrics.getTokenCount(JsonToken.NUMBER));
+		Assertions.assertEquals(1, metrics.getTokenCount(JsonToken.BOOLEAN));
+		Assertions.assertEquals(1, metrics.getTokenCount(JsonToken.NULL));
+		Assertions.assertEquals(2, metrics.getEscapeCount());
+		Assertions.assertEquals(3, metrics.getMaxDepth());
+		Assertions.assertEquals(0, metrics.getBufferFills());
+
+		// Output which fails to be flushed is still reported
+		reported[0] = null;
+		JsonWriter failing = JsonWriter.json5(new StringWriter() {
+			@Override
+			public void close() throws IOException {
+				throw new IOException("Disk full");
+			}
+		});
+		failing.setMetricsListener(new JsonMetricsListener() {
+			@Override
+			public void onWritten(JsonMetrics metrics) {
+				reported[0] = metrics;
+			}
+		});
+		failing.value(1);
+		Assertions.assertThrows(IOException.class, failing::close);
+		Assertions.assertEquals(1, reported[0].getTokenCount(JsonToken.NUMBER));
+	}
+
+	@Test
+	void binary() throws IOException {
+		Random random = new Random(0);
+		for (int length : new int[] { 0, 1, 2, 3, 4, 3071, 3072, 3073, 10000 }) {
+			byte[] value = new byte[length];
+			random.nextBytes(value);
+			String expected = "[\n\t\"" + Base64.getEncoder().encodeToString(value) + "\",\n\t\""
+					+ Base64.getEncoder().encodeToString(value) + "\"\n]";
+
+			StringWriter w = new StringWriter();
+			try (JsonWriter writer = JsonWriter.json5(w)) {
+				writer.beginArray().value(value).value(new ByteArrayInputStream(value)).endArray();
+			}
+			Assertions.assertEquals(expected, w.toString());
+		}
+
+		StringWriter w = new StringWriter();
+		try (JsonWriter writer = JsonWriter.json5(w)) {
+			writer.setHtmlSafe(true);
+			writer.value(new byte[] { 'A' });
+		}
+		Assertions.assertEquals("\"QQ\\u003d\\u003d\"", w.toString());
+	}
+
 	static void sampleWrite(JsonWriter writer) throws IOException {
 		writer.comment("Top comment\nLook mom, multiple lines from one string\nin the input!")
 				.comment("This one, however, was a different call to comment().")